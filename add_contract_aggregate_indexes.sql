@@ -0,0 +1,15 @@
+-- Index backing the contract aggregate endpoint
+-- (GET /api/customer-contract/aggregate)
+
+-- Connect to customer contract database
+\c customercontractdb;
+
+-- Date-range scans by contract starting date
+CREATE INDEX IF NOT EXISTS idx_customer_contracts_starting_date
+    ON customer_contracts (starting_date);
+
+-- Verify indexes
+SELECT indexname, indexdef
+FROM pg_indexes
+WHERE tablename = 'customer_contracts'
+ORDER BY indexname;
@@ -0,0 +1,35 @@
+-- Indexes backing keyset pagination of the contract list endpoints
+-- (GET /api/customer-contract, /customer/{id}, /status/{status}, /date-range, /summary)
+-- Pages are ordered by (created_at, id) and continue after the cursor's position.
+
+-- Connect to customer contract database
+\c customercontractdb;
+
+-- Older rows may lack created_at; the keyset ordering needs a value on every row
+UPDATE customer_contracts
+SET created_at = COALESCE(updated_at, NOW())
+WHERE created_at IS NULL;
+
+-- GET / : all live contracts in (created_at, id) order
+CREATE INDEX IF NOT EXISTS idx_customer_contracts_deleted_created
+    ON customer_contracts (is_deleted, created_at, id);
+
+-- GET /status/{status}
+CREATE INDEX IF NOT EXISTS idx_customer_contracts_deleted_status
+    ON customer_contracts (is_deleted, status, created_at, id);
+
+-- GET /customer/{customerId}
+CREATE INDEX IF NOT EXISTS idx_customer_contracts_deleted_customer
+    ON customer_contracts (is_deleted, customer_id, created_at, id);
+
+-- GET /date-range and GET /aggregate; supersedes the single-column starting_date index
+CREATE INDEX IF NOT EXISTS idx_customer_contracts_deleted_starting_date
+    ON customer_contracts (is_deleted, starting_date);
+
+DROP INDEX IF EXISTS idx_customer_contracts_starting_date;
+
+-- Verify indexes
+SELECT indexname, indexdef
+FROM pg_indexes
+WHERE tablename = 'customer_contracts'
+ORDER BY indexname;
@@ -0,0 +1,29 @@
+-- Idempotency-Key cho POST tạo hợp đồng và tạo hóa đơn (IdempotencyRecord).
+-- Khóa chính idempotency_key là unique index dùng cho INSERT ... ON CONFLICT DO NOTHING.
+-- Chạy trước khi triển khai bản mới (profile docker dùng ddl-auto=validate).
+-- Client chỉ gửi lại trong thời gian ngắn; có thể xóa khóa cũ định kỳ, ví dụ:
+-- DELETE FROM idempotency_keys WHERE created_at < CURRENT_TIMESTAMP - INTERVAL '7 days';
+
+-- =====================================================
+-- CUSTOMER CONTRACT DATABASE (customercontractdb)
+-- =====================================================
+\c customercontractdb;
+
+CREATE TABLE IF NOT EXISTS idempotency_keys (
+    idempotency_key VARCHAR(255) PRIMARY KEY,
+    request_hash VARCHAR(64) NOT NULL,
+    response TEXT,
+    created_at TIMESTAMP NOT NULL
+);
+
+-- =====================================================
+-- CUSTOMER PAYMENT DATABASE (customerpaymentdb)
+-- =====================================================
+\c customerpaymentdb;
+
+CREATE TABLE IF NOT EXISTS idempotency_keys (
+    idempotency_key VARCHAR(255) PRIMARY KEY,
+    request_hash VARCHAR(64) NOT NULL,
+    response TEXT,
+    created_at TIMESTAMP NOT NULL
+);
@@ -0,0 +1,19 @@
+-- Indexes backing the paged contracts-by-job-category endpoint
+-- (GET /api/customer-contract/job-category/{jobCategoryId})
+
+-- Connect to customer contract database
+\c customercontractdb;
+
+-- Contract IDs having a job of the given category (index-only lookup for the EXISTS subquery)
+CREATE INDEX IF NOT EXISTS idx_job_details_job_category_contract
+    ON job_details (job_category_id, contract_id);
+
+-- Loading the job details of a page of contracts
+CREATE INDEX IF NOT EXISTS idx_job_details_contract_id
+    ON job_details (contract_id);
+
+-- Verify indexes
+SELECT indexname, indexdef
+FROM pg_indexes
+WHERE tablename = 'job_details'
+ORDER BY indexname;
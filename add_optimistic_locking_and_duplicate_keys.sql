@@ -0,0 +1,98 @@
+-- Khóa lạc quan (@Version) và unique constraint chống trùng cho hợp đồng và hóa đơn,
+-- thay cho transaction SERIALIZABLE và bước kiểm tra trùng đọc-rồi-ghi khi tạo mới.
+-- Chạy trước khi triển khai bản mới (profile docker dùng ddl-auto=validate).
+--
+-- duplicate_key = SHA-256 của các trường dùng để so trùng, giống CustomerContract.computeDuplicateKey()
+-- và CustomerPayment.computeDuplicateKey(); chỉ bản ghi còn hiệu lực mới có khóa.
+-- Nếu dữ liệu cũ đã có bản ghi trùng, chỉ bản ghi có ID nhỏ nhất nhận khóa, các bản còn lại giữ nguyên (khóa NULL).
+
+-- =====================================================
+-- CUSTOMER CONTRACT DATABASE (customercontractdb)
+-- =====================================================
+\c customercontractdb;
+
+BEGIN;
+
+ALTER TABLE customer_contracts ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE customer_contracts ADD COLUMN IF NOT EXISTS duplicate_key VARCHAR(64);
+
+-- Ràng buộc cũ trên toàn bộ cột tính cả hợp đồng đã xóa mềm, nên chặn việc tạo lại hợp đồng đã xóa
+ALTER TABLE customer_contracts DROP CONSTRAINT IF EXISTS uk_customer_contracts_no_duplicates;
+ALTER TABLE customer_contracts DROP CONSTRAINT IF EXISTS uk_customer_contracts_unique;
+
+WITH keyed AS (
+    SELECT id,
+           encode(sha256(convert_to(
+               customer_id::text || '|' || starting_date::text || '|' || ending_date::text || '|' ||
+               round(total_amount::numeric, 2)::text || '|' || address, 'UTF8')), 'hex') AS duplicate_key
+    FROM customer_contracts
+    WHERE is_deleted IS NOT TRUE
+      AND customer_id IS NOT NULL AND starting_date IS NOT NULL AND ending_date IS NOT NULL
+      AND total_amount IS NOT NULL AND address IS NOT NULL AND trim(address) <> ''
+), ranked AS (
+    SELECT id, duplicate_key, ROW_NUMBER() OVER (PARTITION BY duplicate_key ORDER BY id) AS rn
+    FROM keyed
+)
+UPDATE customer_contracts c
+SET duplicate_key = r.duplicate_key
+FROM ranked r
+WHERE c.id = r.id AND r.rn = 1;
+
+CREATE UNIQUE INDEX IF NOT EXISTS uk_customer_contracts_duplicate_key ON customer_contracts (duplicate_key);
+
+COMMIT;
+
+-- Hợp đồng trùng trong dữ liệu cũ (không nhận khóa), cần xem xét thủ công
+SELECT customer_id, starting_date, ending_date, round(total_amount::numeric, 2) AS total_amount, address,
+       COUNT(*) AS duplicate_count
+FROM customer_contracts
+WHERE is_deleted IS NOT TRUE AND address IS NOT NULL AND trim(address) <> ''
+GROUP BY customer_id, starting_date, ending_date, round(total_amount::numeric, 2), address
+HAVING COUNT(*) > 1;
+
+-- =====================================================
+-- CUSTOMER PAYMENT DATABASE (customerpaymentdb)
+-- =====================================================
+\c customerpaymentdb;
+
+BEGIN;
+
+ALTER TABLE customer_payments ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE customer_payments ADD COLUMN IF NOT EXISTS duplicate_key VARCHAR(64);
+
+ALTER TABLE customer_payments DROP CONSTRAINT IF EXISTS uk_customer_payments_no_duplicates;
+ALTER TABLE customer_payments DROP CONSTRAINT IF EXISTS uk_customer_payments_unique;
+
+WITH keyed AS (
+    SELECT id,
+           encode(sha256(convert_to(
+               customer_contract_id::text || '|' || round(payment_amount::numeric, 2)::text || '|' ||
+               (payment_date::date)::text || '|' || COALESCE(payment_method::text, 'null') || '|' ||
+               COALESCE(note, 'null'), 'UTF8')), 'hex') AS duplicate_key
+    FROM customer_payments
+    WHERE is_deleted IS NOT TRUE
+      AND customer_contract_id IS NOT NULL AND payment_amount IS NOT NULL AND payment_date IS NOT NULL
+), ranked AS (
+    SELECT id, duplicate_key, ROW_NUMBER() OVER (PARTITION BY duplicate_key ORDER BY id) AS rn
+    FROM keyed
+)
+UPDATE customer_payments p
+SET duplicate_key = r.duplicate_key
+FROM ranked r
+WHERE p.id = r.id AND r.rn = 1;
+
+CREATE UNIQUE INDEX IF NOT EXISTS uk_customer_payments_duplicate_key ON customer_payments (duplicate_key);
+
+-- Mỗi thanh toán tăng version của hợp đồng được phân bổ tiền (ContractPaymentVersion)
+CREATE TABLE IF NOT EXISTS contract_payment_versions (
+    contract_id BIGINT PRIMARY KEY,
+    version BIGINT NOT NULL DEFAULT 0
+);
+
+COMMIT;
+
+-- Kiểm tra kết quả
+SELECT 'customer_payments' AS table_name,
+       COUNT(*) AS total_rows,
+       COUNT(duplicate_key) AS keyed_rows
+FROM customer_payments;
@@ -0,0 +1,62 @@
+-- Payment change feed (GET /api/customer-payment/changes) and the
+-- replicated payment tables kept by customer-statistics-service
+
+-- ============================================================
+-- customer-payment-service
+-- ============================================================
+\c customerpaymentdb;
+
+-- Rows without updated_at would never appear in the feed
+UPDATE customer_payments
+SET updated_at = COALESCE(created_at, payment_date, CURRENT_TIMESTAMP)
+WHERE updated_at IS NULL;
+
+-- Keyset scan ordered by (updated_at, id)
+CREATE INDEX IF NOT EXISTS idx_customer_payments_updated_at_id
+    ON customer_payments (updated_at, id);
+
+-- ============================================================
+-- customer-statistics-service
+-- ============================================================
+\c customerstatisticsdb;
+
+-- Local copy of customer_payments (including soft-deleted rows)
+CREATE TABLE IF NOT EXISTS payment_replicas (
+    id BIGINT PRIMARY KEY,
+    payment_date TIMESTAMP,
+    payment_method INTEGER,
+    payment_amount DOUBLE PRECISION,
+    note VARCHAR(255),
+    customer_contract_id BIGINT,
+    customer_id BIGINT,
+    is_deleted BOOLEAN,
+    created_at TIMESTAMP,
+    updated_at TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_payment_replicas_payment_date
+    ON payment_replicas (payment_date);
+
+CREATE INDEX IF NOT EXISTS idx_payment_replicas_customer_payment_date
+    ON payment_replicas (customer_id, payment_date);
+
+-- Local copy of contract_payments
+CREATE TABLE IF NOT EXISTS payment_allocation_replicas (
+    id BIGINT PRIMARY KEY,
+    payment_id BIGINT NOT NULL,
+    contract_id BIGINT NOT NULL,
+    allocated_amount DOUBLE PRECISION NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_payment_allocation_replicas_payment_id
+    ON payment_allocation_replicas (payment_id);
+
+-- The sync state now stores the change-feed cursor instead of the last payment ID.
+-- A NULL cursor makes the service rebuild the replicas and the rollup from the start of the feed.
+ALTER TABLE revenue_rollup_states ADD COLUMN IF NOT EXISTS change_cursor VARCHAR(512);
+ALTER TABLE revenue_rollup_states DROP COLUMN IF EXISTS last_payment_id;
+
+-- Verify
+\d payment_replicas;
+\d payment_allocation_replicas;
+\d revenue_rollup_states;
@@ -0,0 +1,42 @@
+-- Order the payment change feed by commit instead of updated_at.
+-- The old feed held back rows newer than now - 5s, which skipped any payment whose
+-- transaction committed more than 5s after stamping updated_at (Feign calls, retry backoff).
+-- change_txid is the txid_current() of the writing transaction; the feed only returns rows
+-- whose transaction is older than the xmin of its snapshot, i.e. already finished.
+
+-- ============================================================
+-- customer-payment-service
+-- ============================================================
+\c customerpaymentdb;
+
+ALTER TABLE customer_payments ADD COLUMN IF NOT EXISTS change_txid BIGINT;
+
+-- Existing rows come first in the feed, ordered by id
+UPDATE customer_payments SET change_txid = 0 WHERE change_txid IS NULL;
+
+-- INSERT: column default; UPDATE: trigger (including updates made outside the service)
+ALTER TABLE customer_payments ALTER COLUMN change_txid SET DEFAULT txid_current();
+
+CREATE OR REPLACE FUNCTION set_customer_payment_change_txid() RETURNS trigger AS $$
+BEGIN
+    NEW.change_txid := txid_current();
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_customer_payments_change_txid ON customer_payments;
+CREATE TRIGGER trg_customer_payments_change_txid
+    BEFORE UPDATE ON customer_payments
+    FOR EACH ROW EXECUTE FUNCTION set_customer_payment_change_txid();
+
+DROP INDEX IF EXISTS idx_customer_payments_updated_at_id;
+CREATE INDEX IF NOT EXISTS idx_customer_payments_change_txid_id
+    ON customer_payments (change_txid, id);
+
+-- ============================================================
+-- customer-statistics-service
+-- ============================================================
+\c customerstatisticsdb;
+
+-- Stored cursors use the old (updated_at, id) format: rebuild the replicas once from the new feed
+UPDATE revenue_rollup_states SET change_cursor = NULL;
@@ -0,0 +1,19 @@
+-- Indexes backing the paged payment date-range endpoint
+-- (GET /api/customer-payment/date-range)
+
+-- Connect to customer payment database
+\c customerpaymentdb;
+
+-- Date-range scans over all customers
+CREATE INDEX IF NOT EXISTS idx_customer_payments_payment_date
+    ON customer_payments (payment_date);
+
+-- Date-range scans for a single customer (customer invoices)
+CREATE INDEX IF NOT EXISTS idx_customer_payments_customer_payment_date
+    ON customer_payments (customer_id, payment_date);
+
+-- Verify indexes
+SELECT indexname, indexdef
+FROM pg_indexes
+WHERE tablename = 'customer_payments'
+ORDER BY indexname;
@@ -0,0 +1,154 @@
+package com.aad.microservice.benchmarks;
+
+import com.aad.microservice.customer_contract_service.model.CustomerContract;
+import com.aad.microservice.customer_contract_service.model.JobDetail;
+import com.aad.microservice.customer_contract_service.model.WorkShift;
+import org.hibernate.Session;
+import org.hibernate.SessionEventListener;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cfg.Configuration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Lưu một hợp đồng gồm jobDetails công việc × shiftsPerJob ca làm việc với ID sinh bằng IDENTITY
+ * (ánh xạ cũ, mỗi INSERT một round-trip) và bằng sequence pooled (INSERT gộp theo hibernate.jdbc.batch_size).
+ * H2 chạy trong bộ nhớ nên mỗi round-trip (lệnh đơn lẻ hoặc một lần gửi batch) được cộng thêm
+ * latencyMicros để mô phỏng cơ sở dữ liệu qua mạng; số round-trip trung bình mỗi hợp đồng được in ra cuối mỗi trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ContractInsertBenchmark {
+
+    @Param({"identity", "pooled"})
+    private String idGeneration;
+
+    @Param({"1", "10"})
+    private int jobDetails;
+
+    @Param({"5"})
+    private int shiftsPerJob;
+
+    @Param({"0", "500"})
+    private long latencyMicros;
+
+    private SessionFactory sessionFactory;
+    private long contracts;
+    private long roundTrips;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Configuration configuration = new Configuration()
+                .addAnnotatedClass(CustomerContract.class)
+                .addAnnotatedClass(JobDetail.class)
+                .addAnnotatedClass(WorkShift.class)
+                .setProperty(AvailableSettings.JAKARTA_JDBC_URL, "jdbc:h2:mem:contract-insert;DB_CLOSE_DELAY=-1")
+                .setProperty(AvailableSettings.HBM2DDL_AUTO, "create-drop")
+                .setPhysicalNamingStrategy(new CamelCaseToUnderscoresNamingStrategy())   // Như Spring Boot
+                // Giống application.properties của customer-contract-service
+                .setProperty(AvailableSettings.STATEMENT_BATCH_SIZE, "20")
+                .setProperty(AvailableSettings.ORDER_INSERTS, "true");
+        if ("identity".equals(idGeneration)) {
+            configuration.addResource("identity-ids-orm.xml");
+        }
+        sessionFactory = configuration.buildSessionFactory();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        System.out.printf("%n%s, %d x %d: %.2f round-trip mỗi hợp đồng%n",
+                idGeneration, jobDetails, shiftsPerJob, (double) roundTrips / contracts);
+        sessionFactory.close();
+    }
+
+    @Benchmark
+    public CustomerContract saveContract() {
+        RoundTripCounter listener = new RoundTripCounter(TimeUnit.MICROSECONDS.toNanos(latencyMicros));
+        CustomerContract contract = newContract();
+        try (Session session = sessionFactory.withOptions().eventListeners(listener).openSession()) {
+            Transaction transaction = session.beginTransaction();
+            session.persist(contract);
+            session.flush();
+            // Không giữ lại dữ liệu để kích thước bảng không thay đổi giữa các lần đo
+            transaction.rollback();
+        }
+        contracts++;
+        roundTrips += listener.roundTrips;
+        return contract;
+    }
+
+    private CustomerContract newContract() {
+        LocalDate start = LocalDate.of(2024, 1, 1);
+        LocalDate end = LocalDate.of(2024, 12, 31);
+        LocalDateTime now = LocalDateTime.now();
+        CustomerContract contract = CustomerContract.builder()
+                .customerId(1L).startingDate(start).endingDate(end)
+                .totalAmount(0.0).totalPaid(0.0).status(0).isDeleted(false)
+                .createdAt(now).updatedAt(now)
+                .build();
+        for (int j = 0; j < jobDetails; j++) {
+            JobDetail jobDetail = JobDetail.builder()
+                    .jobCategoryId((long) j).startDate(start).endDate(end).workLocation("Hà Nội")
+                    .isDeleted(false).createdAt(now).updatedAt(now)
+                    .build();
+            for (int s = 0; s < shiftsPerJob; s++) {
+                jobDetail.addWorkShift(WorkShift.builder()
+                        .startTime("08:00").endTime("12:00").numberOfWorkers(2).salary(300000.0).workingDays("1,2,3,4,5")
+                        .isDeleted(false).createdAt(now).updatedAt(now)
+                        .build());
+            }
+            contract.addJobDetail(jobDetail);
+        }
+        return contract;
+    }
+
+    // Mỗi lệnh đơn lẻ (INSERT, lấy giá trị sequence) và mỗi lần gửi batch là một round-trip
+    private static final class RoundTripCounter implements SessionEventListener {
+        private final long latencyNanos;
+        private long roundTrips;
+
+        RoundTripCounter(long latencyNanos) {
+            this.latencyNanos = latencyNanos;
+        }
+
+        @Override
+        public void jdbcExecuteStatementStart() {
+            roundTrip();
+        }
+
+        @Override
+        public void jdbcExecuteBatchStart() {
+            roundTrip();
+        }
+
+        private void roundTrip() {
+            roundTrips++;
+            if (latencyNanos > 0) {
+                LockSupport.parkNanos(latencyNanos);
+            }
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.aad.microservice.benchmarks;
+
+import com.aad.microservice.customer_statistics_service.model.CustomerRevenue;
+import com.aad.microservice.customer_statistics_service.model.CustomerRevenueDrillDown;
+import com.aad.microservice.customer_statistics_service.model.CustomerRevenueRanking;
+import com.aad.microservice.customer_statistics_service.service.impl.CustomerStatisticsServiceImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Thống kê doanh thu theo khách hàng: danh sách đầy đủ (/revenue), top 10 (/revenue/top)
+ * và top 10 kèm chuỗi doanh thu theo tháng (/revenue/drill-down).
+ * Với nguồn REMOTE, mỗi lần gọi phân tích lại toàn bộ stream NDJSON hóa đơn và khách hàng.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class CustomerRevenueBenchmark {
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    private int rows;
+
+    @Param({"SNAPSHOT", "REMOTE"})
+    private StatisticsFixture.Source source;
+
+    private StatisticsFixture fixture;
+    private CustomerStatisticsServiceImpl service;
+    private LocalDate startDate;
+    private LocalDate endDate;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixture = new StatisticsFixture(rows, source);
+        service = fixture.getService();
+        startDate = fixture.getStartDate();
+        endDate = fixture.getEndDate();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @Benchmark
+    public List<CustomerRevenue> customerRevenue() {
+        return service.getCustomerRevenueStatistics(startDate, endDate);
+    }
+
+    @Benchmark
+    public CustomerRevenueRanking topCustomerRevenue() {
+        return service.getTopCustomerRevenue(startDate, endDate, 10, 0, null);
+    }
+
+    @Benchmark
+    public CustomerRevenueDrillDown drillDown() {
+        return service.getCustomerRevenueDrillDown(startDate, endDate, "month", 10);
+    }
+}
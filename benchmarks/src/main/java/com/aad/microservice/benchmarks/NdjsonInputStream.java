@@ -0,0 +1,54 @@
+package com.aad.microservice.benchmarks;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.function.IntFunction;
+
+/**
+ * Body NDJSON được sinh dần từng dòng khi đọc, để giả lập stream hàng triệu bản ghi mà không giữ cả body trong bộ nhớ
+ */
+public final class NdjsonInputStream extends InputStream {
+
+    private final IntFunction<String> lineGenerator;
+    private final int lineCount;
+    private int nextLine;
+    private byte[] buffer = new byte[0];
+    private int position;
+
+    public NdjsonInputStream(IntFunction<String> lineGenerator, int lineCount) {
+        this.lineGenerator = lineGenerator;
+        this.lineCount = lineCount;
+    }
+
+    private boolean fill() {
+        if (position < buffer.length) {
+            return true;
+        }
+        if (nextLine >= lineCount) {
+            return false;
+        }
+        buffer = (lineGenerator.apply(nextLine++) + "\n").getBytes(StandardCharsets.UTF_8);
+        position = 0;
+        return true;
+    }
+
+    @Override
+    public int read() {
+        return fill() ? buffer[position++] & 0xFF : -1;
+    }
+
+    @Override
+    public int read(byte[] target, int offset, int length) {
+        if (length == 0) {
+            return 0;
+        }
+        int written = 0;
+        while (written < length && fill()) {
+            int chunk = Math.min(length - written, buffer.length - position);
+            System.arraycopy(buffer, position, target, offset + written, chunk);
+            position += chunk;
+            written += chunk;
+        }
+        return written == 0 ? -1 : written;
+    }
+}
@@ -0,0 +1,72 @@
+package com.aad.microservice.benchmarks;
+
+import com.aad.microservice.customer_statistics_service.model.PaymentSnapshot;
+import com.aad.microservice.customer_statistics_service.model.RevenueBucket;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * So sánh tổng hợp tuần tự và fork-join trên PaymentSnapshot theo số hóa đơn trong khoảng thời gian,
+ * để chọn giá trị app.statistics.parallel.threshold-rows (điểm mà song song bắt đầu nhanh hơn).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParallelAggregationBenchmark {
+
+    @Param({"10000", "100000", "500000", "1000000", "10000000"})
+    private int rows;
+
+    @Param({"day", "month"})
+    private String granularity;
+
+    @Param({"65536"})
+    private int leafSize;
+
+    private PaymentSnapshot snapshot;
+    private ForkJoinPool pool;
+    private LocalDate startDate;
+    private LocalDate endDate;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        snapshot = SyntheticPayments.snapshot(rows);
+        pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        startDate = SyntheticPayments.START_DATE;
+        endDate = SyntheticPayments.endDate();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public List<RevenueBucket> sequential() {
+        return snapshot.sumByBucket(startDate, endDate, granularity);
+    }
+
+    @Benchmark
+    public List<RevenueBucket> parallel() {
+        return snapshot.sumByBucketParallel(startDate, endDate, granularity, pool, leafSize);
+    }
+}
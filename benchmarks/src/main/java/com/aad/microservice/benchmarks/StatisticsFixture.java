@@ -0,0 +1,166 @@
+package com.aad.microservice.benchmarks;
+
+import com.aad.microservice.customer_statistics_service.client.CustomerClient;
+import com.aad.microservice.customer_statistics_service.client.CustomerContractClient;
+import com.aad.microservice.customer_statistics_service.client.CustomerPaymentClient;
+import com.aad.microservice.customer_statistics_service.client.NdjsonStreamReader;
+import com.aad.microservice.customer_statistics_service.model.Customer;
+import com.aad.microservice.customer_statistics_service.model.ContractAggregate;
+import com.aad.microservice.customer_statistics_service.model.PaymentSnapshot;
+import com.aad.microservice.customer_statistics_service.model.RevenueBucket;
+import com.aad.microservice.customer_statistics_service.service.PaymentReplicaService;
+import com.aad.microservice.customer_statistics_service.service.PaymentSnapshotService;
+import com.aad.microservice.customer_statistics_service.service.RevenueRollupService;
+import com.aad.microservice.customer_statistics_service.service.impl.CustomerStatisticsServiceImpl;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import feign.Request;
+import feign.Response;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+/**
+ * Dựng CustomerStatisticsServiceImpl với các Feign client và service phụ thuộc được stub bằng dữ liệu giả lập
+ */
+public final class StatisticsFixture implements AutoCloseable {
+
+    public static final int CONTRACTS = 20_000;
+
+    // Nguồn dữ liệu hóa đơn mà service đọc
+    public enum Source {
+        SNAPSHOT,   // Snapshot dạng cột trong bộ nhớ (trạng thái bình thường sau khi đồng bộ)
+        REMOTE      // Chưa đồng bộ: tổng hợp từ customer-payment-service (GROUP BY / stream NDJSON)
+    }
+
+    private final CustomerStatisticsServiceImpl service;
+    private final ExecutorService executor;
+    private final ForkJoinPool forkJoinPool;
+
+    public StatisticsFixture(int rows, Source source) {
+        ObjectMapper objectMapper = JsonMapper.builder().findAndAddModules().build();
+        PaymentSnapshot snapshot = SyntheticPayments.snapshot(rows);
+
+        // Tổng hợp sẵn như customer-payment-service trả về qua /revenue-aggregate
+        Map<String, List<RevenueBucket>> aggregates = new HashMap<>();
+        for (String granularity : new String[]{"day", "week", "month", "year"}) {
+            aggregates.put(granularity, snapshot.sumByBucket(SyntheticPayments.START_DATE, SyntheticPayments.endDate(), granularity));
+        }
+
+        // customer-contract-service trả về số hợp đồng đã GROUP BY theo khách hàng
+        Map<Long, ContractAggregate> contractCounts = new HashMap<>();
+        for (int i = 0; i < CONTRACTS; i++) {
+            ContractAggregate aggregate = contractCounts.computeIfAbsent(SyntheticPayments.customerId(i),
+                    id -> new ContractAggregate(id, null, null, 0L, 0.0, 0.0));
+            aggregate.setContractCount(aggregate.getContractCount() + 1);
+            aggregate.setTotalAmount(aggregate.getTotalAmount() + SyntheticPayments.amount(i) * 10);
+        }
+        List<ContractAggregate> contracts = new ArrayList<>(contractCounts.values());
+
+        Map<String, Function<Object[], Object>> customerHandlers = new HashMap<>();
+        customerHandlers.put("streamAllCustomers", args -> ndjson(i -> customerJson(i + 1), SyntheticPayments.CUSTOMERS));
+        customerHandlers.put("getCustomersByIds", args -> {
+            List<Customer> customers = new ArrayList<>();
+            for (Object id : (List<?>) args[0]) {
+                customers.add(customer((Long) id));
+            }
+            return customers;
+        });
+
+        Map<String, Function<Object[], Object>> contractHandlers = new HashMap<>();
+        contractHandlers.put("getContractAggregates", args -> contracts);
+
+        Map<String, Function<Object[], Object>> paymentHandlers = new HashMap<>();
+        paymentHandlers.put("streamPayments", args -> ndjson(i -> paymentJson(i, rows), rows));
+        paymentHandlers.put("getRevenueAggregate", args -> aggregates.get((String) args[2]));
+
+        Map<String, Function<Object[], Object>> snapshotHandlers = new HashMap<>();
+        snapshotHandlers.put("getSnapshot", args -> source == Source.SNAPSHOT ? snapshot : null);
+
+        Map<String, Function<Object[], Object>> replicaHandlers = new HashMap<>();
+        replicaHandlers.put("isReady", args -> false);
+
+        NdjsonStreamReader streamReader = new NdjsonStreamReader();
+        Stubs.inject(streamReader, "objectMapper", objectMapper);
+
+        executor = Executors.newFixedThreadPool(4);
+        forkJoinPool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+        service = new CustomerStatisticsServiceImpl();
+        Stubs.inject(service, "customerClient", Stubs.of(CustomerClient.class, customerHandlers));
+        Stubs.inject(service, "contractClient", Stubs.of(CustomerContractClient.class, contractHandlers));
+        Stubs.inject(service, "paymentClient", Stubs.of(CustomerPaymentClient.class, paymentHandlers));
+        Stubs.inject(service, "revenueRollupService", Stubs.of(RevenueRollupService.class, new HashMap<>()));
+        Stubs.inject(service, "paymentReplicaService", Stubs.of(PaymentReplicaService.class, replicaHandlers));
+        Stubs.inject(service, "paymentSnapshotService", Stubs.of(PaymentSnapshotService.class, snapshotHandlers));
+        Stubs.inject(service, "ndjsonStreamReader", streamReader);
+        Stubs.inject(service, "statisticsExecutor", executor);
+        Stubs.inject(service, "statisticsForkJoinPool", forkJoinPool);
+        Stubs.inject(service, "fanOutTimeoutMs", 600_000L);
+        Stubs.inject(service, "parallelThresholdRows", 500_000);
+        Stubs.inject(service, "parallelLeafSize", 65_536);
+    }
+
+    public CustomerStatisticsServiceImpl getService() {
+        return service;
+    }
+
+    public LocalDate getStartDate() {
+        return SyntheticPayments.START_DATE;
+    }
+
+    public LocalDate getEndDate() {
+        return SyntheticPayments.endDate();
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+        forkJoinPool.shutdown();
+    }
+
+    private static Response ndjson(IntFunction<String> lineGenerator, int lineCount) {
+        InputStream body = new NdjsonInputStream(lineGenerator, lineCount);
+        Request request = Request.create(Request.HttpMethod.GET, "http://stub/stream", new HashMap<>(),
+                (byte[]) null, StandardCharsets.UTF_8, null);
+        return Response.builder()
+                .status(200)
+                .reason("OK")
+                .headers(new HashMap<>())
+                .request(request)
+                .body(body, null)
+                .build();
+    }
+
+    private static Customer customer(long id) {
+        Customer customer = new Customer();
+        customer.setId(id);
+        customer.setFullName("Khách hàng " + id);
+        customer.setPhoneNumber(String.format("09%08d", id));
+        customer.setEmail("customer" + id + "@example.com");
+        customer.setAddress("Hà Nội");
+        customer.setIsDeleted(false);
+        return customer;
+    }
+
+    private static String customerJson(long id) {
+        return "{\"id\":" + id + ",\"fullName\":\"Khách hàng " + id + "\",\"phoneNumber\":\"" + String.format("09%08d", id) +
+               "\",\"email\":\"customer" + id + "@example.com\",\"address\":\"Hà Nội\",\"isDeleted\":false}";
+    }
+
+    private static String paymentJson(int index, int rows) {
+        return "{\"id\":" + (index + 1) + ",\"paymentDate\":\"" + SyntheticPayments.paymentDate(index, rows) + "T10:00:00\"" +
+               ",\"paymentMethod\":1,\"paymentAmount\":" + SyntheticPayments.amount(index) +
+               ",\"customerId\":" + SyntheticPayments.customerId(index) + ",\"isDeleted\":false}";
+    }
+}
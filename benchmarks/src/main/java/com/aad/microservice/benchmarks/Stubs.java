@@ -0,0 +1,54 @@
+package com.aad.microservice.benchmarks;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Tạo stub cho Feign client và các service interface, và gán vào field @Autowired của service cần benchmark
+ */
+public final class Stubs {
+
+    private Stubs() {
+    }
+
+    // Mỗi phương thức trả về kết quả từ handler cùng tên; phương thức không có handler sẽ báo lỗi
+    public static <T> T of(Class<T> type, Map<String, Function<Object[], Object>> handlers) {
+        Object proxy = Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (instance, method, args) -> {
+            if (method.getDeclaringClass() == Object.class) {
+                switch (method.getName()) {
+                    case "equals":
+                        return instance == args[0];
+                    case "hashCode":
+                        return System.identityHashCode(instance);
+                    default:
+                        return "Stub(" + type.getSimpleName() + ")";
+                }
+            }
+            Function<Object[], Object> handler = handlers.get(method.getName());
+            if (handler == null) {
+                throw new UnsupportedOperationException(type.getSimpleName() + "." + method.getName() + " chưa được stub");
+            }
+            return handler.apply(args);
+        });
+        return type.cast(proxy);
+    }
+
+    public static void inject(Object target, String fieldName, Object value) {
+        Class<?> type = target.getClass();
+        while (type != null) {
+            try {
+                Field field = type.getDeclaredField(fieldName);
+                field.setAccessible(true);
+                field.set(target, value);
+                return;
+            } catch (NoSuchFieldException e) {
+                type = type.getSuperclass();
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        throw new IllegalArgumentException("Không có field " + fieldName + " trong " + target.getClass().getName());
+    }
+}
@@ -0,0 +1,45 @@
+package com.aad.microservice.benchmarks;
+
+import com.aad.microservice.customer_statistics_service.model.PaymentSnapshot;
+
+import java.time.LocalDate;
+
+/**
+ * Sinh dữ liệu hóa đơn giả lập: hóa đơn thứ i chỉ phụ thuộc vào (i, rows) nên snapshot và stream NDJSON
+ * cho cùng một bộ dữ liệu, và các lần chạy benchmark so sánh được với nhau.
+ */
+public final class SyntheticPayments {
+
+    public static final LocalDate START_DATE = LocalDate.of(2020, 1, 1);
+    public static final int DAYS = 5 * 365;
+    public static final int CUSTOMERS = 10_000;
+
+    private SyntheticPayments() {
+    }
+
+    // Hóa đơn phân bố đều trong DAYS ngày kể từ START_DATE
+    public static LocalDate paymentDate(int index, int rows) {
+        return START_DATE.plusDays((long) index * DAYS / rows);
+    }
+
+    public static long customerId(int index) {
+        return 1 + (index * 7919L) % CUSTOMERS;
+    }
+
+    // Số tiền từ 100.000 đến 50.000.000
+    public static double amount(int index) {
+        return 100_000 + (index * 104_729L) % 49_900_001;
+    }
+
+    public static PaymentSnapshot snapshot(int rows) {
+        PaymentSnapshot.Builder builder = new PaymentSnapshot.Builder(rows);
+        for (int i = 0; i < rows; i++) {
+            builder.add(paymentDate(i, rows), customerId(i), amount(i));
+        }
+        return builder.build();
+    }
+
+    public static LocalDate endDate() {
+        return START_DATE.plusDays(DAYS - 1);
+    }
+}
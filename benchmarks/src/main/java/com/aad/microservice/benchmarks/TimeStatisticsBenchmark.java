@@ -0,0 +1,77 @@
+package com.aad.microservice.benchmarks;
+
+import com.aad.microservice.customer_statistics_service.model.TimeBasedRevenue;
+import com.aad.microservice.customer_statistics_service.service.impl.CustomerStatisticsServiceImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Thống kê doanh thu theo ngày/tuần/tháng/năm trên toàn bộ 5 năm dữ liệu giả lập
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class TimeStatisticsBenchmark {
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    private int rows;
+
+    @Param({"SNAPSHOT", "REMOTE"})
+    private StatisticsFixture.Source source;
+
+    private StatisticsFixture fixture;
+    private CustomerStatisticsServiceImpl service;
+    private LocalDate startDate;
+    private LocalDate endDate;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixture = new StatisticsFixture(rows, source);
+        service = fixture.getService();
+        startDate = fixture.getStartDate();
+        endDate = fixture.getEndDate();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @Benchmark
+    public List<TimeBasedRevenue> daily() {
+        return service.getDailyRevenueStatistics(startDate, endDate);
+    }
+
+    @Benchmark
+    public List<TimeBasedRevenue> weekly() {
+        return service.getWeeklyRevenueStatistics(startDate, endDate);
+    }
+
+    @Benchmark
+    public List<TimeBasedRevenue> monthly() {
+        return service.getMonthlyRevenueStatistics(startDate, endDate);
+    }
+
+    @Benchmark
+    public List<TimeBasedRevenue> yearly() {
+        return service.getYearlyRevenueStatistics(startDate, endDate);
+    }
+}
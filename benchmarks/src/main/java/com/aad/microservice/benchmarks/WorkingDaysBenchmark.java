@@ -0,0 +1,102 @@
+package com.aad.microservice.benchmarks;
+
+import com.aad.microservice.customer_contract_service.util.WorkingDays;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * So sánh cách đếm ngày làm việc cũ của CustomerContractServiceImpl.calculateWorkingDaysCount
+ * (duyệt từng ngày, tra HashSet) với WorkingDays.count (số tuần đầy đủ × số ngày trong tuần + phần dư).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WorkingDaysBenchmark {
+
+    @Param({"30", "365", "1825", "7300"})
+    private int days;
+
+    // Tên thay cho chuỗi workingDays vì "-p" của JMH tách giá trị theo dấu phẩy
+    @Param({"weekdays", "alternate", "everyday"})
+    private String shift;
+
+    private String workingDays;
+    private LocalDate startDate;
+    private LocalDate endDate;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        workingDays = switch (shift) {
+            case "weekdays" -> "1,2,3,4,5";
+            case "alternate" -> "1,3,5,7";
+            default -> "1,2,3,4,5,6,7";
+        };
+        startDate = LocalDate.of(2024, 1, 3);
+        endDate = startDate.plusDays(days - 1);
+
+        if (dayLoop() != closedForm()) {
+            throw new IllegalStateException("Hai cách đếm cho kết quả khác nhau: " + dayLoop() + " và " + closedForm());
+        }
+    }
+
+    @Benchmark
+    public int dayLoop() {
+        return legacyCount(startDate, endDate, workingDays);
+    }
+
+    @Benchmark
+    public int closedForm() {
+        return (int) WorkingDays.count(startDate, endDate, WorkingDays.mask(workingDays));
+    }
+
+    // Bản sao cài đặt trước đây để làm mốc so sánh
+    private static int legacyCount(LocalDate startDate, LocalDate endDate, String workingDays) {
+        if (startDate == null || endDate == null || workingDays == null || workingDays.trim().isEmpty()) {
+            return 0;
+        }
+
+        Set<Integer> workingDaySet = new HashSet<>();
+        for (String dayStr : workingDays.split(",")) {
+            try {
+                int day = Integer.parseInt(dayStr.trim());
+                if (day >= 1 && day <= 7) {
+                    workingDaySet.add(day);
+                }
+            } catch (NumberFormatException e) {
+                // Skip invalid day numbers
+            }
+        }
+
+        if (workingDaySet.isEmpty()) {
+            return 0;
+        }
+
+        int count = 0;
+        LocalDate currentDate = startDate;
+        while (!currentDate.isAfter(endDate)) {
+            if (workingDaySet.contains(currentDate.getDayOfWeek().getValue())) {
+                count++;
+            }
+            currentDate = currentDate.plusDays(1);
+        }
+        return count;
+    }
+}
@@ -0,0 +1,35 @@
+-- Script to create the day-bucket revenue rollup tables
+-- used by customer-statistics-service
+
+-- Create statistics database (run separately if it already exists)
+-- CREATE DATABASE customerstatisticsdb;
+
+-- Connect to customer statistics database
+\c customerstatisticsdb;
+
+-- Revenue per (day, customer), maintained incrementally by the statistics service
+CREATE TABLE IF NOT EXISTS daily_revenue_rollups (
+    id BIGSERIAL PRIMARY KEY,
+    bucket_date DATE NOT NULL,
+    customer_id BIGINT,
+    total_revenue DOUBLE PRECISION NOT NULL DEFAULT 0,
+    invoice_count INTEGER NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+
+    CONSTRAINT uk_daily_revenue_rollups_day_customer
+        UNIQUE (bucket_date, customer_id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_daily_revenue_rollups_bucket_date
+    ON daily_revenue_rollups (bucket_date);
+
+-- Sync state (payment change-feed cursor, see add_payment_change_feed.sql)
+CREATE TABLE IF NOT EXISTS revenue_rollup_states (
+    name VARCHAR(50) PRIMARY KEY,
+    change_cursor VARCHAR(512),
+    synced_at TIMESTAMP
+);
+
+-- Verify table creation
+\d daily_revenue_rollups;
+\d revenue_rollup_states;
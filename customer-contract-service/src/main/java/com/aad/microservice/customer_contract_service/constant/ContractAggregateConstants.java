@@ -0,0 +1,26 @@
+package com.aad.microservice.customer_contract_service.constant;
+
+import java.util.Set;
+
+public class ContractAggregateConstants {
+    // Các chiều nhóm của API tổng hợp hợp đồng
+    public static final String GROUP_CUSTOMER = "customer";
+    public static final String GROUP_STATUS = "status";
+
+    // Đơn vị thời gian của kỳ (theo ngày bắt đầu hợp đồng)
+    public static final String DAY = "day";
+    public static final String WEEK = "week";     // Tuần bắt đầu từ thứ 2 (date_trunc của PostgreSQL)
+    public static final String MONTH = "month";
+    public static final String YEAR = "year";
+
+    private static final Set<String> GROUPS = Set.of(GROUP_CUSTOMER, GROUP_STATUS);
+    private static final Set<String> PERIODS = Set.of(DAY, WEEK, MONTH, YEAR);
+
+    public static boolean isValidGroup(String group) {
+        return group != null && GROUPS.contains(group);
+    }
+
+    public static boolean isValidPeriod(String period) {
+        return period != null && PERIODS.contains(period);
+    }
+}
@@ -0,0 +1,18 @@
+package com.aad.microservice.customer_contract_service.constant;
+
+import java.util.Set;
+
+public class WorkingDatesConstants {
+    // Định dạng kết quả của API ngày làm việc phân trang
+    public static final String FORMAT_EPOCH_DAY = "epoch-day";   // Mảng số ngày tính từ 1970-01-01
+    public static final String FORMAT_ISO_RANGE = "iso-range";   // Các khoảng ngày liên tiếp [from, to] dạng yyyy-MM-dd
+    public static final String FORMAT_COUNT = "count";           // Chỉ trả về tổng số ngày
+
+    public static final int MAX_LIMIT = 2000;
+
+    private static final Set<String> FORMATS = Set.of(FORMAT_EPOCH_DAY, FORMAT_ISO_RANGE, FORMAT_COUNT);
+
+    public static boolean isValidFormat(String format) {
+        return format != null && FORMATS.contains(format);
+    }
+}
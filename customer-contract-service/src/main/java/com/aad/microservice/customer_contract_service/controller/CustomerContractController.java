@@ -1,22 +1,34 @@
 package com.aad.microservice.customer_contract_service.controller;
 
 
+import com.aad.microservice.customer_contract_service.constant.WorkingDatesConstants;
+import com.aad.microservice.customer_contract_service.dto.ContractAggregateDto;
+import com.aad.microservice.customer_contract_service.dto.ContractImportReport;
+import com.aad.microservice.customer_contract_service.dto.ContractPage;
+import com.aad.microservice.customer_contract_service.dto.ContractQuote;
+import com.aad.microservice.customer_contract_service.dto.ContractSummaryPage;
+import com.aad.microservice.customer_contract_service.dto.PageResponse;
+import com.aad.microservice.customer_contract_service.dto.WorkingDatesPage;
 import com.aad.microservice.customer_contract_service.model.CustomerContract;
+import com.aad.microservice.customer_contract_service.service.ContractPricingService;
 import com.aad.microservice.customer_contract_service.service.CustomerContractService;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.List;
 
 @RestController
 @RequestMapping("/api/customer-contract")
 public class CustomerContractController {
     private final CustomerContractService contractService;
+    private final ContractPricingService contractPricingService;
 
-    public CustomerContractController(CustomerContractService contractService) {
+    public CustomerContractController(CustomerContractService contractService, ContractPricingService contractPricingService) {
         this.contractService = contractService;
+        this.contractPricingService = contractPricingService;
     }
 
     @GetMapping("/health")
@@ -30,14 +42,26 @@ public class CustomerContractController {
         return ResponseEntity.ok(contract);
     }
 
+    // Gửi lại cùng Idempotency-Key khi không nhận được phản hồi: hợp đồng chỉ được tạo một lần
     @PostMapping
-    public ResponseEntity<CustomerContract> createContract(@RequestBody CustomerContract contract) {
-        return ResponseEntity.ok(contractService.createContract(contract));
+    public ResponseEntity<CustomerContract> createContract(
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+            @RequestBody CustomerContract contract) {
+        return ResponseEntity.ok(contractService.createContract(contract, idempotencyKey));
     }
 
+    // Nhập nhiều hợp đồng một lần (chuyển dữ liệu từ hệ thống cũ); kết quả trả về theo từng dòng
+    @PostMapping("/import")
+    public ResponseEntity<ContractImportReport> importContracts(@RequestBody List<CustomerContract> contracts) {
+        return ResponseEntity.ok(contractService.importContracts(contracts));
+    }
+
+    // Phân trang keyset: truyền nextCursor của trang trước vào cursor để lấy trang tiếp theo
     @GetMapping
-    public ResponseEntity<List<CustomerContract>> getAllContracts() {
-        return ResponseEntity.ok(contractService.getAllContracts());
+    public ResponseEntity<ContractPage> getAllContracts(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int limit) {
+        return ResponseEntity.ok(contractService.getAllContracts(cursor, limit));
     }
 
     @PutMapping
@@ -51,26 +75,65 @@ public class CustomerContractController {
         return ResponseEntity.ok().build();
     }
 
+    // Danh sách hợp đồng không kèm công việc/ca làm việc, lọc theo khách hàng và trạng thái nếu có;
+    // phân trang keyset như GET /, truyền nextCursor của trang trước vào cursor
+    @GetMapping("/summary")
+    public ResponseEntity<ContractSummaryPage> getContractSummaries(
+            @RequestParam(required = false) Long customerId,
+            @RequestParam(required = false) Integer status,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int limit) {
+        return ResponseEntity.ok(contractService.getContractSummaries(customerId, status, cursor, limit));
+    }
+
     @GetMapping("/customer/{customerId}")
-    public ResponseEntity<List<CustomerContract>> getContractsByCustomerId(@PathVariable Long customerId) {
-        return ResponseEntity.ok(contractService.getContractsByCustomerId(customerId));
+    public ResponseEntity<ContractPage> getContractsByCustomerId(
+            @PathVariable Long customerId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int limit) {
+        return ResponseEntity.ok(contractService.getContractsByCustomerId(customerId, cursor, limit));
     }
 
     @GetMapping("/status/{status}")
-    public ResponseEntity<List<CustomerContract>> getContractsByStatus(@PathVariable Integer status) {
-        return ResponseEntity.ok(contractService.getContractsByStatus(status));
+    public ResponseEntity<ContractPage> getContractsByStatus(
+            @PathVariable Integer status,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int limit) {
+        return ResponseEntity.ok(contractService.getContractsByStatus(status, cursor, limit));
     }
 
     @GetMapping("/job-category/{jobCategoryId}")
-    public ResponseEntity<List<CustomerContract>> getContractsByJobCategoryId(@PathVariable Long jobCategoryId) {
-        return ResponseEntity.ok(contractService.getContractsByJobCategoryId(jobCategoryId));
+    public ResponseEntity<PageResponse<CustomerContract>> getContractsByJobCategoryId(
+            @PathVariable Long jobCategoryId,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size) {
+        return ResponseEntity.ok(contractService.getContractsByJobCategoryId(jobCategoryId, page, size));
     }
 
     @GetMapping("/date-range")
-    public ResponseEntity<List<CustomerContract>> getContractsByDateRange(
+    public ResponseEntity<ContractPage> getContractsByDateRange(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
-            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
-        return ResponseEntity.ok(contractService.getContractsByDateRange(startDate, endDate));
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int limit) {
+        return ResponseEntity.ok(contractService.getContractsByDateRange(startDate, endDate, cursor, limit));
+    }
+
+    // Tính giá nhiều hợp đồng nháp một lần cho màn hình báo giá, không lưu vào cơ sở dữ liệu
+    @PostMapping("/quote")
+    public ResponseEntity<List<ContractQuote>> quoteContracts(@RequestBody List<CustomerContract> drafts) {
+        return ResponseEntity.ok(contractPricingService.quoteContracts(drafts));
+    }
+
+    // API tổng hợp số hợp đồng và giá trị hợp đồng theo khách hàng/trạng thái/kỳ (GROUP BY phía cơ sở dữ liệu)
+    @GetMapping("/aggregate")
+    public ResponseEntity<List<ContractAggregateDto>> getContractAggregates(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) List<String> groupBy,
+            @RequestParam(required = false) String period,
+            @RequestParam(required = false) Long customerId) {
+        return ResponseEntity.ok(contractService.getContractAggregates(startDate, endDate, groupBy, period, customerId));
     }
 
     @PutMapping("/{id}/status")
@@ -95,4 +158,18 @@ public class CustomerContractController {
             @RequestParam String workingDays) {
         return ResponseEntity.ok(contractService.calculateWorkingDatesForShift(startDate, endDate, workingDays));
     }
+
+    // Ngày làm việc của ca theo trang (offset/limit) hoặc theo tháng; format=count chỉ trả về tổng số ngày
+    @GetMapping("/working-dates")
+    public ResponseEntity<WorkingDatesPage> getWorkingDatesPage(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam String workingDays,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM") YearMonth month,
+            @RequestParam(defaultValue = "0") long offset,
+            @RequestParam(defaultValue = "500") int limit,
+            @RequestParam(defaultValue = WorkingDatesConstants.FORMAT_EPOCH_DAY) String format) {
+        return ResponseEntity.ok(contractService.getWorkingDatesPage(
+                startDate, endDate, workingDays, month, offset, limit, format));
+    }
 }
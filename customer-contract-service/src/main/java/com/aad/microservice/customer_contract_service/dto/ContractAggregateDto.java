@@ -0,0 +1,18 @@
+package com.aad.microservice.customer_contract_service.dto;
+
+import lombok.*;
+
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ContractAggregateDto {
+    private Long customerId;        // Chỉ có giá trị khi nhóm theo khách hàng
+    private Integer status;         // Chỉ có giá trị khi nhóm theo trạng thái
+    private LocalDate periodStart;  // Ngày bắt đầu của kỳ, chỉ có giá trị khi nhóm theo kỳ
+    private Long contractCount;
+    private Double totalAmount;     // Tổng giá trị hợp đồng
+    private Double totalPaid;       // Tổng số tiền đã thanh toán
+}
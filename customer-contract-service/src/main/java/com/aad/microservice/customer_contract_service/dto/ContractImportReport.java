@@ -0,0 +1,16 @@
+package com.aad.microservice.customer_contract_service.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ContractImportReport {
+    private int total;
+    private int created;
+    private int failed;
+    private List<ContractImportResult> results;     // Theo đúng thứ tự danh sách gửi lên
+}
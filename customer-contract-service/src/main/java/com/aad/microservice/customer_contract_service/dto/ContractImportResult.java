@@ -0,0 +1,14 @@
+package com.aad.microservice.customer_contract_service.dto;
+
+import lombok.*;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ContractImportResult {
+    private int index;                  // Vị trí của hợp đồng trong danh sách gửi lên
+    private boolean created;
+    private Long contractId;            // ID hợp đồng đã tạo, null nếu dòng bị từ chối
+    private String message;             // Lý do từ chối
+}
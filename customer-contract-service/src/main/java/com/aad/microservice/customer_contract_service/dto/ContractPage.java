@@ -0,0 +1,16 @@
+package com.aad.microservice.customer_contract_service.dto;
+
+import com.aad.microservice.customer_contract_service.model.CustomerContract;
+import lombok.*;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ContractPage {
+    private List<CustomerContract> content;
+    private String nextCursor;      // Truyền lại ở lần gọi sau để lấy trang tiếp theo; null khi đã hết
+    private boolean hasMore;
+}
@@ -0,0 +1,16 @@
+package com.aad.microservice.customer_contract_service.dto;
+
+import lombok.*;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ContractQuote {
+    private int index;                  // Vị trí của hợp đồng nháp trong danh sách gửi lên
+    private BigDecimal totalAmount;     // Tổng tiền: lương × số người × số ngày làm việc của tất cả các ca
+    private int shiftCount;             // Số ca được tính giá
+    private long workerDays;            // Tổng số công (số người × số ngày làm việc)
+}
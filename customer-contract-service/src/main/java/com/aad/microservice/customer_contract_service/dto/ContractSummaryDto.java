@@ -0,0 +1,27 @@
+package com.aad.microservice.customer_contract_service.dto;
+
+import lombok.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Hợp đồng dạng phẳng (không kèm jobDetails/workShifts) dùng cho màn hình danh sách
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ContractSummaryDto {
+    private Long id;
+    private Long customerId;
+    private LocalDate startingDate;
+    private LocalDate endingDate;
+    private Double totalAmount;
+    private Double totalPaid;
+    private String address;
+    private String description;
+    private Integer status;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,15 @@
+package com.aad.microservice.customer_contract_service.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ContractSummaryPage {
+    private List<ContractSummaryDto> content;
+    private String nextCursor;      // Truyền lại ở lần gọi sau để lấy trang tiếp theo; null khi đã hết
+    private boolean hasMore;
+}
@@ -0,0 +1,14 @@
+package com.aad.microservice.customer_contract_service.dto;
+
+import lombok.*;
+
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class WorkingDateRange {
+    private LocalDate from;     // Ngày làm việc đầu tiên của chuỗi ngày liên tiếp
+    private LocalDate to;       // Ngày làm việc cuối cùng (tính cả ngày này)
+}
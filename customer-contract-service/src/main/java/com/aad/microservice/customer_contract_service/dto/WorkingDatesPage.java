@@ -0,0 +1,23 @@
+package com.aad.microservice.customer_contract_service.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class WorkingDatesPage {
+    private LocalDate startDate;            // Khoảng ngày thực tế sau khi giới hạn theo tháng
+    private LocalDate endDate;
+    private long totalCount;                // Tổng số ngày làm việc trong khoảng, không phụ thuộc offset/limit
+    private long offset;
+    private int limit;
+    private boolean hasNext;
+    private long[] epochDays;               // Chỉ có khi format = epoch-day
+    private List<WorkingDateRange> ranges;  // Chỉ có khi format = iso-range
+}
@@ -14,6 +14,7 @@ public enum ErrorCode {
     CustomerNotFound_Exception(1006),
     JobCategoryNotFound_Exception(1007),
     InvalidInput_Exception(1008),
+    Conflict_Exception(1009),
     ;
 
     ErrorCode(int code) {
@@ -32,6 +32,8 @@ public class GlobalExceptionHandler {
                    ex.getCode() == ErrorCode.InvalidDate_Exception ||
                    ex.getCode() == ErrorCode.InvalidInput_Exception) {
             status = HttpStatus.BAD_REQUEST;
+        } else if (ex.getCode() == ErrorCode.Conflict_Exception) {
+            status = HttpStatus.CONFLICT;
         }
 
         return new ResponseEntity<>(body, status);
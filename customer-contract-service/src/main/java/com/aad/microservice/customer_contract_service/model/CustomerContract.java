@@ -1,24 +1,47 @@
 package com.aad.microservice.customer_contract_service.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
 
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HexFormat;
 import java.util.List;
 
 @Entity
-@Table(name = "customer_contracts")
+@NamedEntityGraph(name = CustomerContract.WITH_JOB_DETAILS, attributeNodes = @NamedAttributeNode("jobDetails"))
+@Table(name = "customer_contracts", indexes = {
+        // Phân trang keyset theo (created_at, id) cho từng API danh sách
+        @Index(name = "idx_customer_contracts_deleted_created", columnList = "is_deleted, created_at, id"),
+        @Index(name = "idx_customer_contracts_deleted_status", columnList = "is_deleted, status, created_at, id"),
+        @Index(name = "idx_customer_contracts_deleted_customer", columnList = "is_deleted, customer_id, created_at, id"),
+        @Index(name = "idx_customer_contracts_deleted_starting_date", columnList = "is_deleted, starting_date")
+}, uniqueConstraints = {
+        @UniqueConstraint(name = CustomerContract.DUPLICATE_KEY_CONSTRAINT, columnNames = "duplicate_key")
+})
 @Getter
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
 public class CustomerContract {
+    // Nạp hợp đồng kèm danh sách công việc trong cùng một truy vấn
+    public static final String WITH_JOB_DETAILS = "CustomerContract.jobDetails";
+    public static final String DUPLICATE_KEY_CONSTRAINT = "uk_customer_contracts_duplicate_key";
+
+    // ID lấy từ sequence theo khối 50 giá trị (pooled) để Hibernate gộp được các lệnh INSERT thành batch
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "customer_contracts_seq")
+    @SequenceGenerator(name = "customer_contracts_seq", sequenceName = "customer_contracts_seq", allocationSize = 50)
     private Long id;
 
     private LocalDate startingDate;
@@ -41,6 +64,42 @@ public class CustomerContract {
 
     private Long customerId;
 
+    // Khóa lạc quan: hai lần cập nhật đồng thời cùng một hợp đồng thì lần commit sau thất bại thay vì ghi đè lần trước
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
+
+    // SHA-256 của (khách hàng, thời gian, tổng tiền, địa chỉ) khi hợp đồng còn hiệu lực, null khi đã xóa hoặc không có địa chỉ.
+    // Cột unique nên hợp đồng trùng bị cơ sở dữ liệu từ chối kể cả khi hai request tạo cùng lúc
+    @JsonIgnore
+    @Column(length = 64)
+    private String duplicateKey;
+
+    // Tính lại cả khi cập nhật: xóa mềm phải bỏ khóa để tạo lại được hợp đồng, và sửa khách hàng/thời gian/tổng tiền/địa chỉ
+    // thành đúng một hợp đồng khác đang hiệu lực sẽ bị từ chối (updateContract báo Duplicated_Exception) như khi tạo mới
+    @PrePersist
+    @PreUpdate
+    protected void updateDuplicateKey() {
+        duplicateKey = computeDuplicateKey();
+    }
+
+    public String computeDuplicateKey() {
+        if (Boolean.TRUE.equals(isDeleted) || customerId == null || startingDate == null || endingDate == null ||
+            totalAmount == null || address == null || address.trim().isEmpty()) {
+            return null;
+        }
+
+        String terms = customerId + "|" + startingDate + "|" + endingDate + "|" +
+                BigDecimal.valueOf(totalAmount).setScale(2, RoundingMode.HALF_UP).toPlainString() + "|" + address;
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(terms.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
     public void addJobDetail(JobDetail jobDetail) {
         jobDetails.add(jobDetail);
         jobDetail.setContract(this);
@@ -10,7 +10,10 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "job_details")
+@Table(name = "job_details", indexes = {
+        @Index(name = "idx_job_details_job_category_contract", columnList = "job_category_id, contract_id"),
+        @Index(name = "idx_job_details_contract_id", columnList = "contract_id")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -18,7 +21,8 @@ import java.util.List;
 @Builder
 public class JobDetail {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "job_details_seq")
+    @SequenceGenerator(name = "job_details_seq", sequenceName = "job_details_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
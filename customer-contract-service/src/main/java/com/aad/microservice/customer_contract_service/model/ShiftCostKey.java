@@ -0,0 +1,18 @@
+package com.aad.microservice.customer_contract_service.model;
+
+import lombok.Value;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Khóa cache chi phí của một ca: hai ca có cùng các giá trị này luôn có cùng chi phí.
+ */
+@Value
+public class ShiftCostKey {
+    LocalDate startDate;
+    LocalDate endDate;
+    int workingDaysMask;
+    BigDecimal salary;
+    int numberOfWorkers;
+}
@@ -15,7 +15,8 @@ import java.time.LocalDateTime;
 @Builder
 public class WorkShift {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "work_shifts_seq")
+    @SequenceGenerator(name = "work_shifts_seq", sequenceName = "work_shifts_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -1,9 +1,17 @@
 package com.aad.microservice.customer_contract_service.repository;
 
+import com.aad.microservice.customer_contract_service.dto.ContractSummaryDto;
 import com.aad.microservice.customer_contract_service.model.CustomerContract;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -12,16 +20,72 @@ import java.util.Optional;
  */
 public interface CustomerContractRepository extends JpaRepository<CustomerContract, Long> {
 
-    List<CustomerContract> findByIsDeletedFalse();
+    // Điều kiện keyset: hợp đồng đứng sau vị trí (createdAt, id) của cursor
+    String AFTER_CURSOR = "AND (c.createdAt > :createdAt OR (c.createdAt = :createdAt AND c.id > :id)) " +
+                          "ORDER BY c.createdAt, c.id";
 
     Optional<CustomerContract> findByIdAndIsDeletedFalse(Long id);
 
-    List<CustomerContract> findByCustomerIdAndIsDeletedFalse(Long customerId);
+    // Các khóa trùng (xem CustomerContract.duplicateKey) đã thuộc về một hợp đồng đang hiệu lực
+    @Query("SELECT c.duplicateKey FROM CustomerContract c WHERE c.duplicateKey IN :keys")
+    List<String> findExistingDuplicateKeys(@Param("keys") Collection<String> keys);
 
-    List<CustomerContract> findByStatusAndIsDeletedFalse(Integer status);
+    // Trang ID hợp đồng theo keyset (createdAt, id); cây hợp đồng của trang được nạp bằng findByIdIn
+    @Query("SELECT c.id FROM CustomerContract c WHERE c.isDeleted = false " + AFTER_CURSOR)
+    List<Long> findPageIds(@Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Pageable pageable);
 
-    List<CustomerContract> findByStartingDateBetweenAndIsDeletedFalse(LocalDate startDate, LocalDate endDate);
+    @Query("SELECT c.id FROM CustomerContract c WHERE c.isDeleted = false AND c.customerId = :customerId " + AFTER_CURSOR)
+    List<Long> findPageIdsByCustomerId(@Param("customerId") Long customerId,
+                                       @Param("createdAt") LocalDateTime createdAt, @Param("id") Long id,
+                                       Pageable pageable);
 
-    List<CustomerContract> findByCustomerIdAndStartingDateAndEndingDateAndIsDeletedFalse(Long customerId, LocalDate startingDate, LocalDate endingDate);
+    @Query("SELECT c.id FROM CustomerContract c WHERE c.isDeleted = false AND c.status = :status " + AFTER_CURSOR)
+    List<Long> findPageIdsByStatus(@Param("status") Integer status,
+                                   @Param("createdAt") LocalDateTime createdAt, @Param("id") Long id,
+                                   Pageable pageable);
+
+    @Query("SELECT c.id FROM CustomerContract c WHERE c.isDeleted = false " +
+           "AND c.startingDate BETWEEN :startDate AND :endDate " + AFTER_CURSOR)
+    List<Long> findPageIdsByStartingDateBetween(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate,
+                                                @Param("createdAt") LocalDateTime createdAt, @Param("id") Long id,
+                                                Pageable pageable);
+
+    // Trang ID hợp đồng có ít nhất một công việc thuộc loại công việc (dùng index job_category_id, contract_id)
+    @Query("SELECT c.id FROM CustomerContract c WHERE c.isDeleted = false AND EXISTS (" +
+           "SELECT 1 FROM JobDetail jd WHERE jd.contract = c AND jd.jobCategoryId = :jobCategoryId AND jd.isDeleted = false)")
+    Slice<Long> findIdsByJobCategoryId(@Param("jobCategoryId") Long jobCategoryId, Pageable pageable);
+
+    // Hợp đồng kèm danh sách công việc trong một truy vấn; ca làm việc được nạp riêng
+    // vì Hibernate không cho fetch join đồng thời hai List lồng nhau
+    @EntityGraph(CustomerContract.WITH_JOB_DETAILS)
+    List<CustomerContract> findByIdIn(Collection<Long> ids);
+
+    // Trang hợp đồng dạng phẳng (không kèm công việc và ca làm việc) cho màn hình danh sách, theo keyset (createdAt, id)
+    @Query("SELECT new com.aad.microservice.customer_contract_service.dto.ContractSummaryDto(" +
+           "c.id, c.customerId, c.startingDate, c.endingDate, c.totalAmount, c.totalPaid, c.address, " +
+           "c.description, c.status, c.createdAt, c.updatedAt) " +
+           "FROM CustomerContract c WHERE c.isDeleted = false " +
+           "AND (:customerId IS NULL OR c.customerId = :customerId) " +
+           "AND (:status IS NULL OR c.status = :status) " + AFTER_CURSOR)
+    List<ContractSummaryDto> findSummaries(@Param("customerId") Long customerId, @Param("status") Integer status,
+                                           @Param("createdAt") LocalDateTime createdAt, @Param("id") Long id,
+                                           Pageable pageable);
+
+    // Tổng hợp hợp đồng theo ngày bắt đầu - trả về [customerId, status, kỳ, số hợp đồng, tổng giá trị, tổng đã thanh toán]
+    // Chiều không được chọn trả về NULL nên chỉ tạo thành một nhóm; period NULL thì không nhóm theo kỳ
+    @Query(value = "SELECT CASE WHEN CAST(:byCustomer AS BOOLEAN) THEN c.customer_id END AS customer_id, " +
+                   "CASE WHEN CAST(:byStatus AS BOOLEAN) THEN c.status END AS status, " +
+                   "CAST(date_trunc(CAST(:period AS TEXT), CAST(c.starting_date AS TIMESTAMP)) AS date) AS period_start, " +
+                   "COUNT(*) AS cnt, SUM(c.total_amount) AS total_amount, SUM(c.total_paid) AS total_paid " +
+                   "FROM customer_contracts c " +
+                   "WHERE c.is_deleted = false AND c.starting_date BETWEEN :startDate AND :endDate " +
+                   "AND (CAST(:customerId AS BIGINT) IS NULL OR c.customer_id = CAST(:customerId AS BIGINT)) " +
+                   "GROUP BY 1, 2, 3 ORDER BY 3, 1, 2", nativeQuery = true)
+    List<Object[]> aggregateByStartingDate(@Param("startDate") LocalDate startDate,
+                                           @Param("endDate") LocalDate endDate,
+                                           @Param("customerId") Long customerId,
+                                           @Param("byCustomer") boolean byCustomer,
+                                           @Param("byStatus") boolean byStatus,
+                                           @Param("period") String period);
 
 }
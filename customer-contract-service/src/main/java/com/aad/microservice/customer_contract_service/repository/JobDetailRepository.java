@@ -2,7 +2,10 @@ package com.aad.microservice.customer_contract_service.repository;
 
 import com.aad.microservice.customer_contract_service.model.JobDetail;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -18,4 +21,8 @@ public interface JobDetailRepository extends JpaRepository<JobDetail, Long> {
     List<JobDetail> findByContract_IdAndIsDeletedFalse(Long contractId);
 
     List<JobDetail> findByJobCategoryIdAndIsDeletedFalse(Long jobCategoryId);
+
+    // Nạp ca làm việc cho tất cả công việc của các hợp đồng trong một truy vấn
+    @Query("SELECT jd FROM JobDetail jd LEFT JOIN FETCH jd.workShifts WHERE jd.contract.id IN :contractIds")
+    List<JobDetail> findWithWorkShiftsByContractIdIn(@Param("contractIds") Collection<Long> contractIds);
 }
@@ -0,0 +1,13 @@
+package com.aad.microservice.customer_contract_service.service;
+
+import com.aad.microservice.customer_contract_service.dto.ContractQuote;
+import com.aad.microservice.customer_contract_service.model.CustomerContract;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+public interface ContractPricingService {
+    BigDecimal calculateTotalAmount(CustomerContract contract);
+
+    List<ContractQuote> quoteContracts(List<CustomerContract> drafts);
+}
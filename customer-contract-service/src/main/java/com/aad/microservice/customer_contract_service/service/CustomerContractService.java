@@ -1,25 +1,40 @@
 package com.aad.microservice.customer_contract_service.service;
 
+import com.aad.microservice.customer_contract_service.dto.ContractAggregateDto;
+import com.aad.microservice.customer_contract_service.dto.ContractImportReport;
+import com.aad.microservice.customer_contract_service.dto.ContractPage;
+import com.aad.microservice.customer_contract_service.dto.ContractSummaryPage;
+import com.aad.microservice.customer_contract_service.dto.PageResponse;
+import com.aad.microservice.customer_contract_service.dto.WorkingDatesPage;
 import com.aad.microservice.customer_contract_service.model.CustomerContract;
 
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.List;
 
 public interface CustomerContractService {
     CustomerContract createContract(CustomerContract contract);
+    CustomerContract createContract(CustomerContract contract, String idempotencyKey);
+    ContractImportReport importContracts(List<CustomerContract> contracts);
     CustomerContract updateContract(CustomerContract contract);
     void deleteContract(Long id);
     CustomerContract getContractById(Long id);
-    List<CustomerContract> getAllContracts();
+    ContractPage getAllContracts(String cursor, int limit);
 
-    List<CustomerContract> getContractsByCustomerId(Long customerId);
-    List<CustomerContract> getContractsByStatus(Integer status);
-    List<CustomerContract> getContractsByDateRange(LocalDate startDate, LocalDate endDate);
-    List<CustomerContract> getContractsByJobCategoryId(Long jobCategoryId);
+    ContractPage getContractsByCustomerId(Long customerId, String cursor, int limit);
+    ContractPage getContractsByStatus(Integer status, String cursor, int limit);
+    ContractPage getContractsByDateRange(LocalDate startDate, LocalDate endDate, String cursor, int limit);
+    ContractSummaryPage getContractSummaries(Long customerId, Integer status, String cursor, int limit);
+    PageResponse<CustomerContract> getContractsByJobCategoryId(Long jobCategoryId, int page, int size);
+    List<ContractAggregateDto> getContractAggregates(LocalDate startDate, LocalDate endDate, List<String> groupBy,
+                                                     String period, Long customerId);
 
     CustomerContract updateContractStatus(Long id, Integer status);
 
     boolean checkContractExists(Long id);
 
     List<String> calculateWorkingDatesForShift(LocalDate startDate, LocalDate endDate, String workingDays);
+
+    WorkingDatesPage getWorkingDatesPage(LocalDate startDate, LocalDate endDate, String workingDays,
+                                         YearMonth month, long offset, int limit, String format);
 }
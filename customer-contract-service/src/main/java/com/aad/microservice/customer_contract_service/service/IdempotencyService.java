@@ -0,0 +1,11 @@
+package com.aad.microservice.customer_contract_service.service;
+
+import java.util.Optional;
+
+public interface IdempotencyService {
+    String fingerprint(String operation, Object request);
+
+    <T> Optional<T> findOrClaim(String key, String fingerprint, Class<T> responseType);
+
+    void saveResponse(String key, Object response);
+}
@@ -0,0 +1,133 @@
+package com.aad.microservice.customer_contract_service.service.impl;
+
+import com.aad.microservice.customer_contract_service.dto.ContractQuote;
+import com.aad.microservice.customer_contract_service.exception.AppException;
+import com.aad.microservice.customer_contract_service.exception.ErrorCode;
+import com.aad.microservice.customer_contract_service.model.CustomerContract;
+import com.aad.microservice.customer_contract_service.model.JobDetail;
+import com.aad.microservice.customer_contract_service.model.ShiftCostKey;
+import com.aad.microservice.customer_contract_service.model.WorkShift;
+import com.aad.microservice.customer_contract_service.service.ContractPricingService;
+import com.aad.microservice.customer_contract_service.util.WorkingDays;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tính giá hợp đồng: tổng lương × số người × số ngày làm việc của từng ca.
+ * Chi phí mỗi ca được cache theo (ngày bắt đầu, ngày kết thúc, ngày làm việc, lương, số người),
+ * nên khi sửa hợp đồng chỉ những ca có thông tin thay đổi mới phải tính lại.
+ * Tiền được giữ bằng BigDecimal để tổng không bị sai số làm tròn của double dù cộng theo thứ tự nào.
+ */
+@Service
+public class ContractPricingServiceImpl implements ContractPricingService {
+
+    private static final String CACHE_NAME = "shiftCosts";
+
+    private final Cache<ShiftCostKey, ShiftCost> shiftCosts;
+    private final int maxQuoteBatch;
+
+    public ContractPricingServiceImpl(MeterRegistry meterRegistry,
+                                      @Value("${app.pricing.shift-cost-cache.max-entries:10000}") long maxEntries,
+                                      @Value("${app.pricing.max-quote-batch:200}") int maxQuoteBatch) {
+        this.shiftCosts = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .recordStats()
+                .build();
+        this.maxQuoteBatch = maxQuoteBatch;
+
+        // Số lần hit/miss xem tại /actuator/metrics/cache.gets
+        CaffeineCacheMetrics.monitor(meterRegistry, shiftCosts, CACHE_NAME);
+    }
+
+    @Override
+    public BigDecimal calculateTotalAmount(CustomerContract contract) {
+        return price(contract).getTotalAmount();
+    }
+
+    @Override
+    public List<ContractQuote> quoteContracts(List<CustomerContract> drafts) {
+        if (drafts == null || drafts.isEmpty()) {
+            throw new AppException(ErrorCode.InvalidInput_Exception, "Danh sách hợp đồng cần tính giá không được để trống");
+        }
+
+        if (drafts.size() > maxQuoteBatch) {
+            throw new AppException(ErrorCode.InvalidInput_Exception,
+                    "Chỉ được tính giá tối đa " + maxQuoteBatch + " hợp đồng mỗi lần");
+        }
+
+        List<ContractQuote> quotes = new ArrayList<>(drafts.size());
+        for (int i = 0; i < drafts.size(); i++) {
+            if (drafts.get(i) == null) {
+                throw new AppException(ErrorCode.InvalidInput_Exception, "Hợp đồng thứ " + (i + 1) + " không được để trống");
+            }
+            ContractQuote quote = price(drafts.get(i));
+            quote.setIndex(i);
+            quotes.add(quote);
+        }
+        return quotes;
+    }
+
+    private ContractQuote price(CustomerContract contract) {
+        BigDecimal totalAmount = BigDecimal.ZERO;
+        int shiftCount = 0;
+        long workerDays = 0;
+
+        if (contract.getJobDetails() != null) {
+            for (JobDetail jobDetail : contract.getJobDetails()) {
+                if (jobDetail.getWorkShifts() == null) {
+                    continue;
+                }
+
+                // Use job detail dates if available, otherwise use contract dates
+                LocalDate startDate = jobDetail.getStartDate() != null ? jobDetail.getStartDate() : contract.getStartingDate();
+                LocalDate endDate = jobDetail.getEndDate() != null ? jobDetail.getEndDate() : contract.getEndingDate();
+                if (startDate == null || endDate == null) {
+                    continue;
+                }
+
+                for (WorkShift workShift : jobDetail.getWorkShifts()) {
+                    if (workShift.getSalary() == null || workShift.getNumberOfWorkers() == null ||
+                        workShift.getWorkingDays() == null || workShift.getWorkingDays().trim().isEmpty()) {
+                        continue;
+                    }
+
+                    ShiftCostKey key = new ShiftCostKey(startDate, endDate, WorkingDays.mask(workShift.getWorkingDays()),
+                            BigDecimal.valueOf(workShift.getSalary()), workShift.getNumberOfWorkers());
+                    ShiftCost cost = shiftCosts.get(key, this::computeShiftCost);
+
+                    totalAmount = totalAmount.add(cost.getAmount());
+                    workerDays += cost.getWorkerDays();
+                    shiftCount++;
+                }
+            }
+        }
+
+        return ContractQuote.builder()
+                .totalAmount(totalAmount)
+                .shiftCount(shiftCount)
+                .workerDays(workerDays)
+                .build();
+    }
+
+    // salary × numberOfWorkers × workingDaysCount
+    private ShiftCost computeShiftCost(ShiftCostKey key) {
+        long workingDaysCount = WorkingDays.count(key.getStartDate(), key.getEndDate(), key.getWorkingDaysMask());
+        long workerDays = workingDaysCount * key.getNumberOfWorkers();
+        return new ShiftCost(key.getSalary().multiply(BigDecimal.valueOf(workerDays)), workerDays);
+    }
+
+    @lombok.Value
+    private static class ShiftCost {
+        BigDecimal amount;
+        long workerDays;
+    }
+}
@@ -2,50 +2,129 @@ package com.aad.microservice.customer_contract_service.service.impl;
 
 import com.aad.microservice.customer_contract_service.client.CustomerClient;
 import com.aad.microservice.customer_contract_service.client.JobCategoryClient;
+import com.aad.microservice.customer_contract_service.constant.ContractAggregateConstants;
 import com.aad.microservice.customer_contract_service.constant.ContractStatusConstants;
+import com.aad.microservice.customer_contract_service.constant.WorkingDatesConstants;
+import com.aad.microservice.customer_contract_service.dto.ContractAggregateDto;
+import com.aad.microservice.customer_contract_service.dto.ContractImportReport;
+import com.aad.microservice.customer_contract_service.dto.ContractImportResult;
+import com.aad.microservice.customer_contract_service.dto.ContractPage;
+import com.aad.microservice.customer_contract_service.dto.ContractSummaryDto;
+import com.aad.microservice.customer_contract_service.dto.ContractSummaryPage;
+import com.aad.microservice.customer_contract_service.dto.PageResponse;
+import com.aad.microservice.customer_contract_service.dto.WorkingDateRange;
+import com.aad.microservice.customer_contract_service.dto.WorkingDatesPage;
 import com.aad.microservice.customer_contract_service.exception.AppException;
 import com.aad.microservice.customer_contract_service.exception.ErrorCode;
 import com.aad.microservice.customer_contract_service.model.CustomerContract;
 import com.aad.microservice.customer_contract_service.model.JobDetail;
 import com.aad.microservice.customer_contract_service.model.WorkShift;
 import com.aad.microservice.customer_contract_service.repository.CustomerContractRepository;
+import com.aad.microservice.customer_contract_service.repository.JobDetailRepository;
+import com.aad.microservice.customer_contract_service.service.ContractPricingService;
 import com.aad.microservice.customer_contract_service.service.CustomerContractService;
+import com.aad.microservice.customer_contract_service.service.IdempotencyService;
+import com.aad.microservice.customer_contract_service.util.TransactionRetry;
+import com.aad.microservice.customer_contract_service.util.WorkingDays;
+import org.hibernate.Session;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class CustomerContractServiceImpl implements CustomerContractService {
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final int FETCH_BATCH_SIZE = 1000;
+    // Vị trí bắt đầu khi không có cursor; hợp đồng cũ thiếu created_at đã được điền lại bằng add_contract_keyset_indexes.sql
+    private static final LocalDateTime CURSOR_START = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final String DUPLICATE_CONTRACT_MESSAGE =
+            "Hợp đồng tương tự đã tồn tại cho khách hàng này với cùng thời gian và địa điểm";
+
     private final CustomerContractRepository contractRepository;
+    private final JobDetailRepository jobDetailRepository;
     private final CustomerClient customerClient;
     private final JobCategoryClient jobCategoryClient;
+    private final ContractPricingService contractPricingService;
+    private final TransactionRetry transactionRetry;
+    private final IdempotencyService idempotencyService;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxImportBatch;
+    private final int importBatchSize;
 
     @PersistenceContext
     private EntityManager entityManager;
 
     public CustomerContractServiceImpl(CustomerContractRepository contractRepository,
+                                      JobDetailRepository jobDetailRepository,
                                       CustomerClient customerClient,
-                                      JobCategoryClient jobCategoryClient) {
+                                      JobCategoryClient jobCategoryClient,
+                                      ContractPricingService contractPricingService,
+                                      TransactionRetry transactionRetry,
+                                      IdempotencyService idempotencyService,
+                                      TransactionTemplate transactionTemplate,
+                                      @Value("${app.contract-import.max-batch:5000}") int maxImportBatch,
+                                      @Value("${app.contract-import.jdbc-batch-size:500}") int importBatchSize) {
         this.contractRepository = contractRepository;
+        this.jobDetailRepository = jobDetailRepository;
         this.customerClient = customerClient;
         this.jobCategoryClient = jobCategoryClient;
+        this.contractPricingService = contractPricingService;
+        this.transactionRetry = transactionRetry;
+        this.idempotencyService = idempotencyService;
+        this.transactionTemplate = transactionTemplate;
+        this.maxImportBatch = maxImportBatch;
+        this.importBatchSize = importBatchSize;
     }
 
     @Override
-    @Transactional(isolation = org.springframework.transaction.annotation.Isolation.SERIALIZABLE)
+    @Transactional
     public CustomerContract createContract(CustomerContract contract) {
+        return createContract(contract, null);
+    }
+
+    /**
+     * Tạo hợp đồng; nếu có idempotencyKey thì khóa được ghi cùng transaction với hợp đồng, request lặp lại
+     * cùng khóa nhận lại đúng hợp đồng đã tạo mà không kiểm tra lại hay gọi customer-service/job-service.
+     */
+    @Override
+    @Transactional
+    public CustomerContract createContract(CustomerContract contract, String idempotencyKey) {
+        if (idempotencyKey != null) {
+            String fingerprint = idempotencyService.fingerprint("createContract", contract);
+            Optional<CustomerContract> previous =
+                    idempotencyService.findOrClaim(idempotencyKey, fingerprint, CustomerContract.class);
+            if (previous.isPresent()) {
+                return previous.get();
+            }
+        }
+
         // Validate input parameters
         if (contract == null) {
             throw new AppException(ErrorCode.NotAllowCreate_Exception, "Thông tin hợp đồng không được để trống");
@@ -55,25 +134,6 @@ public class CustomerContractServiceImpl implements CustomerContractService {
             throw new AppException(ErrorCode.CustomerNotFound_Exception, "Mã khách hàng không được để trống");
         }
 
-        // Check for potential duplicate contracts before processing
-        List<CustomerContract> existingContracts = contractRepository.findByCustomerIdAndStartingDateAndEndingDateAndIsDeletedFalse(
-            contract.getCustomerId(), contract.getStartingDate(), contract.getEndingDate());
-
-        if (!existingContracts.isEmpty()) {
-            for (CustomerContract existing : existingContracts) {
-                // Only check for duplicates if both contracts have meaningful addresses
-                // Skip duplicate check if either address is null or empty to allow contracts without addresses
-                boolean bothHaveAddresses = (existing.getAddress() != null && !existing.getAddress().trim().isEmpty()) &&
-                                          (contract.getAddress() != null && !contract.getAddress().trim().isEmpty());
-
-                if (Math.abs(existing.getTotalAmount() - contract.getTotalAmount()) < 0.01 &&
-                    bothHaveAddresses && Objects.equals(existing.getAddress(), contract.getAddress())) {
-                    throw new AppException(ErrorCode.Duplicated_Exception,
-                        "Hợp đồng tương tự đã tồn tại cho khách hàng này với cùng thời gian và địa điểm");
-                }
-            }
-        }
-
         // Kiểm tra khách hàng có tồn tại không
         try {
             Boolean customerExists = customerClient.checkCustomerExists(contract.getCustomerId());
@@ -84,6 +144,61 @@ public class CustomerContractServiceImpl implements CustomerContractService {
             System.out.println("Không thể kết nối đến customer-service: " + e.getMessage());
         }
 
+        // Kiểm tra loại công việc có tồn tại không
+        if (contract.getJobDetails() != null) {
+            for (JobDetail jobDetail : contract.getJobDetails()) {
+                if (jobDetail.getJobCategoryId() != null) {
+                    try {
+                        Boolean jobCategoryExists = jobCategoryClient.checkJobCategoryExists(jobDetail.getJobCategoryId());
+                        if (!jobCategoryExists) {
+                            throw new AppException(ErrorCode.JobCategoryNotFound_Exception, "Không tìm thấy thông tin loại công việc");
+                        }
+                    } catch (Exception e) {
+                        System.out.println("Không thể kết nối đến job-service: " + e.getMessage());
+                    }
+                }
+            }
+        }
+
+        prepareNewContract(contract);
+
+        // Khóa dùng để ghi log; là Idempotency-Key nếu client có gửi
+        String processingKey = idempotencyKey != null
+                ? idempotencyKey : "contract_" + contract.getCustomerId() + "_" + System.currentTimeMillis();
+        System.out.println("Processing contract creation with key: " + processingKey);
+
+        // Lưu hợp đồng với proper transaction handling
+        System.out.println("Saving contract for customer ID: " + contract.getCustomerId() + ", JobDetails count: " +
+                          (contract.getJobDetails() != null ? contract.getJobDetails().size() : 0));
+
+        try {
+            // Save contract without clearing entity manager to maintain transaction context
+            CustomerContract savedContract = contractRepository.save(contract);
+
+            // Force immediate flush to database to ensure data is persisted
+            entityManager.flush();
+
+            System.out.println("Contract successfully saved with ID: " + savedContract.getId() + " (key: " + processingKey + ")");
+            if (idempotencyKey != null) {
+                idempotencyService.saveResponse(idempotencyKey, savedContract);
+            }
+            return savedContract;
+
+        } catch (Exception e) {
+            // Hợp đồng trùng do unique constraint duplicate_key chặn, kể cả khi một request khác vừa tạo cùng lúc
+            if (isDuplicateKeyViolation(e)) {
+                throw new AppException(ErrorCode.Duplicated_Exception, DUPLICATE_CONTRACT_MESSAGE);
+            }
+            System.err.println("Error saving contract with key " + processingKey + ": " + e.getMessage());
+            throw new AppException(ErrorCode.NotAllowCreate_Exception, "Không thể tạo hợp đồng: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Kiểm tra ngày, công việc và ca làm việc của hợp đồng mới, thiết lập giá trị mặc định
+     * và tính lại tổng tiền. Không gọi service khác và không truy cập cơ sở dữ liệu.
+     */
+    private void prepareNewContract(CustomerContract contract) {
         // Kiểm tra ngày bắt đầu và kết thúc
         if (contract.getStartingDate() == null || contract.getEndingDate() == null) {
             throw new AppException(ErrorCode.NotAllowCreate_Exception, "Ngày bắt đầu và kết thúc không được để trống");
@@ -102,6 +217,8 @@ public class CustomerContractServiceImpl implements CustomerContractService {
         contract.setCreatedAt(LocalDateTime.now());
         contract.setUpdatedAt(LocalDateTime.now());
         contract.setIsDeleted(false);
+        // Hợp đồng mới luôn bắt đầu từ phiên bản đầu tiên, bỏ qua version client gửi lên (nếu có)
+        contract.setVersion(null);
 
         // Nếu không có totalPaid, thiết lập mặc định là 0
         if (contract.getTotalPaid() == null) {
@@ -116,18 +233,6 @@ public class CustomerContractServiceImpl implements CustomerContractService {
         // Xử lý JobDetails nếu có
         if (contract.getJobDetails() != null && !contract.getJobDetails().isEmpty()) {
             for (JobDetail jobDetail : contract.getJobDetails()) {
-                // Kiểm tra loại công việc có tồn tại không
-                if (jobDetail.getJobCategoryId() != null) {
-                    try {
-                        Boolean jobCategoryExists = jobCategoryClient.checkJobCategoryExists(jobDetail.getJobCategoryId());
-                        if (!jobCategoryExists) {
-                            throw new AppException(ErrorCode.JobCategoryNotFound_Exception, "Không tìm thấy thông tin loại công việc");
-                        }
-                    } catch (Exception e) {
-                        System.out.println("Không thể kết nối đến job-service: " + e.getMessage());
-                    }
-                }
-
                 // Validate JobDetail fields
                 if (jobDetail.getStartDate() == null) {
                     throw new AppException(ErrorCode.InvalidInput_Exception, "Ngày bắt đầu công việc không được để trống");
@@ -212,34 +317,171 @@ public class CustomerContractServiceImpl implements CustomerContractService {
         }
 
         // Calculate and validate total amount
-        double calculatedAmount = calculateTotalAmount(contract);
-        if (Math.abs(contract.getTotalAmount() - calculatedAmount) > 0.01) {
+        double calculatedAmount = contractPricingService.calculateTotalAmount(contract).doubleValue();
+        if (contract.getTotalAmount() == null || Math.abs(contract.getTotalAmount() - calculatedAmount) > 0.01) {
             // Allow small floating point differences, but update to calculated amount
             contract.setTotalAmount(calculatedAmount);
         }
+    }
 
-        // Add unique identifier to prevent duplicate processing
-        String processingKey = "contract_" + contract.getCustomerId() + "_" + System.currentTimeMillis();
-        System.out.println("Processing contract creation with key: " + processingKey);
+    // Vi phạm unique constraint duplicate_key: cùng khách hàng, thời gian, tổng tiền và địa chỉ với hợp đồng đang hiệu lực
+    private static boolean isDuplicateKeyViolation(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation && violation.getConstraintName() != null &&
+                violation.getConstraintName().toLowerCase().contains(CustomerContract.DUPLICATE_KEY_CONSTRAINT)) {
+                return true;
+            }
+        }
+        return false;
+    }
 
-        // Lưu hợp đồng với proper transaction handling
-        System.out.println("Saving contract for customer ID: " + contract.getCustomerId() + ", JobDetails count: " +
-                          (contract.getJobDetails() != null ? contract.getJobDetails().size() : 0));
+    /**
+     * Kiểm tra dữ liệu và gọi customer-service/job-service trước, ngoài transaction; chỉ bước tra hợp đồng trùng
+     * và ghi theo lô nằm trong transaction, nên một lô lớn không giữ kết nối cơ sở dữ liệu trong lúc chờ mạng.
+     */
+    @Override
+    public ContractImportReport importContracts(List<CustomerContract> contracts) {
+        if (contracts == null || contracts.isEmpty()) {
+            throw new AppException(ErrorCode.InvalidInput_Exception, "Danh sách hợp đồng cần nhập không được để trống");
+        }
 
-        try {
-            // Save contract without clearing entity manager to maintain transaction context
-            CustomerContract savedContract = contractRepository.save(contract);
+        if (contracts.size() > maxImportBatch) {
+            throw new AppException(ErrorCode.InvalidInput_Exception,
+                    "Chỉ được nhập tối đa " + maxImportBatch + " hợp đồng mỗi lần");
+        }
 
-            // Force immediate flush to database to ensure data is persisted
-            entityManager.flush();
+        ContractImportResult[] results = new ContractImportResult[contracts.size()];
+        List<Integer> accepted = new ArrayList<>(contracts.size());
 
-            System.out.println("Contract successfully saved with ID: " + savedContract.getId() + " (key: " + processingKey + ")");
-            return savedContract;
+        // 1. Kiểm tra dữ liệu của từng dòng trước khi gọi service khác hay ghi vào cơ sở dữ liệu
+        for (int i = 0; i < contracts.size(); i++) {
+            CustomerContract contract = contracts.get(i);
+            try {
+                if (contract == null) {
+                    throw new AppException(ErrorCode.InvalidInput_Exception, "Thông tin hợp đồng không được để trống");
+                }
+                if (contract.getCustomerId() == null) {
+                    throw new AppException(ErrorCode.CustomerNotFound_Exception, "Mã khách hàng không được để trống");
+                }
+                prepareNewContract(contract);
+                accepted.add(i);
+            } catch (AppException e) {
+                results[i] = rejected(i, e.getMessage());
+            }
+        }
 
-        } catch (Exception e) {
-            System.err.println("Error saving contract with key " + processingKey + ": " + e.getMessage());
-            throw new AppException(ErrorCode.NotAllowCreate_Exception, "Không thể tạo hợp đồng: " + e.getMessage());
+        // 2. Mỗi khách hàng và mỗi loại công việc chỉ được kiểm tra một lần cho cả lô
+        Map<Long, Boolean> customerExists = checkExistence(
+                accepted.stream().map(i -> contracts.get(i).getCustomerId()),
+                customerClient::checkCustomerExists, "customer-service");
+        Map<Long, Boolean> jobCategoryExists = checkExistence(
+                accepted.stream().flatMap(i -> contracts.get(i).getJobDetails().stream()).map(JobDetail::getJobCategoryId),
+                jobCategoryClient::checkJobCategoryExists, "job-service");
+
+        List<Integer> existing = new ArrayList<>(accepted.size());
+        for (int i : accepted) {
+            CustomerContract contract = contracts.get(i);
+            if (Boolean.FALSE.equals(customerExists.get(contract.getCustomerId()))) {
+                results[i] = rejected(i, "Không tìm thấy thông tin khách hàng");
+            } else if (contract.getJobDetails().stream()
+                    .anyMatch(jobDetail -> Boolean.FALSE.equals(jobCategoryExists.get(jobDetail.getJobCategoryId())))) {
+                results[i] = rejected(i, "Không tìm thấy thông tin loại công việc");
+            } else {
+                existing.add(i);
+            }
+        }
+
+        List<CustomerContract> toInsert = new ArrayList<>(existing.size());
+        List<Integer> insertedIndexes = new ArrayList<>(existing.size());
+        transactionTemplate.executeWithoutResult(status -> {
+            // 3. Hợp đồng trùng với hợp đồng đã có, hoặc với một dòng phía trước trong cùng lô (so theo duplicateKey)
+            Set<String> takenKeys = findExistingDuplicateKeys(existing.stream()
+                    .map(i -> contracts.get(i).computeDuplicateKey())
+                    .filter(Objects::nonNull)
+                    .distinct()
+                    .collect(Collectors.toList()));
+
+            for (int i : existing) {
+                CustomerContract contract = contracts.get(i);
+                String duplicateKey = contract.computeDuplicateKey();
+                if (duplicateKey != null && !takenKeys.add(duplicateKey)) {
+                    results[i] = rejected(i, DUPLICATE_CONTRACT_MESSAGE);
+                } else {
+                    toInsert.add(contract);
+                    insertedIndexes.add(i);
+                }
+            }
+
+            // 4. Ghi hợp đồng, công việc và ca làm việc theo lô: ID lấy từ sequence (pooled) nên Hibernate gộp
+            // các lệnh INSERT thành JDBC batch; flush và clear sau mỗi lô để persistence context không phình to
+            try {
+                entityManager.unwrap(Session.class).setJdbcBatchSize(importBatchSize);
+                for (int from = 0; from < toInsert.size(); from += importBatchSize) {
+                    contractRepository.saveAll(toInsert.subList(from, Math.min(from + importBatchSize, toInsert.size())));
+                    entityManager.flush();
+                    entityManager.clear();
+                }
+            } catch (Exception e) {
+                // Một request khác vừa tạo hợp đồng trùng sau bước 3: cả lô bị hủy để client gửi lại và nhận báo cáo đúng
+                if (isDuplicateKeyViolation(e)) {
+                    throw new AppException(ErrorCode.Duplicated_Exception,
+                            "Có hợp đồng trùng vừa được tạo trong lúc nhập, vui lòng nhập lại");
+                }
+                System.err.println("Error importing " + toInsert.size() + " contracts: " + e.getMessage());
+                throw new AppException(ErrorCode.NotAllowCreate_Exception, "Không thể nhập hợp đồng: " + e.getMessage());
+            }
+        });
+
+        for (int k = 0; k < toInsert.size(); k++) {
+            int i = insertedIndexes.get(k);
+            results[i] = ContractImportResult.builder()
+                    .index(i)
+                    .created(true)
+                    .contractId(toInsert.get(k).getId())
+                    .build();
+        }
+
+        System.out.println("Imported " + toInsert.size() + "/" + contracts.size() + " contracts");
+        return ContractImportReport.builder()
+                .total(contracts.size())
+                .created(toInsert.size())
+                .failed(contracts.size() - toInsert.size())
+                .results(Arrays.asList(results))
+                .build();
+    }
+
+    private static ContractImportResult rejected(int index, String message) {
+        return ContractImportResult.builder()
+                .index(index)
+                .created(false)
+                .message(message)
+                .build();
+    }
+
+    /**
+     * Gọi kiểm tra tồn tại một lần cho mỗi ID khác nhau. Giống createContract, nếu không kết nối được
+     * service kia thì không chặn việc nhập; chỉ ID được xác nhận là không tồn tại (false) mới bị từ chối.
+     */
+    private Map<Long, Boolean> checkExistence(Stream<Long> ids, Function<Long, Boolean> check, String serviceName) {
+        Map<Long, Boolean> exists = new HashMap<>();
+        ids.filter(Objects::nonNull).distinct().forEach(id -> {
+            try {
+                exists.put(id, check.apply(id));
+            } catch (Exception e) {
+                System.out.println("Không thể kết nối đến " + serviceName + ": " + e.getMessage());
+            }
+        });
+        return exists;
+    }
+
+    // Các duplicateKey đã thuộc về hợp đồng đang hiệu lực, tra theo lô trên unique index
+    private Set<String> findExistingDuplicateKeys(List<String> keys) {
+        Set<String> existing = new HashSet<>();
+        for (int from = 0; from < keys.size(); from += FETCH_BATCH_SIZE) {
+            existing.addAll(contractRepository.findExistingDuplicateKeys(
+                    keys.subList(from, Math.min(from + FETCH_BATCH_SIZE, keys.size()))));
         }
+        return existing;
     }
 
     @Override
@@ -253,6 +495,11 @@ public class CustomerContractServiceImpl implements CustomerContractService {
 
         CustomerContract currentContract = existingContract.get();
 
+        // Client gửi kèm version đã đọc: hợp đồng đã bị sửa sau lần đọc đó thì không ghi đè lên thay đổi của người khác
+        if (contract.getVersion() != null && !contract.getVersion().equals(currentContract.getVersion())) {
+            throw new AppException(ErrorCode.Conflict_Exception, "Hợp đồng đã được cập nhật bởi người khác, vui lòng tải lại");
+        }
+
         // Không cho phép cập nhật hợp đồng đã hoàn thành hoặc đã hủy
         if (currentContract.getStatus() == ContractStatusConstants.COMPLETED ||
             currentContract.getStatus() == ContractStatusConstants.CANCELLED) {
@@ -393,19 +640,39 @@ public class CustomerContractServiceImpl implements CustomerContractService {
 
         // Calculate and validate total amount if job details were updated
         if (contract.getJobDetails() != null && !contract.getJobDetails().isEmpty()) {
-            double calculatedAmount = calculateTotalAmount(currentContract);
+            double calculatedAmount = contractPricingService.calculateTotalAmount(currentContract).doubleValue();
             if (Math.abs(currentContract.getTotalAmount() - calculatedAmount) > 0.01) {
                 // Allow small floating point differences, but update to calculated amount
                 currentContract.setTotalAmount(calculatedAmount);
             }
         }
 
-        return contractRepository.save(currentContract);
+        try {
+            CustomerContract savedContract = contractRepository.save(currentContract);
+            entityManager.flush();
+            return savedContract;
+        } catch (Exception e) {
+            // duplicateKey được tính lại khi cập nhật: nội dung sau khi sửa trùng với một hợp đồng khác còn hiệu lực
+            if (isDuplicateKeyViolation(e)) {
+                throw new AppException(ErrorCode.Duplicated_Exception, DUPLICATE_CONTRACT_MESSAGE);
+            }
+            // Yêu cầu sửa toàn bộ hợp đồng không được thử lại tự động vì sẽ ghi đè thay đổi vừa commit
+            if (TransactionRetry.isConcurrencyConflict(e)) {
+                throw new AppException(ErrorCode.Conflict_Exception, "Hợp đồng đã được cập nhật bởi người khác, vui lòng tải lại");
+            }
+            throw e;
+        }
     }
 
     @Override
-    @Transactional
     public void deleteContract(Long id) {
+        transactionRetry.execute(() -> {
+            doDeleteContract(id);
+            return null;
+        });
+    }
+
+    private void doDeleteContract(Long id) {
         Optional<CustomerContract> contract = contractRepository.findByIdAndIsDeletedFalse(id);
         if (contract.isEmpty()) {
             throw new AppException(ErrorCode.NotFound_Exception, "Không tìm thấy thông tin hợp đồng");
@@ -436,40 +703,231 @@ public class CustomerContractServiceImpl implements CustomerContractService {
     }
 
     @Override
-    public List<CustomerContract> getAllContracts() {
-        return contractRepository.findByIsDeletedFalse();
+    @Transactional(readOnly = true)
+    public ContractPage getAllContracts(String cursor, int limit) {
+        return keysetPage(cursor, limit, (createdAt, id, pageable) ->
+                contractRepository.findPageIds(createdAt, id, pageable));
     }
 
     @Override
-    public List<CustomerContract> getContractsByCustomerId(Long customerId) {
-        return contractRepository.findByCustomerIdAndIsDeletedFalse(customerId);
+    @Transactional(readOnly = true)
+    public ContractPage getContractsByCustomerId(Long customerId, String cursor, int limit) {
+        return keysetPage(cursor, limit, (createdAt, id, pageable) ->
+                contractRepository.findPageIdsByCustomerId(customerId, createdAt, id, pageable));
     }
 
     @Override
-    public List<CustomerContract> getContractsByStatus(Integer status) {
-        return contractRepository.findByStatusAndIsDeletedFalse(status);
+    @Transactional(readOnly = true)
+    public ContractPage getContractsByStatus(Integer status, String cursor, int limit) {
+        return keysetPage(cursor, limit, (createdAt, id, pageable) ->
+                contractRepository.findPageIdsByStatus(status, createdAt, id, pageable));
     }
 
     @Override
-    public List<CustomerContract> getContractsByDateRange(LocalDate startDate, LocalDate endDate) {
-        return contractRepository.findByStartingDateBetweenAndIsDeletedFalse(startDate, endDate);
+    @Transactional(readOnly = true)
+    public ContractPage getContractsByDateRange(LocalDate startDate, LocalDate endDate, String cursor, int limit) {
+        return keysetPage(cursor, limit, (createdAt, id, pageable) ->
+                contractRepository.findPageIdsByStartingDateBetween(startDate, endDate, createdAt, id, pageable));
+    }
+
+    @FunctionalInterface
+    private interface KeysetQuery<T> {
+        List<T> find(LocalDateTime createdAt, Long id, Pageable pageable);
+    }
+
+    /**
+     * Phân trang keyset theo (createdAt, id): lấy limit + 1 ID sau vị trí cursor để biết còn trang sau hay không,
+     * rồi nạp cây hợp đồng của trang bằng số truy vấn cố định. Chi phí mỗi trang không tăng theo độ sâu như OFFSET.
+     */
+    private ContractPage keysetPage(String cursor, int limit, KeysetQuery<Long> query) {
+        List<Long> ids = findAfterCursor(cursor, limit, query);
+        boolean hasMore = ids.size() > limit;
+        if (hasMore) {
+            ids = ids.subList(0, limit);
+        }
+
+        List<CustomerContract> contracts = new ArrayList<>(ids.size());
+        if (!ids.isEmpty()) {
+            Map<Long, CustomerContract> contractsById = loadWorkShifts(contractRepository.findByIdIn(ids)).stream()
+                    .collect(Collectors.toMap(CustomerContract::getId, Function.identity()));
+
+            // Giữ đúng thứ tự (createdAt, id) của trang
+            for (Long id : ids) {
+                contracts.add(contractsById.get(id));
+            }
+        }
+
+        String nextCursor = null;
+        if (hasMore) {
+            CustomerContract last = contracts.get(contracts.size() - 1);
+            nextCursor = encodeCursor(last.getCreatedAt(), last.getId());
+        }
+
+        return ContractPage.builder()
+                .content(contracts)
+                .nextCursor(nextCursor)
+                .hasMore(hasMore)
+                .build();
+    }
+
+    // Kiểm tra kích thước trang, giải mã cursor và lấy tối đa limit + 1 dòng đứng sau vị trí đó
+    private <T> List<T> findAfterCursor(String cursor, int limit, KeysetQuery<T> query) {
+        if (limit <= 0 || limit > MAX_PAGE_SIZE) {
+            throw new AppException(ErrorCode.InvalidInput_Exception,
+                    "Kích thước trang phải từ 1 đến " + MAX_PAGE_SIZE);
+        }
+
+        LocalDateTime afterCreatedAt = CURSOR_START;
+        Long afterId = 0L;
+        if (cursor != null && !cursor.isBlank()) {
+            try {
+                String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|", 2);
+                afterCreatedAt = LocalDateTime.parse(parts[0]);
+                afterId = Long.parseLong(parts[1]);
+            } catch (RuntimeException e) {
+                throw new AppException(ErrorCode.InvalidInput_Exception, "Cursor không hợp lệ");
+            }
+        }
+
+        return query.find(afterCreatedAt, afterId, PageRequest.of(0, limit + 1));
+    }
+
+    private static String encodeCursor(LocalDateTime createdAt, Long id) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(
+                (createdAt + "|" + id).getBytes(StandardCharsets.UTF_8));
     }
 
     @Override
-    public List<CustomerContract> getContractsByJobCategoryId(Long jobCategoryId) {
-        // Find all contracts
-        List<CustomerContract> allContracts = contractRepository.findByIsDeletedFalse();
+    @Transactional(readOnly = true)
+    public ContractSummaryPage getContractSummaries(Long customerId, Integer status, String cursor, int limit) {
+        List<ContractSummaryDto> summaries = findAfterCursor(cursor, limit, (createdAt, id, pageable) ->
+                contractRepository.findSummaries(customerId, status, createdAt, id, pageable));
+        boolean hasMore = summaries.size() > limit;
+        if (hasMore) {
+            summaries = summaries.subList(0, limit);
+        }
 
-        // Filter contracts that have job details with the specified job category ID
-        return allContracts.stream()
-            .filter(contract -> contract.getJobDetails().stream()
-                .anyMatch(jobDetail -> jobDetail.getJobCategoryId().equals(jobCategoryId) && !jobDetail.getIsDeleted()))
-            .collect(Collectors.toList());
+        String nextCursor = null;
+        if (hasMore) {
+            ContractSummaryDto last = summaries.get(summaries.size() - 1);
+            nextCursor = encodeCursor(last.getCreatedAt(), last.getId());
+        }
+
+        return ContractSummaryPage.builder()
+                .content(summaries)
+                .nextCursor(nextCursor)
+                .hasMore(hasMore)
+                .build();
+    }
+
+    /**
+     * Hợp đồng đã được nạp kèm jobDetails (entity graph); nạp tiếp workShifts của tất cả công việc
+     * bằng một truy vấn cho mỗi FETCH_BATCH_SIZE hợp đồng, thay vì một truy vấn cho mỗi công việc
+     * khi Jackson duyệt cây hợp đồng.
+     */
+    private List<CustomerContract> loadWorkShifts(List<CustomerContract> contracts) {
+        List<Long> contractIds = contracts.stream().map(CustomerContract::getId).collect(Collectors.toList());
+        for (int from = 0; from < contractIds.size(); from += FETCH_BATCH_SIZE) {
+            jobDetailRepository.findWithWorkShiftsByContractIdIn(
+                    contractIds.subList(from, Math.min(from + FETCH_BATCH_SIZE, contractIds.size())));
+        }
+        return contracts;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<ContractAggregateDto> getContractAggregates(LocalDate startDate, LocalDate endDate, List<String> groupBy,
+                                                            String period, Long customerId) {
+        if (startDate == null || endDate == null) {
+            throw new AppException(ErrorCode.InvalidInput_Exception, "Ngày bắt đầu và ngày kết thúc không được để trống");
+        }
+
+        if (startDate.isAfter(endDate)) {
+            throw new AppException(ErrorCode.InvalidInput_Exception, "Ngày bắt đầu không thể sau ngày kết thúc");
+        }
+
+        List<String> groups = groupBy != null ? groupBy : new ArrayList<>();
+        for (String group : groups) {
+            if (!ContractAggregateConstants.isValidGroup(group)) {
+                throw new AppException(ErrorCode.InvalidInput_Exception,
+                        "Chiều nhóm không hợp lệ: " + group + " (customer, status)");
+            }
+        }
+
+        if (period != null && !ContractAggregateConstants.isValidPeriod(period)) {
+            throw new AppException(ErrorCode.InvalidInput_Exception,
+                    "Đơn vị thời gian không hợp lệ: " + period + " (day, week, month, year)");
+        }
+
+        boolean byCustomer = groups.contains(ContractAggregateConstants.GROUP_CUSTOMER);
+        boolean byStatus = groups.contains(ContractAggregateConstants.GROUP_STATUS);
+        List<Object[]> rows = contractRepository.aggregateByStartingDate(
+                startDate, endDate, customerId, byCustomer, byStatus, period);
+
+        // Cột: customerId, status, kỳ, số hợp đồng, tổng giá trị, tổng đã thanh toán
+        List<ContractAggregateDto> aggregates = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            aggregates.add(ContractAggregateDto.builder()
+                    .customerId(row[0] != null ? ((Number) row[0]).longValue() : null)
+                    .status(row[1] != null ? ((Number) row[1]).intValue() : null)
+                    .periodStart(toLocalDate(row[2]))
+                    .contractCount(((Number) row[3]).longValue())
+                    .totalAmount(row[4] != null ? ((Number) row[4]).doubleValue() : 0.0)
+                    .totalPaid(row[5] != null ? ((Number) row[5]).doubleValue() : 0.0)
+                    .build());
+        }
+
+        return aggregates;
+    }
+
+    private LocalDate toLocalDate(Object value) {
+        if (value instanceof LocalDate localDate) {
+            return localDate;
+        }
+        if (value instanceof java.sql.Date sqlDate) {
+            return sqlDate.toLocalDate();
+        }
+        return value != null ? LocalDate.parse(value.toString()) : null;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public PageResponse<CustomerContract> getContractsByJobCategoryId(Long jobCategoryId, int page, int size) {
+        if (page < 0 || size <= 0 || size > MAX_PAGE_SIZE) {
+            throw new AppException(ErrorCode.InvalidInput_Exception,
+                    "Số trang phải >= 0 và kích thước trang phải từ 1 đến " + MAX_PAGE_SIZE);
+        }
+
+        // Phân trang trên ID (JOIN job_details theo job_category_id ở cơ sở dữ liệu),
+        // sau đó nạp cây hợp đồng -> công việc -> ca làm việc của trang bằng hai truy vấn cố định
+        Slice<Long> ids = contractRepository.findIdsByJobCategoryId(jobCategoryId, PageRequest.of(page, size, Sort.by("id")));
+
+        List<CustomerContract> contracts = new ArrayList<>(ids.getNumberOfElements());
+        if (ids.hasContent()) {
+            Map<Long, CustomerContract> contractsById = loadWorkShifts(contractRepository.findByIdIn(ids.getContent())).stream()
+                    .collect(Collectors.toMap(CustomerContract::getId, Function.identity()));
+
+            // Giữ đúng thứ tự của trang
+            for (Long id : ids.getContent()) {
+                contracts.add(contractsById.get(id));
+            }
+        }
+
+        return PageResponse.<CustomerContract>builder()
+                .content(contracts)
+                .page(ids.getNumber())
+                .size(ids.getSize())
+                .hasNext(ids.hasNext())
+                .build();
     }
 
     @Override
-    @Transactional
     public CustomerContract updateContractStatus(Long id, Integer status) {
+        // Đổi trạng thái đồng thời với thao tác khác trên cùng hợp đồng: thử lại và kiểm tra chuyển trạng thái trên dữ liệu mới
+        return transactionRetry.execute(() -> doUpdateContractStatus(id, status));
+    }
+
+    private CustomerContract doUpdateContractStatus(Long id, Integer status) {
         Optional<CustomerContract> contract = contractRepository.findByIdAndIsDeletedFalse(id);
         if (contract.isEmpty()) {
             throw new AppException(ErrorCode.NotFound_Exception, "Không tìm thấy thông tin hợp đồng");
@@ -519,94 +977,89 @@ public class CustomerContractServiceImpl implements CustomerContractService {
         return calculateWorkingDates(startDate, endDate, workingDays);
     }
 
-    /**
-     * Calculate the total amount for a contract based on work shifts
-     * @param contract The contract to calculate total amount for
-     * @return The calculated total amount
-     */
-    private double calculateTotalAmount(CustomerContract contract) {
-        if (contract.getJobDetails() == null || contract.getJobDetails().isEmpty()) {
-            return 0.0;
+    @Override
+    public WorkingDatesPage getWorkingDatesPage(LocalDate startDate, LocalDate endDate, String workingDays,
+                                                YearMonth month, long offset, int limit, String format) {
+        if (startDate == null || endDate == null) {
+            throw new AppException(ErrorCode.InvalidDate_Exception, "Ngày bắt đầu và ngày kết thúc không được để trống");
         }
 
-        double totalAmount = 0.0;
-
-        for (JobDetail jobDetail : contract.getJobDetails()) {
-            if (jobDetail.getWorkShifts() == null || jobDetail.getWorkShifts().isEmpty()) {
-                continue;
-            }
-
-            for (WorkShift workShift : jobDetail.getWorkShifts()) {
-                if (workShift.getSalary() == null || workShift.getNumberOfWorkers() == null ||
-                    workShift.getWorkingDays() == null || workShift.getWorkingDays().trim().isEmpty()) {
-                    continue;
-                }
-
-                // Use job detail dates if available, otherwise use contract dates
-                LocalDate startDate = jobDetail.getStartDate() != null ? jobDetail.getStartDate() : contract.getStartingDate();
-                LocalDate endDate = jobDetail.getEndDate() != null ? jobDetail.getEndDate() : contract.getEndingDate();
-
-                if (startDate == null || endDate == null) {
-                    continue;
-                }
-
-                // Calculate working days count
-                int workingDaysCount = calculateWorkingDaysCount(startDate, endDate, workShift.getWorkingDays());
-
-                // Calculate amount for this shift: salary × numberOfWorkers × workingDaysCount
-                double shiftAmount = workShift.getSalary() * workShift.getNumberOfWorkers() * workingDaysCount;
-                totalAmount += shiftAmount;
-            }
+        if (startDate.isAfter(endDate)) {
+            throw new AppException(ErrorCode.InvalidDate_Exception, "Ngày bắt đầu không thể sau ngày kết thúc");
         }
 
-        return totalAmount;
-    }
+        if (!WorkingDatesConstants.isValidFormat(format)) {
+            throw new AppException(ErrorCode.InvalidInput_Exception,
+                    "Định dạng không hợp lệ: " + format + " (epoch-day, iso-range, count)");
+        }
 
-    /**
-     * Calculate the number of working days between start and end dates based on selected working days
-     * @param startDate Start date
-     * @param endDate End date
-     * @param workingDays Comma-separated string of day numbers (1-7, where 1=Monday, 7=Sunday)
-     * @return Number of working days
-     */
-    private int calculateWorkingDaysCount(LocalDate startDate, LocalDate endDate, String workingDays) {
-        if (startDate == null || endDate == null || workingDays == null || workingDays.trim().isEmpty()) {
-            return 0;
+        if (offset < 0) {
+            throw new AppException(ErrorCode.InvalidInput_Exception, "Vị trí bắt đầu không được âm");
         }
 
-        // Parse working days
-        String[] dayStrings = workingDays.split(",");
-        Set<Integer> workingDaySet = new HashSet<>();
-        for (String dayStr : dayStrings) {
-            try {
-                int day = Integer.parseInt(dayStr.trim());
-                if (day >= 1 && day <= 7) {
-                    workingDaySet.add(day);
-                }
-            } catch (NumberFormatException e) {
-                // Skip invalid day numbers
-            }
+        if (limit < 1 || limit > WorkingDatesConstants.MAX_LIMIT) {
+            throw new AppException(ErrorCode.InvalidInput_Exception,
+                    "Số ngày mỗi trang phải từ 1 đến " + WorkingDatesConstants.MAX_LIMIT);
         }
 
-        if (workingDaySet.isEmpty()) {
-            return 0;
+        // Giới hạn theo tháng (nếu có): lấy phần giao của khoảng hợp đồng và tháng
+        LocalDate from = startDate;
+        LocalDate to = endDate;
+        if (month != null) {
+            from = from.isAfter(month.atDay(1)) ? from : month.atDay(1);
+            to = to.isBefore(month.atEndOfMonth()) ? to : month.atEndOfMonth();
         }
 
-        int count = 0;
-        LocalDate currentDate = startDate;
+        // Tổng số ngày tính trực tiếp, không cần liệt kê; count-only dừng ở đây
+        int mask = WorkingDays.mask(workingDays);
+        long totalCount = WorkingDays.count(from, to, mask);
 
-        while (!currentDate.isAfter(endDate)) {
-            // Convert Java DayOfWeek to our format (1=Monday, 7=Sunday)
-            int dayOfWeek = currentDate.getDayOfWeek().getValue(); // 1=Monday, 7=Sunday
+        WorkingDatesPage page = WorkingDatesPage.builder()
+                .startDate(from)
+                .endDate(to)
+                .totalCount(totalCount)
+                .offset(offset)
+                .limit(limit)
+                .build();
 
-            if (workingDaySet.contains(dayOfWeek)) {
-                count++;
-            }
+        if (WorkingDatesConstants.FORMAT_COUNT.equals(format) || offset >= totalCount) {
+            return page;
+        }
 
-            currentDate = currentDate.plusDays(1);
+        // Nhảy thẳng tới ngày làm việc thứ offset rồi chỉ duyệt các ngày của trang
+        int size = (int) Math.min(limit, totalCount - offset);
+        page.setHasNext(offset + size < totalCount);
+        LocalDate current = WorkingDays.nth(from, mask, offset);
+
+        if (WorkingDatesConstants.FORMAT_EPOCH_DAY.equals(format)) {
+            long[] epochDays = new long[size];
+            for (int i = 0; i < size; current = current.plusDays(1)) {
+                if (WorkingDays.isWorkingDay(mask, current.getDayOfWeek())) {
+                    epochDays[i++] = current.toEpochDay();
+                }
+            }
+            page.setEpochDays(epochDays);
+        } else {
+            // Gộp các ngày làm việc liên tiếp thành một khoảng
+            List<WorkingDateRange> ranges = new ArrayList<>();
+            WorkingDateRange range = null;
+            for (int i = 0; i < size; current = current.plusDays(1)) {
+                if (!WorkingDays.isWorkingDay(mask, current.getDayOfWeek())) {
+                    range = null;
+                    continue;
+                }
+                if (range == null) {
+                    range = new WorkingDateRange(current, current);
+                    ranges.add(range);
+                } else {
+                    range.setTo(current);
+                }
+                i++;
+            }
+            page.setRanges(ranges);
         }
 
-        return count;
+        return page;
     }
 
     /**
@@ -623,21 +1076,8 @@ public class CustomerContractServiceImpl implements CustomerContractService {
             return workingDatesList;
         }
 
-        // Parse working days
-        String[] dayStrings = workingDays.split(",");
-        Set<Integer> workingDaySet = new HashSet<>();
-        for (String dayStr : dayStrings) {
-            try {
-                int day = Integer.parseInt(dayStr.trim());
-                if (day >= 1 && day <= 7) {
-                    workingDaySet.add(day);
-                }
-            } catch (NumberFormatException e) {
-                // Skip invalid day numbers
-            }
-        }
-
-        if (workingDaySet.isEmpty()) {
+        int mask = WorkingDays.mask(workingDays);
+        if (mask == WorkingDays.NONE) {
             return workingDatesList;
         }
 
@@ -645,10 +1085,7 @@ public class CustomerContractServiceImpl implements CustomerContractService {
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM/yyyy");
 
         while (!currentDate.isAfter(endDate)) {
-            // Convert Java DayOfWeek to our format (1=Monday, 7=Sunday)
-            int dayOfWeek = currentDate.getDayOfWeek().getValue(); // 1=Monday, 7=Sunday
-
-            if (workingDaySet.contains(dayOfWeek)) {
+            if (WorkingDays.isWorkingDay(mask, currentDate.getDayOfWeek())) {
                 workingDatesList.add(currentDate.format(formatter));
             }
 
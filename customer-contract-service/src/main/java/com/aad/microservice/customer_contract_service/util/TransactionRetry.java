@@ -0,0 +1,74 @@
+package com.aad.microservice.customer_contract_service.util;
+
+import com.aad.microservice.customer_contract_service.exception.AppException;
+import com.aad.microservice.customer_contract_service.exception.ErrorCode;
+import jakarta.persistence.OptimisticLockException;
+import org.hibernate.StaleStateException;
+import org.hibernate.exception.LockAcquisitionException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Chạy một thao tác ghi trong transaction riêng và thử lại khi gặp xung đột đồng thời
+ * (phiên bản @Version đã đổi, deadlock, serialization failure). Mỗi lần thử đọc lại dữ liệu từ đầu nên
+ * các kiểm tra nghiệp vụ được đánh giá trên trạng thái mới nhất; hết số lần thử thì trả Conflict_Exception.
+ */
+@Component
+public class TransactionRetry {
+
+    private final TransactionTemplate transactionTemplate;
+    private final int maxAttempts;
+    private final long backoffMillis;
+
+    public TransactionRetry(PlatformTransactionManager transactionManager,
+                            @Value("${app.transaction-retry.max-attempts:3}") int maxAttempts,
+                            @Value("${app.transaction-retry.backoff-ms:20}") long backoffMillis) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxAttempts = maxAttempts;
+        this.backoffMillis = backoffMillis;
+    }
+
+    public <T> T execute(Supplier<T> action) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> action.get());
+            } catch (RuntimeException e) {
+                if (!isConcurrencyConflict(e)) {
+                    throw e;
+                }
+                if (attempt >= maxAttempts) {
+                    System.err.println("Xung đột cập nhật đồng thời sau " + attempt + " lần thử: " + e.getMessage());
+                    throw new AppException(ErrorCode.Conflict_Exception, "Dữ liệu đang được cập nhật đồng thời, vui lòng thử lại");
+                }
+                System.out.println("Xung đột cập nhật đồng thời, thử lại lần " + (attempt + 1) + ": " + e.getMessage());
+                backOff(attempt);
+            }
+        }
+    }
+
+    public static boolean isConcurrencyConflict(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConcurrencyFailureException || cause instanceof OptimisticLockException ||
+                cause instanceof StaleStateException || cause instanceof LockAcquisitionException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Chờ ngẫu nhiên, tăng dần theo số lần thử, để các request xung đột không thử lại cùng một lúc
+    private void backOff(int attempt) {
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(backoffMillis * attempt + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AppException(ErrorCode.Conflict_Exception, "Dữ liệu đang được cập nhật đồng thời, vui lòng thử lại");
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.aad.microservice.customer_contract_service.util;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Ngày làm việc của ca dưới dạng mặt nạ 7 bit: bit 0 = thứ 2, ..., bit 6 = chủ nhật
+ * (chuỗi workingDays "1,3,5" tương ứng mặt nạ 0b0010101).
+ * Mặt nạ được parse một lần cho mỗi chuỗi workingDays khác nhau rồi giữ trong cache;
+ * số chuỗi khác nhau trong thực tế rất ít nên chỉ giới hạn kích thước để tránh tăng vô hạn.
+ */
+public final class WorkingDays {
+
+    public static final int NONE = 0;
+    public static final int ALL = 0x7F;
+
+    private static final int MAX_CACHED_MASKS = 1024;
+    private static final ConcurrentHashMap<String, Integer> MASKS = new ConcurrentHashMap<>();
+
+    private WorkingDays() {
+    }
+
+    /**
+     * @param workingDays Chuỗi số ngày cách nhau bởi dấu phẩy (1-7, 1 = thứ 2, 7 = chủ nhật);
+     *                    số ngoài khoảng hoặc không hợp lệ được bỏ qua
+     * @return Mặt nạ 7 bit, NONE nếu không có ngày hợp lệ
+     */
+    public static int mask(String workingDays) {
+        if (workingDays == null || workingDays.trim().isEmpty()) {
+            return NONE;
+        }
+
+        Integer cached = MASKS.get(workingDays);
+        if (cached != null) {
+            return cached;
+        }
+
+        int mask = parse(workingDays);
+        if (MASKS.size() < MAX_CACHED_MASKS) {
+            MASKS.putIfAbsent(workingDays, mask);
+        }
+        return mask;
+    }
+
+    private static int parse(String workingDays) {
+        int mask = NONE;
+        for (String dayStr : workingDays.split(",")) {
+            try {
+                int day = Integer.parseInt(dayStr.trim());
+                if (day >= 1 && day <= 7) {
+                    mask |= 1 << (day - 1);
+                }
+            } catch (NumberFormatException e) {
+                // Skip invalid day numbers
+            }
+        }
+        return mask;
+    }
+
+    public static boolean isWorkingDay(int mask, DayOfWeek dayOfWeek) {
+        return (mask & (1 << (dayOfWeek.getValue() - 1))) != 0;
+    }
+
+    /**
+     * Số ngày làm việc trong [startDate, endDate] (tính cả hai đầu) với thời gian không phụ thuộc độ dài khoảng:
+     * số tuần đầy đủ × số ngày làm việc trong tuần, cộng phần dư (dưới 7 ngày) bắt đầu từ thứ của startDate.
+     */
+    public static long count(LocalDate startDate, LocalDate endDate, int mask) {
+        if (startDate == null || endDate == null || mask == NONE || startDate.isAfter(endDate)) {
+            return 0;
+        }
+
+        long totalDays = endDate.toEpochDay() - startDate.toEpochDay() + 1;
+        long fullWeeks = totalDays / 7;
+        int remainder = (int) (totalDays % 7);
+
+        // Xoay mặt nạ để bit 0 là thứ của startDate, phần dư là `remainder` bit thấp nhất
+        int shift = startDate.getDayOfWeek().getValue() - 1;
+        int rotated = ((mask >>> shift) | (mask << (7 - shift))) & ALL;
+        int remainderMask = (1 << remainder) - 1;
+
+        return fullWeeks * Integer.bitCount(mask) + Integer.bitCount(rotated & remainderMask);
+    }
+
+    /**
+     * Ngày làm việc thứ n (tính từ 0) kể từ startDate, bỏ qua nguyên các tuần trước đó;
+     * chỉ phải duyệt tối đa 7 ngày của tuần cuối.
+     */
+    public static LocalDate nth(LocalDate startDate, int mask, long n) {
+        int perWeek = Integer.bitCount(mask);
+        if (perWeek == 0 || n < 0) {
+            throw new IllegalArgumentException("Không có ngày làm việc thứ " + n);
+        }
+
+        LocalDate date = startDate.plusWeeks(n / perWeek);
+        long remaining = n % perWeek;
+        while (true) {
+            if (isWorkingDay(mask, date.getDayOfWeek())) {
+                if (remaining == 0) {
+                    return date;
+                }
+                remaining--;
+            }
+            date = date.plusDays(1);
+        }
+    }
+}
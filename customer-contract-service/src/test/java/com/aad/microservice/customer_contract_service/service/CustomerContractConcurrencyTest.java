@@ -0,0 +1,198 @@
+package com.aad.microservice.customer_contract_service.service;
+
+import com.aad.microservice.customer_contract_service.client.CustomerClient;
+import com.aad.microservice.customer_contract_service.client.JobCategoryClient;
+import com.aad.microservice.customer_contract_service.exception.AppException;
+import com.aad.microservice.customer_contract_service.exception.ErrorCode;
+import com.aad.microservice.customer_contract_service.model.CustomerContract;
+import com.aad.microservice.customer_contract_service.model.JobDetail;
+import com.aad.microservice.customer_contract_service.model.WorkShift;
+import com.aad.microservice.customer_contract_service.repository.CustomerContractRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Hợp đồng trùng bị unique constraint chặn kể cả khi tạo đồng thời, cập nhật dựa trên version cũ bị từ chối,
+ * và request gửi lại cùng Idempotency-Key nhận lại hợp đồng đã tạo.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:contract-concurrency;MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false"
+})
+class CustomerContractConcurrencyTest {
+
+    private static final int THREADS = 8;
+
+    @Autowired
+    private CustomerContractService contractService;
+
+    @Autowired
+    private CustomerContractRepository contractRepository;
+
+    @MockBean
+    private CustomerClient customerClient;
+
+    @MockBean
+    private JobCategoryClient jobCategoryClient;
+
+    @BeforeEach
+    void setUp() {
+        contractRepository.deleteAll();
+        when(customerClient.checkCustomerExists(anyLong())).thenReturn(true);
+        when(jobCategoryClient.checkJobCategoryExists(anyLong())).thenReturn(true);
+    }
+
+    @Test
+    void concurrentDuplicateCreatesStoreOneContract() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<CustomerContract>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < THREADS; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return contractService.createContract(newContract());
+                }));
+            }
+            start.countDown();
+
+            int created = 0;
+            for (Future<CustomerContract> result : results) {
+                try {
+                    result.get();
+                    created++;
+                } catch (Exception e) {
+                    AppException cause = (AppException) e.getCause();
+                    assertEquals(ErrorCode.Duplicated_Exception, cause.getCode());
+                }
+            }
+            assertEquals(1, created);
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, contractRepository.count());
+    }
+
+    @Test
+    void concurrentRetriesWithSameIdempotencyKeyReturnOneContract() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<CustomerContract>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < THREADS; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return contractService.createContract(newContract(), "contract-retry-1");
+                }));
+            }
+            start.countDown();
+
+            Long contractId = results.get(0).get().getId();
+            for (Future<CustomerContract> result : results) {
+                assertEquals(contractId, result.get().getId());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, contractRepository.count());
+        verify(customerClient, times(1)).checkCustomerExists(anyLong());
+    }
+
+    @Test
+    void idempotencyKeyCannotBeReusedForAnotherContract() {
+        contractService.createContract(newContract(), "contract-retry-2");
+
+        CustomerContract other = newContract();
+        other.setAddress("1 Đinh Tiên Hoàng, Hà Nội");
+        AppException reused = assertThrows(AppException.class,
+                () -> contractService.createContract(other, "contract-retry-2"));
+        assertEquals(ErrorCode.InvalidInput_Exception, reused.getCode());
+    }
+
+    @Test
+    void deletedContractCanBeCreatedAgain() {
+        CustomerContract first = contractService.createContract(newContract());
+        assertThrows(AppException.class, () -> contractService.createContract(newContract()));
+
+        contractService.deleteContract(first.getId());
+        CustomerContract second = contractService.createContract(newContract());
+
+        assertNotEquals(first.getId(), second.getId());
+    }
+
+    @Test
+    void updateWithStaleVersionIsRejected() {
+        CustomerContract created = contractService.createContract(newContract());
+        long readVersion = created.getVersion();
+
+        CustomerContract firstEdit = CustomerContract.builder()
+                .id(created.getId()).version(readVersion).description("Sửa lần 1").jobDetails(null).build();
+        assertEquals(readVersion + 1, contractService.updateContract(firstEdit).getVersion());
+
+        CustomerContract staleEdit = CustomerContract.builder()
+                .id(created.getId()).version(readVersion).description("Sửa lần 2").jobDetails(null).build();
+        AppException conflict = assertThrows(AppException.class, () -> contractService.updateContract(staleEdit));
+        assertEquals(ErrorCode.Conflict_Exception, conflict.getCode());
+        assertEquals("Sửa lần 1", contractService.getContractById(created.getId()).getDescription());
+    }
+
+    @Test
+    void updateThatDuplicatesAnotherContractIsRejected() {
+        contractService.createContract(newContract());
+        CustomerContract other = newContract();
+        other.setAddress("1 Hàng Bài, Hà Nội");
+        CustomerContract created = contractService.createContract(other);
+
+        CustomerContract edit = CustomerContract.builder()
+                .id(created.getId()).address("12 Tràng Tiền, Hà Nội").jobDetails(null).build();
+        AppException duplicated = assertThrows(AppException.class, () -> contractService.updateContract(edit));
+        assertEquals(ErrorCode.Duplicated_Exception, duplicated.getCode());
+        assertEquals("1 Hàng Bài, Hà Nội", contractService.getContractById(created.getId()).getAddress());
+
+        // Sửa trường không thuộc khóa trùng vẫn được phép
+        CustomerContract describe = CustomerContract.builder()
+                .id(created.getId()).description("Ghi chú").jobDetails(null).build();
+        assertEquals("Ghi chú", contractService.updateContract(describe).getDescription());
+    }
+
+    private static CustomerContract newContract() {
+        LocalDate start = LocalDate.of(2024, 1, 1);
+        LocalDate end = LocalDate.of(2024, 3, 31);
+        CustomerContract contract = CustomerContract.builder()
+                .customerId(1L)
+                .startingDate(start)
+                .endingDate(end)
+                .address("12 Tràng Tiền, Hà Nội")
+                .build();
+        JobDetail jobDetail = JobDetail.builder()
+                .jobCategoryId(1L).startDate(start).endDate(end).workLocation("12 Tràng Tiền, Hà Nội").build();
+        jobDetail.addWorkShift(WorkShift.builder()
+                .startTime("08:00").endTime("12:00").numberOfWorkers(2).salary(300000.0).workingDays("1,2,3,4,5")
+                .build());
+        contract.addJobDetail(jobDetail);
+        return contract;
+    }
+}
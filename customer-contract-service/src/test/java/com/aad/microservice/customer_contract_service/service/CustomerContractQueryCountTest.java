@@ -0,0 +1,172 @@
+package com.aad.microservice.customer_contract_service.service;
+
+import com.aad.microservice.customer_contract_service.dto.ContractPage;
+import com.aad.microservice.customer_contract_service.dto.ContractSummaryPage;
+import com.aad.microservice.customer_contract_service.exception.AppException;
+import com.aad.microservice.customer_contract_service.model.CustomerContract;
+import com.aad.microservice.customer_contract_service.model.JobDetail;
+import com.aad.microservice.customer_contract_service.model.WorkShift;
+import com.aad.microservice.customer_contract_service.repository.CustomerContractRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Số câu lệnh SQL của các API danh sách hợp đồng không được tăng theo số hợp đồng/công việc/ca làm việc.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:contract-query-count;MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class CustomerContractQueryCountTest {
+
+    private static final long CUSTOMER_ID = 1L;
+    private static final int STATUS = 1;
+    private static final LocalDateTime CREATED_AT = LocalDateTime.of(2024, 1, 1, 8, 0);
+
+    @Autowired
+    private CustomerContractService contractService;
+
+    @Autowired
+    private CustomerContractRepository contractRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        contractRepository.deleteAll();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void listEndpointsUseConstantQueryCount() {
+        createContracts(2);
+        long small = countQueries(() -> contractService.getAllContracts(null, 100).getContent());
+
+        createContracts(20);
+        long large = countQueries(() -> contractService.getAllContracts(null, 100).getContent());
+
+        // ID của trang, hợp đồng kèm công việc, sau đó ca làm việc của tất cả công việc
+        assertEquals(3, small);
+        assertEquals(small, large);
+        assertEquals(3, countQueries(() -> contractService.getContractsByCustomerId(CUSTOMER_ID, null, 100).getContent()));
+        assertEquals(3, countQueries(() -> contractService.getContractsByStatus(STATUS, null, 100).getContent()));
+        assertEquals(3, countQueries(() -> contractService.getContractsByJobCategoryId(1L, 0, 10).getContent()));
+    }
+
+    @Test
+    void keysetPagesCoverAllContractsOnce() {
+        createContracts(22);
+
+        List<Long> seen = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            ContractPage page = contractService.getAllContracts(cursor, 5);
+            page.getContent().forEach(contract -> seen.add(contract.getId()));
+            assertEquals(page.isHasMore(), page.getNextCursor() != null);
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        // Cùng createdAt nên thứ tự trang do id quyết định
+        List<Long> expected = contractRepository.findAll().stream().map(CustomerContract::getId).sorted().toList();
+        assertEquals(expected, seen);
+        assertEquals(5, pages);
+        assertThrows(AppException.class, () -> contractService.getAllContracts("not-a-cursor", 5));
+        assertThrows(AppException.class, () -> contractService.getAllContracts(null, 501));
+    }
+
+    @Test
+    void summariesSkipShiftTree() {
+        createContracts(10);
+
+        assertEquals(1, countQueries(() -> {
+            contractService.getContractSummaries(null, null, null, 100);
+            return List.of();
+        }));
+        assertEquals(10, contractService.getContractSummaries(CUSTOMER_ID, STATUS, null, 100).getContent().size());
+    }
+
+    @Test
+    void summariesAreKeysetPaged() {
+        createContracts(10);
+
+        List<Long> seen = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            ContractSummaryPage page = contractService.getContractSummaries(CUSTOMER_ID, null, cursor, 4);
+            page.getContent().forEach(summary -> seen.add(summary.getId()));
+            assertEquals(page.isHasMore(), page.getNextCursor() != null);
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        List<Long> expected = contractRepository.findAll().stream().map(CustomerContract::getId).sorted().toList();
+        assertEquals(expected, seen);
+        assertEquals(3, pages);
+        assertThrows(AppException.class, () -> contractService.getContractSummaries(null, null, null, 501));
+        assertThrows(AppException.class, () -> contractService.getContractSummaries(null, null, "not-a-cursor", 5));
+    }
+
+    // Gọi API và duyệt toàn bộ cây như khi Jackson serialize, trong cùng phiên làm việc (giống open-in-view)
+    private long countQueries(Supplier<List<CustomerContract>> call) {
+        return transactionTemplate.execute(status -> {
+            statistics.clear();
+            for (CustomerContract contract : call.get()) {
+                for (JobDetail jobDetail : contract.getJobDetails()) {
+                    jobDetail.getWorkShifts().forEach(WorkShift::getWorkingDays);
+                }
+            }
+            return statistics.getPrepareStatementCount();
+        });
+    }
+
+    private void createContracts(int count) {
+        for (int i = 0; i < count; i++) {
+            CustomerContract contract = CustomerContract.builder()
+                    .customerId(CUSTOMER_ID)
+                    .status(STATUS)
+                    .startingDate(LocalDate.of(2024, 1, 1))
+                    .endingDate(LocalDate.of(2024, 6, 30))
+                    .isDeleted(false)
+                    .createdAt(CREATED_AT)
+                    .build();
+            for (long category = 1; category <= 3; category++) {
+                JobDetail jobDetail = JobDetail.builder().jobCategoryId(category).isDeleted(false).build();
+                for (int shift = 0; shift < 2; shift++) {
+                    jobDetail.addWorkShift(WorkShift.builder().workingDays("1,2,3,4,5").salary(100000.0)
+                            .numberOfWorkers(2).isDeleted(false).build());
+                }
+                contract.addJobDetail(jobDetail);
+            }
+            contractRepository.save(contract);
+        }
+    }
+}
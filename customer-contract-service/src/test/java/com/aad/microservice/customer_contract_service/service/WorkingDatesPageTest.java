@@ -0,0 +1,126 @@
+package com.aad.microservice.customer_contract_service.service;
+
+import com.aad.microservice.customer_contract_service.constant.WorkingDatesConstants;
+import com.aad.microservice.customer_contract_service.dto.WorkingDateRange;
+import com.aad.microservice.customer_contract_service.dto.WorkingDatesPage;
+import com.aad.microservice.customer_contract_service.service.impl.CustomerContractServiceImpl;
+import com.aad.microservice.customer_contract_service.util.WorkingDays;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Các trang của getWorkingDatesPage (nhảy tới ngày thứ offset bằng WorkingDays.nth) nối lại phải đúng bằng
+ * danh sách ngày làm việc liệt kê tuần tự từng ngày. getWorkingDatesPage không dùng cơ sở dữ liệu hay service khác.
+ */
+class WorkingDatesPageTest {
+
+    private static final String[] WORKING_DAYS = {"1,2,3,4,5", "1,3,5", "6,7", "7", "1,2,3,4,5,6,7", "2,4"};
+
+    private final CustomerContractService contractService =
+            new CustomerContractServiceImpl(null, null, null, null, null, null, null, null, 5000, 500);
+
+    @Test
+    void pagesConcatenateToFullList() {
+        Random random = new Random(17);
+        for (int round = 0; round < 300; round++) {
+            LocalDate start = LocalDate.of(2024, 1, 1).plusDays(random.nextInt(400));
+            LocalDate end = start.plusDays(random.nextInt(400));
+            String workingDays = WORKING_DAYS[random.nextInt(WORKING_DAYS.length)];
+            YearMonth month = random.nextInt(4) == 0 ? YearMonth.from(start.plusDays(random.nextInt(60))) : null;
+            int limit = 1 + random.nextInt(40);
+
+            LocalDate from = month != null && month.atDay(1).isAfter(start) ? month.atDay(1) : start;
+            LocalDate to = month != null && month.atEndOfMonth().isBefore(end) ? month.atEndOfMonth() : end;
+            List<LocalDate> expected = listWorkingDates(from, to, workingDays);
+
+            for (String format : new String[]{WorkingDatesConstants.FORMAT_EPOCH_DAY, WorkingDatesConstants.FORMAT_ISO_RANGE}) {
+                List<LocalDate> actual = new ArrayList<>();
+                long offset = 0;
+                WorkingDatesPage page;
+                do {
+                    page = contractService.getWorkingDatesPage(start, end, workingDays, month, offset, limit, format);
+                    assertEquals(expected.size(), page.getTotalCount());
+                    List<LocalDate> dates = datesOf(page);
+                    // Chỉ trang cuối được phép thiếu ngày
+                    assertEquals(page.isHasNext() ? limit : expected.size() - offset, dates.size());
+                    actual.addAll(dates);
+                    offset += limit;
+                } while (page.isHasNext());
+
+                assertEquals(expected, actual, () -> start + ".." + end + " [" + workingDays + "] " + month + " limit=" + limit);
+            }
+        }
+    }
+
+    @Test
+    void offsetAtOrPastEndReturnsNoDates() {
+        LocalDate start = LocalDate.of(2024, 4, 1);
+        LocalDate end = LocalDate.of(2024, 4, 30);
+        long total = listWorkingDates(start, end, "1,2,3,4,5").size();
+
+        for (long offset : new long[]{total, total + 1, total + 1000}) {
+            WorkingDatesPage page = contractService.getWorkingDatesPage(
+                    start, end, "1,2,3,4,5", null, offset, 10, WorkingDatesConstants.FORMAT_EPOCH_DAY);
+            assertEquals(total, page.getTotalCount());
+            assertFalse(page.isHasNext());
+            assertNull(page.getEpochDays());
+        }
+
+        // Trang cuối thiếu ngày: 22 ngày làm việc, trang 3 của 10 ngày chỉ còn 2 ngày
+        WorkingDatesPage last = contractService.getWorkingDatesPage(
+                start, end, "1,2,3,4,5", null, 20, 10, WorkingDatesConstants.FORMAT_EPOCH_DAY);
+        assertEquals(22, total);
+        assertEquals(2, last.getEpochDays().length);
+        assertEquals(LocalDate.of(2024, 4, 30).toEpochDay(), last.getEpochDays()[1]);
+        assertFalse(last.isHasNext());
+    }
+
+    @Test
+    void nthMatchesListedDates() {
+        LocalDate start = LocalDate.of(2024, 2, 27);
+        for (String workingDays : WORKING_DAYS) {
+            List<LocalDate> dates = listWorkingDates(start, start.plusDays(200), workingDays);
+            int mask = WorkingDays.mask(workingDays);
+            for (int n = 0; n < dates.size(); n++) {
+                assertEquals(dates.get(n), WorkingDays.nth(start, mask, n), workingDays + " n=" + n);
+            }
+        }
+    }
+
+    private static List<LocalDate> datesOf(WorkingDatesPage page) {
+        List<LocalDate> dates = new ArrayList<>();
+        if (page.getEpochDays() != null) {
+            for (long epochDay : page.getEpochDays()) {
+                dates.add(LocalDate.ofEpochDay(epochDay));
+            }
+        }
+        if (page.getRanges() != null) {
+            for (WorkingDateRange range : page.getRanges()) {
+                for (LocalDate date = range.getFrom(); !date.isAfter(range.getTo()); date = date.plusDays(1)) {
+                    dates.add(date);
+                }
+            }
+        }
+        return dates;
+    }
+
+    private static List<LocalDate> listWorkingDates(LocalDate from, LocalDate to, String workingDays) {
+        int mask = WorkingDays.mask(workingDays);
+        List<LocalDate> dates = new ArrayList<>();
+        for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+            if (WorkingDays.isWorkingDay(mask, date.getDayOfWeek())) {
+                dates.add(date);
+            }
+        }
+        return dates;
+    }
+}
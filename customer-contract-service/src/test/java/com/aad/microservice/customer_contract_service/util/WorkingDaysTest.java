@@ -0,0 +1,114 @@
+package com.aad.microservice.customer_contract_service.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * WorkingDays.count (xoay mặt nạ và đếm bit) phải cho cùng kết quả với cách đếm cũ: duyệt từng ngày
+ * và kiểm tra thứ của ngày trong tập số ngày parse từ chuỗi workingDays.
+ */
+class WorkingDaysTest {
+
+    private static final String[] SAMPLE_WORKING_DAYS = {
+            "1,2,3,4,5", "1,3,5", "6,7", "7", "1", "1,2,3,4,5,6,7", "2, 4 ,6", "5,1,5,1", "",
+            "0,8,a", "1,,3", " 7 ", "-1,3", "1;2", "abc"
+    };
+
+    @Test
+    void countMatchesDayByDayLoopOnRandomRanges() {
+        Random random = new Random(11);
+        LocalDate base = LocalDate.of(2023, 1, 1);
+        for (int i = 0; i < 20_000; i++) {
+            LocalDate start = base.plusDays(random.nextInt(800));
+            // Phần lớn là khoảng ngắn (tuần lẻ, dưới một tuần), còn lại dài tới 3 năm; một phần có start sau end
+            int length = random.nextInt(4) == 0 ? random.nextInt(1100) : random.nextInt(20);
+            LocalDate end = start.plusDays(length - (random.nextInt(10) == 0 ? 25 : 0));
+            String workingDays = random.nextBoolean()
+                    ? SAMPLE_WORKING_DAYS[random.nextInt(SAMPLE_WORKING_DAYS.length)]
+                    : randomWorkingDays(random);
+
+            assertEquals(naiveCount(start, end, workingDays), WorkingDays.count(start, end, WorkingDays.mask(workingDays)),
+                    () -> start + ".." + end + " [" + workingDays + "]");
+        }
+    }
+
+    @Test
+    void partialWeeksFromEveryWeekday() {
+        LocalDate monday = LocalDate.of(2024, 1, 1);
+        for (int startOffset = 0; startOffset < 7; startOffset++) {
+            for (int days = 1; days <= 15; days++) {
+                LocalDate start = monday.plusDays(startOffset);
+                LocalDate end = start.plusDays(days - 1);
+                for (String workingDays : SAMPLE_WORKING_DAYS) {
+                    assertEquals(naiveCount(start, end, workingDays), WorkingDays.count(start, end, WorkingDays.mask(workingDays)),
+                            start + ".." + end + " [" + workingDays + "]");
+                }
+            }
+        }
+    }
+
+    @Test
+    void startAfterEndOrEmptyMaskCountsNothing() {
+        LocalDate start = LocalDate.of(2024, 3, 10);
+        assertEquals(0, WorkingDays.count(start, start.minusDays(1), WorkingDays.ALL));
+        assertEquals(0, WorkingDays.count(start, start.plusYears(1), WorkingDays.NONE));
+        assertEquals(0, WorkingDays.count(null, start, WorkingDays.ALL));
+        assertEquals(0, WorkingDays.count(start, null, WorkingDays.ALL));
+        assertEquals(1, WorkingDays.count(start, start, WorkingDays.ALL));
+    }
+
+    @Test
+    void malformedDaysAreSkipped() {
+        assertEquals(WorkingDays.NONE, WorkingDays.mask(null));
+        assertEquals(WorkingDays.NONE, WorkingDays.mask(""));
+        assertEquals(WorkingDays.NONE, WorkingDays.mask("   "));
+        assertEquals(WorkingDays.NONE, WorkingDays.mask("0,8,a"));
+        assertEquals(0b0000101, WorkingDays.mask("1,,3"));
+        assertEquals(0b0000101, WorkingDays.mask("3, x ,1"));
+        assertEquals(0b1000000, WorkingDays.mask(" 7 "));
+        assertEquals(WorkingDays.ALL, WorkingDays.mask("7,6,5,4,3,2,1"));
+    }
+
+    // Cách đếm trước khi có mặt nạ: tập số ngày rồi duyệt từng ngày
+    private static long naiveCount(LocalDate start, LocalDate end, String workingDays) {
+        Set<Integer> days = new HashSet<>();
+        if (workingDays != null) {
+            for (String dayStr : workingDays.split(",")) {
+                try {
+                    int day = Integer.parseInt(dayStr.trim());
+                    if (day >= 1 && day <= 7) {
+                        days.add(day);
+                    }
+                } catch (NumberFormatException e) {
+                    // Bỏ qua giống WorkingDays.mask
+                }
+            }
+        }
+        long count = 0;
+        for (LocalDate date = start; !date.isAfter(end); date = date.plusDays(1)) {
+            if (days.contains(date.getDayOfWeek().getValue())) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static String randomWorkingDays(Random random) {
+        StringBuilder builder = new StringBuilder();
+        int parts = random.nextInt(9);
+        for (int i = 0; i < parts; i++) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            // Có cả số ngoài 1..7 và ký tự không phải số
+            builder.append(random.nextInt(12) == 0 ? "x" : String.valueOf(random.nextInt(10) - 1));
+        }
+        return builder.toString();
+    }
+}
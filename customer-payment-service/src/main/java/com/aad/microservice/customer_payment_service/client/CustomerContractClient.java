@@ -1,15 +1,22 @@
 package com.aad.microservice.customer_payment_service.client;
 
 import com.aad.microservice.customer_payment_service.model.CustomerContract;
+import com.aad.microservice.customer_payment_service.model.CustomerContractPage;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Function;
 
 @FeignClient(name = "customer-contract-service", url = "${customercontract.service.url}")
 public interface CustomerContractClient {
 
+    // Kích thước trang tối đa mà customer-contract-service chấp nhận
+    int PAGE_SIZE = 500;
+
     @GetMapping("/{id}")
     CustomerContract getContractById(@PathVariable Long id);
 
@@ -17,11 +24,40 @@ public interface CustomerContractClient {
     Boolean checkContractExists(@PathVariable Long id);
 
     @GetMapping
-    List<CustomerContract> getAllContracts();
+    CustomerContractPage getAllContracts(@RequestParam(required = false) String cursor,
+                                         @RequestParam int limit);
 
     @GetMapping("/customer/{customerId}")
-    List<CustomerContract> getContractsByCustomerId(@PathVariable Long customerId);
+    CustomerContractPage getContractsByCustomerId(@PathVariable Long customerId,
+                                                  @RequestParam(required = false) String cursor,
+                                                  @RequestParam int limit);
 
     @GetMapping("/status/{status}")
-    List<CustomerContract> getContractsByStatus(@PathVariable Integer status);
+    CustomerContractPage getContractsByStatus(@PathVariable Integer status,
+                                              @RequestParam(required = false) String cursor,
+                                              @RequestParam int limit);
+
+    default List<CustomerContract> getAllContracts() {
+        return readAllPages(cursor -> getAllContracts(cursor, PAGE_SIZE));
+    }
+
+    default List<CustomerContract> getContractsByCustomerId(Long customerId) {
+        return readAllPages(cursor -> getContractsByCustomerId(customerId, cursor, PAGE_SIZE));
+    }
+
+    default List<CustomerContract> getContractsByStatus(Integer status) {
+        return readAllPages(cursor -> getContractsByStatus(status, cursor, PAGE_SIZE));
+    }
+
+    // Duyệt lần lượt các trang theo nextCursor cho tới trang cuối
+    private static List<CustomerContract> readAllPages(Function<String, CustomerContractPage> fetchPage) {
+        List<CustomerContract> contracts = new ArrayList<>();
+        String cursor = null;
+        do {
+            CustomerContractPage page = fetchPage.apply(cursor);
+            contracts.addAll(page.getContent());
+            cursor = page.isHasMore() ? page.getNextCursor() : null;
+        } while (cursor != null);
+        return contracts;
+    }
 }
@@ -0,0 +1,18 @@
+package com.aad.microservice.customer_payment_service.client;
+
+import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+@FeignClient(name = "customer-statistics-service", url = "${customerstatistics.service.url}")
+public interface CustomerStatisticsClient {
+
+    // Xóa các kết quả thống kê doanh thu trong cache có chứa ngày thanh toán
+    @PostMapping("/cache/invalidate")
+    Map<String, Object> invalidateRevenueCache(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date);
+}
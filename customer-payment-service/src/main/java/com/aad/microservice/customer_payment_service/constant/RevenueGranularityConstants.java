@@ -0,0 +1,19 @@
+package com.aad.microservice.customer_payment_service.constant;
+
+import java.util.Set;
+
+public class RevenueGranularityConstants {
+    public static final String DAY = "day";
+    public static final String WEEK = "week";     // Tuần bắt đầu từ thứ 2 (date_trunc của PostgreSQL)
+    public static final String MONTH = "month";
+    public static final String YEAR = "year";
+
+    public static final String SOURCE_PAYMENTS = "payments";           // Tổng tiền hóa đơn (customer_payments)
+    public static final String SOURCE_ALLOCATIONS = "allocations";     // Tổng tiền phân bổ cho hợp đồng (contract_payments)
+
+    private static final Set<String> GRANULARITIES = Set.of(DAY, WEEK, MONTH, YEAR);
+
+    public static boolean isValid(String granularity) {
+        return granularity != null && GRANULARITIES.contains(granularity);
+    }
+}
@@ -1,23 +1,41 @@
 package com.aad.microservice.customer_payment_service.controller;
 
 import com.aad.microservice.customer_payment_service.dto.CreatePaymentRequest;
+import com.aad.microservice.customer_payment_service.dto.PageResponse;
+import com.aad.microservice.customer_payment_service.dto.PaymentChangePage;
+import com.aad.microservice.customer_payment_service.dto.PaymentSummaryDto;
+import com.aad.microservice.customer_payment_service.dto.RevenueBucketDto;
 import com.aad.microservice.customer_payment_service.model.Customer;
 import com.aad.microservice.customer_payment_service.model.CustomerContract;
 import com.aad.microservice.customer_payment_service.model.CustomerPayment;
 import com.aad.microservice.customer_payment_service.model.ContractPayment;
+import com.aad.microservice.customer_payment_service.exception.AppException;
+import com.aad.microservice.customer_payment_service.exception.ErrorCode;
 import com.aad.microservice.customer_payment_service.service.CustomerPaymentService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
 import java.util.List;
 
 @RestController
 @RequestMapping("/api/customer-payment")
 public class CustomerPaymentController {
+    private static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
     private final CustomerPaymentService paymentService;
+    private final ObjectMapper objectMapper;
 
-    public CustomerPaymentController(CustomerPaymentService paymentService) {
+    public CustomerPaymentController(CustomerPaymentService paymentService, ObjectMapper objectMapper) {
         this.paymentService = paymentService;
+        this.objectMapper = objectMapper;
     }
 
     @GetMapping("/health")
@@ -31,14 +49,19 @@ public class CustomerPaymentController {
         return ResponseEntity.ok(payment);
     }
 
+    // Gửi lại cùng Idempotency-Key khi không nhận được phản hồi: hóa đơn chỉ được tạo một lần
     @PostMapping
-    public ResponseEntity<CustomerPayment> createPayment(@RequestBody CustomerPayment payment) {
-        return ResponseEntity.ok(paymentService.createPayment(payment));
+    public ResponseEntity<CustomerPayment> createPayment(
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+            @RequestBody CustomerPayment payment) {
+        return ResponseEntity.ok(paymentService.createPayment(payment, idempotencyKey));
     }
 
     // API mới - hỗ trợ thanh toán nhiều hợp đồng
     @PostMapping("/multiple-contracts")
-    public ResponseEntity<CustomerPayment> createPaymentWithMultipleContracts(@RequestBody CreatePaymentRequest request) {
+    public ResponseEntity<CustomerPayment> createPaymentWithMultipleContracts(
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+            @RequestBody CreatePaymentRequest request) {
         System.out.println("🚀 Controller: Received multiple contracts payment request:");
         System.out.println("Customer ID: " + request.getCustomerId());
         System.out.println("Total Amount: " + request.getTotalAmount());
@@ -46,7 +69,7 @@ public class CustomerPaymentController {
         System.out.println("Contract Payments Count: " + (request.getContractPayments() != null ? request.getContractPayments().size() : 0));
 
         try {
-            CustomerPayment result = paymentService.createPaymentWithMultipleContracts(request);
+            CustomerPayment result = paymentService.createPaymentWithMultipleContracts(request, idempotencyKey);
             System.out.println("✅ Controller: Payment created successfully with ID: " + result.getId());
             return ResponseEntity.ok(result);
         } catch (Exception e) {
@@ -60,6 +83,65 @@ public class CustomerPaymentController {
         return ResponseEntity.ok(paymentService.getAllPayments());
     }
 
+    // API stream hóa đơn dạng NDJSON (mỗi dòng một hóa đơn), khoảng thời gian có thể bỏ trống để lấy tất cả
+    @GetMapping("/stream")
+    public ResponseEntity<StreamingResponseBody> streamPayments(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+        // Kiểm tra trước khi bắt đầu ghi response, sau đó không thể trả lỗi về được nữa
+        if ((startDate == null) != (endDate == null)) {
+            throw new AppException(ErrorCode.InvalidInput_Exception, "Phải truyền cả ngày bắt đầu và ngày kết thúc");
+        }
+        if (startDate != null && startDate.isAfter(endDate)) {
+            throw new AppException(ErrorCode.InvalidInput_Exception, "Ngày bắt đầu không thể sau ngày kết thúc");
+        }
+
+        StreamingResponseBody body = outputStream ->
+                paymentService.streamPayments(startDate, endDate, payment -> writeLine(outputStream, payment));
+        return ResponseEntity.ok().contentType(APPLICATION_NDJSON).body(body);
+    }
+
+    private void writeLine(OutputStream outputStream, PaymentSummaryDto payment) {
+        try {
+            outputStream.write(objectMapper.writeValueAsBytes(payment));
+            outputStream.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Change feed: các hóa đơn thêm mới/xóa mềm sau cursor, theo thứ tự commit (changeTxid, id)
+    @GetMapping("/changes")
+    public ResponseEntity<PaymentChangePage> getPaymentChanges(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "500") int limit) {
+        return ResponseEntity.ok(paymentService.getPaymentChanges(cursor, limit));
+    }
+
+    // API lấy hóa đơn theo khoảng thời gian thanh toán, có phân trang
+    @GetMapping("/date-range")
+    public ResponseEntity<PageResponse<CustomerPayment>> getPaymentsByDateRange(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) Long customerId,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "500") int size) {
+        return ResponseEntity.ok(paymentService.getPaymentsByDateRange(startDate, endDate, customerId, page, size));
+    }
+
+    // API tổng hợp doanh thu theo ngày/tuần/tháng/năm (GROUP BY phía cơ sở dữ liệu)
+    @GetMapping("/revenue-aggregate")
+    public ResponseEntity<List<RevenueBucketDto>> getRevenueAggregate(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(defaultValue = "day") String granularity,
+            @RequestParam(required = false) Long customerId,
+            @RequestParam(defaultValue = "false") boolean groupByCustomer,
+            @RequestParam(defaultValue = "payments") String source) {
+        return ResponseEntity.ok(paymentService.getRevenueAggregate(
+                startDate, endDate, granularity, customerId, groupByCustomer, source));
+    }
+
     @GetMapping("/customer/search")
     public ResponseEntity<List<Customer>> searchCustomers(
             @RequestParam(required = false) String fullName,
@@ -0,0 +1,13 @@
+package com.aad.microservice.customer_payment_service.dto;
+
+import lombok.*;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PaymentAllocationDto {
+    private Long id;                // ID của contract_payments
+    private Long contractId;
+    private Double allocatedAmount;
+}
@@ -0,0 +1,31 @@
+package com.aad.microservice.customer_payment_service.dto;
+
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Trạng thái mới nhất của một hóa đơn trong change feed (kể cả hóa đơn đã xóa mềm),
+ * kèm các khoản phân bổ cho hợp đồng.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PaymentChangeDto {
+    private Long id;
+    private LocalDateTime paymentDate;
+    private Integer paymentMethod;
+    private Double paymentAmount;
+    private String note;
+    private Long customerContractId;
+    private Long customerId;
+    private Boolean isDeleted;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+
+    @Builder.Default
+    private List<PaymentAllocationDto> allocations = new ArrayList<>();
+}
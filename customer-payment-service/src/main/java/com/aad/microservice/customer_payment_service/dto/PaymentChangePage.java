@@ -0,0 +1,15 @@
+package com.aad.microservice.customer_payment_service.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PaymentChangePage {
+    private List<PaymentChangeDto> changes;
+    private String nextCursor;      // Truyền lại ở lần gọi sau; giữ nguyên cursor cũ nếu không có thay đổi mới
+    private boolean hasMore;
+}
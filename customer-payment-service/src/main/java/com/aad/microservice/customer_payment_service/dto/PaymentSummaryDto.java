@@ -0,0 +1,25 @@
+package com.aad.microservice.customer_payment_service.dto;
+
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Bản ghi hóa đơn dạng phẳng (không kèm contractPayments) dùng cho API stream NDJSON
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PaymentSummaryDto {
+    private Long id;
+    private LocalDateTime paymentDate;
+    private Integer paymentMethod;
+    private Double paymentAmount;
+    private String note;
+    private Long customerContractId;
+    private Long customerId;
+    private Boolean isDeleted;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,16 @@
+package com.aad.microservice.customer_payment_service.dto;
+
+import lombok.*;
+
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RevenueBucketDto {
+    private LocalDate bucketDate;   // Ngày bắt đầu của bucket (ngày, thứ 2 của tuần, ngày 1 của tháng/năm)
+    private Long customerId;        // Chỉ có giá trị khi nhóm theo khách hàng
+    private Double totalRevenue;
+    private Long invoiceCount;
+}
@@ -13,7 +13,9 @@ public enum ErrorCode {
     InvalidAmount_Exception(1005),
     ContractNotActive_Exception(1006),
     CustomerNotFound_Exception(1007),
-    ContractNotFound_Exception(1008);
+    ContractNotFound_Exception(1008),
+    InvalidInput_Exception(1009),
+    Conflict_Exception(1010);
 
     ErrorCode(int code) {
         this.code = code;
@@ -24,6 +24,8 @@ public class GlobalExceptionHandler {
             ex.getErrorCode() == ErrorCode.CustomerNotFound_Exception ||
             ex.getErrorCode() == ErrorCode.ContractNotFound_Exception) {
             status = HttpStatus.NOT_FOUND;
+        } else if (ex.getErrorCode() == ErrorCode.Conflict_Exception) {
+            status = HttpStatus.CONFLICT;
         }
 
         return new ResponseEntity<>(body, status);
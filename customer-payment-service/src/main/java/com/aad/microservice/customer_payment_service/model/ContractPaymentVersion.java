@@ -0,0 +1,28 @@
+package com.aad.microservice.customer_payment_service.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
+
+/**
+ * Phiên bản thanh toán của một hợp đồng. Mỗi thanh toán phân bổ tiền cho hợp đồng sẽ tăng version của dòng này
+ * khi commit (OPTIMISTIC_FORCE_INCREMENT), nên hai thanh toán đồng thời cho cùng hợp đồng không thể cùng vượt qua
+ * kiểm tra số tiền còn lại: transaction commit sau thất bại và được thử lại với tổng đã thanh toán mới.
+ */
+@Entity
+@Table(name = "contract_payment_versions")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ContractPaymentVersion {
+    @Id
+    @Column(name = "contract_id")
+    private Long contractId;
+
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
+}
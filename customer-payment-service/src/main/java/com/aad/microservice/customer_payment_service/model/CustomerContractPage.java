@@ -0,0 +1,17 @@
+package com.aad.microservice.customer_payment_service.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CustomerContractPage {
+    private List<CustomerContract> content = new ArrayList<>();
+    private String nextCursor;
+    private boolean hasMore;
+}
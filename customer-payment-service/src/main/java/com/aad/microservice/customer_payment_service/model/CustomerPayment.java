@@ -1,22 +1,37 @@
 package com.aad.microservice.customer_payment_service.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
 
-import java.time.LocalDate;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HexFormat;
 import java.util.List;
 
 @Entity
-@Table(name = "customer_payments")
+@Table(name = "customer_payments", indexes = {
+        @Index(name = "idx_customer_payments_payment_date", columnList = "payment_date"),
+        @Index(name = "idx_customer_payments_customer_payment_date", columnList = "customer_id, payment_date"),
+        @Index(name = "idx_customer_payments_change_txid_id", columnList = "change_txid, id")
+}, uniqueConstraints = {
+        @UniqueConstraint(name = CustomerPayment.DUPLICATE_KEY_CONSTRAINT, columnNames = "duplicate_key")
+})
 @Getter
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
 public class CustomerPayment {
+    public static final String DUPLICATE_KEY_CONSTRAINT = "uk_customer_payments_duplicate_key";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -35,6 +50,25 @@ public class CustomerPayment {
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
 
+    // Khóa lạc quan: hai lần cập nhật đồng thời cùng một hóa đơn thì lần commit sau thất bại thay vì ghi đè lần trước
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
+
+    // SHA-256 của (hợp đồng, số tiền, ngày thanh toán, phương thức, ghi chú) khi hóa đơn còn hiệu lực; null với hóa đơn
+    // đã xóa hoặc thanh toán nhiều hợp đồng. Cột unique nên hóa đơn trùng bị cơ sở dữ liệu từ chối kể cả khi tạo cùng lúc
+    @JsonIgnore
+    @Column(length = 64)
+    private String duplicateKey;
+
+    // txid_current() của transaction ghi hóa đơn: giá trị mặc định khi INSERT, trigger khi UPDATE
+    // (add_payment_change_feed_txid.sql). Change feed sắp xếp theo cột này thay vì updatedAt
+    @JsonIgnore
+    @ColumnDefault("txid_current()")
+    @Column(insertable = false, updatable = false)
+    private Long changeTxid;
+
     // Mối quan hệ many-to-many với contracts thông qua ContractPayment
     @OneToMany(mappedBy = "payment", cascade = CascadeType.ALL, orphanRemoval = true)
     @JsonManagedReference
@@ -48,10 +82,28 @@ public class CustomerPayment {
         if (isDeleted == null) {
             isDeleted = false;
         }
+        duplicateKey = computeDuplicateKey();
     }
 
     @PreUpdate
     protected void onUpdate() {
         updatedAt = LocalDateTime.now();
+        duplicateKey = computeDuplicateKey();
+    }
+
+    public String computeDuplicateKey() {
+        if (Boolean.TRUE.equals(isDeleted) || customerContractId == null || paymentAmount == null || paymentDate == null) {
+            return null;
+        }
+
+        String terms = customerContractId + "|" +
+                BigDecimal.valueOf(paymentAmount).setScale(2, RoundingMode.HALF_UP).toPlainString() + "|" +
+                paymentDate.toLocalDate() + "|" + paymentMethod + "|" + note;
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(terms.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
     }
 }
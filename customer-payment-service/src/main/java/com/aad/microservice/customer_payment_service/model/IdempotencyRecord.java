@@ -0,0 +1,35 @@
+package com.aad.microservice.customer_payment_service.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Idempotency-Key của một request tạo mới cùng response đầu tiên. Dòng được ghi trong cùng transaction với dữ liệu
+ * tạo ra, nên request lặp lại chỉ thấy khóa khi bản ghi gốc đã commit và được trả lại đúng response đã lưu.
+ */
+@Entity
+@Table(name = "idempotency_keys")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class IdempotencyRecord {
+    public static final int MAX_KEY_LENGTH = 255;
+
+    @Id
+    @Column(name = "idempotency_key", length = MAX_KEY_LENGTH)
+    private String key;
+
+    // SHA-256 của thao tác và nội dung request, để phát hiện khóa bị dùng lại cho request khác
+    @Column(name = "request_hash", nullable = false, length = 64)
+    private String requestHash;
+
+    @Column(name = "response", columnDefinition = "TEXT")
+    private String response;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -7,6 +7,8 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -19,6 +21,10 @@ public interface ContractPaymentRepository extends JpaRepository<ContractPayment
     @Query("SELECT cp FROM ContractPayment cp WHERE cp.payment.id = :paymentId")
     List<ContractPayment> findByPaymentId(@Param("paymentId") Long paymentId);
 
+    // Tìm các khoản phân bổ của nhiều hóa đơn trong một truy vấn
+    @Query("SELECT cp FROM ContractPayment cp WHERE cp.payment.id IN :paymentIds")
+    List<ContractPayment> findByPaymentIdIn(@Param("paymentIds") Collection<Long> paymentIds);
+
     // Tính tổng số tiền đã thanh toán cho một hợp đồng
     @Query("SELECT SUM(cp.allocatedAmount) FROM ContractPayment cp WHERE cp.contractId = :contractId")
     Double getTotalPaidAmountByContractId(@Param("contractId") Long contractId);
@@ -27,6 +33,30 @@ public interface ContractPaymentRepository extends JpaRepository<ContractPayment
     @Query("SELECT cp FROM ContractPayment cp JOIN cp.payment p WHERE p.customerId = :customerId")
     List<ContractPayment> findByCustomerId(@Param("customerId") Long customerId);
 
+    // Tổng tiền phân bổ cho hợp đồng theo bucket thời gian của hóa đơn - trả về [bucket, tổng tiền, số lần phân bổ]
+    @Query(value = "SELECT CAST(date_trunc(:granularity, p.payment_date) AS date) AS bucket, " +
+                   "SUM(cp.allocated_amount) AS total, COUNT(*) AS cnt " +
+                   "FROM contract_payments cp JOIN customer_payments p ON p.id = cp.payment_id " +
+                   "WHERE p.is_deleted = false AND p.payment_date BETWEEN :startDate AND :endDate " +
+                   "AND (CAST(:customerId AS BIGINT) IS NULL OR p.customer_id = CAST(:customerId AS BIGINT)) " +
+                   "GROUP BY 1 ORDER BY 1", nativeQuery = true)
+    List<Object[]> sumByBucket(@Param("granularity") String granularity,
+                               @Param("startDate") LocalDateTime startDate,
+                               @Param("endDate") LocalDateTime endDate,
+                               @Param("customerId") Long customerId);
+
+    // Tổng tiền phân bổ theo bucket thời gian và khách hàng - trả về [bucket, customerId, tổng tiền, số lần phân bổ]
+    @Query(value = "SELECT CAST(date_trunc(:granularity, p.payment_date) AS date) AS bucket, p.customer_id, " +
+                   "SUM(cp.allocated_amount) AS total, COUNT(*) AS cnt " +
+                   "FROM contract_payments cp JOIN customer_payments p ON p.id = cp.payment_id " +
+                   "WHERE p.is_deleted = false AND p.payment_date BETWEEN :startDate AND :endDate " +
+                   "AND (CAST(:customerId AS BIGINT) IS NULL OR p.customer_id = CAST(:customerId AS BIGINT)) " +
+                   "GROUP BY 1, 2 ORDER BY 1, 2", nativeQuery = true)
+    List<Object[]> sumByBucketAndCustomer(@Param("granularity") String granularity,
+                                          @Param("startDate") LocalDateTime startDate,
+                                          @Param("endDate") LocalDateTime endDate,
+                                          @Param("customerId") Long customerId);
+
     // Kiểm tra xem một hợp đồng đã có thanh toán nào chưa
     boolean existsByContractId(Long contractId);
 
@@ -0,0 +1,18 @@
+package com.aad.microservice.customer_payment_service.repository;
+
+import com.aad.microservice.customer_payment_service.model.ContractPaymentVersion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ContractPaymentVersionRepository extends JpaRepository<ContractPaymentVersion, Long> {
+
+    // Tạo dòng phiên bản cho hợp đồng nếu chưa có; request đồng thời chờ nhau trên khóa chính thay vì báo lỗi trùng
+    @Modifying
+    @Query(value = "INSERT INTO contract_payment_versions (contract_id, version) VALUES (:contractId, 0) " +
+                   "ON CONFLICT (contract_id) DO NOTHING", nativeQuery = true)
+    void insertIfAbsent(@Param("contractId") Long contractId);
+}
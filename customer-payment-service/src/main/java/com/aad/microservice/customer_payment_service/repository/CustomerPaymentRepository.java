@@ -1,14 +1,19 @@
 package com.aad.microservice.customer_payment_service.repository;
 
+import com.aad.microservice.customer_payment_service.dto.PaymentSummaryDto;
 import com.aad.microservice.customer_payment_service.model.CustomerPayment;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
-import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface CustomerPaymentRepository extends JpaRepository<CustomerPayment, Long> {
     List<CustomerPayment> findByIsDeletedFalse();
@@ -17,14 +22,67 @@ public interface CustomerPaymentRepository extends JpaRepository<CustomerPayment
     List<CustomerPayment> findByCustomerIdAndIsDeletedFalse(Long customerId);
     List<CustomerPayment> findByCustomerContractIdAndIsDeletedFalse(Long customerContractId);
 
+    // Lọc theo khoảng thời gian thanh toán (dùng index idx_customer_payments_payment_date)
+    Slice<CustomerPayment> findByPaymentDateBetweenAndIsDeletedFalse(
+        LocalDateTime startDate, LocalDateTime endDate, Pageable pageable);
+
+    // Lọc theo khách hàng và khoảng thời gian thanh toán (dùng index idx_customer_payments_customer_payment_date)
+    Slice<CustomerPayment> findByCustomerIdAndPaymentDateBetweenAndIsDeletedFalse(
+        Long customerId, LocalDateTime startDate, LocalDateTime endDate, Pageable pageable);
+
+    // Stream hóa đơn dạng phẳng theo từng lô fetch size, không giữ entity trong persistence context
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "500"))
+    @Query("SELECT new com.aad.microservice.customer_payment_service.dto.PaymentSummaryDto(" +
+           "p.id, p.paymentDate, p.paymentMethod, p.paymentAmount, p.note, p.customerContractId, " +
+           "p.customerId, p.isDeleted, p.createdAt, p.updatedAt) " +
+           "FROM CustomerPayment p WHERE p.isDeleted = false ORDER BY p.id")
+    Stream<PaymentSummaryDto> streamAllSummaries();
+
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "500"))
+    @Query("SELECT new com.aad.microservice.customer_payment_service.dto.PaymentSummaryDto(" +
+           "p.id, p.paymentDate, p.paymentMethod, p.paymentAmount, p.note, p.customerContractId, " +
+           "p.customerId, p.isDeleted, p.createdAt, p.updatedAt) " +
+           "FROM CustomerPayment p WHERE p.isDeleted = false " +
+           "AND p.paymentDate BETWEEN :startDate AND :endDate ORDER BY p.paymentDate, p.id")
+    Stream<PaymentSummaryDto> streamSummariesByPaymentDateBetween(@Param("startDate") LocalDateTime startDate,
+                                                                  @Param("endDate") LocalDateTime endDate);
+
+    // Change feed: hóa đơn thay đổi sau vị trí (changeTxid, id) của cursor, kể cả hóa đơn đã xóa mềm.
+    // Chỉ lấy hóa đơn của transaction nhỏ hơn xmin của snapshot hiện tại: các transaction này đã kết thúc,
+    // còn transaction đang chạy (kể cả transaction có ID nhỏ hơn) đều có txid >= xmin nên sẽ xuất hiện sau cursor
+    @Query(value = "SELECT p.* FROM customer_payments p " +
+                   "WHERE p.change_txid < txid_snapshot_xmin(txid_current_snapshot()) " +
+                   "AND (p.change_txid > :txid OR (p.change_txid = :txid AND p.id > :id)) " +
+                   "ORDER BY p.change_txid, p.id LIMIT :limit", nativeQuery = true)
+    List<CustomerPayment> findChangesAfter(@Param("txid") long txid,
+                                           @Param("id") long id,
+                                           @Param("limit") int limit);
+
     @Query("SELECT SUM(p.paymentAmount) FROM CustomerPayment p WHERE p.customerContractId = :contractId AND p.isDeleted = false")
     Double getTotalPaidAmountByContractId(@Param("contractId") Long contractId);
 
-    @Query("SELECT p FROM CustomerPayment p WHERE p.customerContractId = :contractId AND p.paymentAmount = :amount AND DATE(p.paymentDate) = :paymentDate AND p.paymentMethod = :method AND p.isDeleted = false")
-    List<CustomerPayment> findByCustomerContractIdAndPaymentAmountAndPaymentDateAndPaymentMethodAndIsDeletedFalse(
-        @Param("contractId") Long customerContractId,
-        @Param("amount") Double paymentAmount,
-        @Param("paymentDate") LocalDate paymentDate,
-        @Param("method") Integer paymentMethod);
+    // Tổng doanh thu theo bucket thời gian (date_trunc) - trả về [bucket, tổng tiền, số hóa đơn]
+    @Query(value = "SELECT CAST(date_trunc(:granularity, p.payment_date) AS date) AS bucket, " +
+                   "SUM(p.payment_amount) AS total, COUNT(*) AS cnt " +
+                   "FROM customer_payments p " +
+                   "WHERE p.is_deleted = false AND p.payment_date BETWEEN :startDate AND :endDate " +
+                   "AND (CAST(:customerId AS BIGINT) IS NULL OR p.customer_id = CAST(:customerId AS BIGINT)) " +
+                   "GROUP BY 1 ORDER BY 1", nativeQuery = true)
+    List<Object[]> sumByBucket(@Param("granularity") String granularity,
+                               @Param("startDate") LocalDateTime startDate,
+                               @Param("endDate") LocalDateTime endDate,
+                               @Param("customerId") Long customerId);
+
+    // Tổng doanh thu theo bucket thời gian và khách hàng - trả về [bucket, customerId, tổng tiền, số hóa đơn]
+    @Query(value = "SELECT CAST(date_trunc(:granularity, p.payment_date) AS date) AS bucket, p.customer_id, " +
+                   "SUM(p.payment_amount) AS total, COUNT(*) AS cnt " +
+                   "FROM customer_payments p " +
+                   "WHERE p.is_deleted = false AND p.payment_date BETWEEN :startDate AND :endDate " +
+                   "AND (CAST(:customerId AS BIGINT) IS NULL OR p.customer_id = CAST(:customerId AS BIGINT)) " +
+                   "GROUP BY 1, 2 ORDER BY 1, 2", nativeQuery = true)
+    List<Object[]> sumByBucketAndCustomer(@Param("granularity") String granularity,
+                                          @Param("startDate") LocalDateTime startDate,
+                                          @Param("endDate") LocalDateTime endDate,
+                                          @Param("customerId") Long customerId);
 
 }
@@ -1,24 +1,43 @@
 package com.aad.microservice.customer_payment_service.service;
 
 import com.aad.microservice.customer_payment_service.dto.CreatePaymentRequest;
+import com.aad.microservice.customer_payment_service.dto.PageResponse;
+import com.aad.microservice.customer_payment_service.dto.PaymentChangePage;
+import com.aad.microservice.customer_payment_service.dto.PaymentSummaryDto;
+import com.aad.microservice.customer_payment_service.dto.RevenueBucketDto;
 import com.aad.microservice.customer_payment_service.model.Customer;
 import com.aad.microservice.customer_payment_service.model.CustomerContract;
 import com.aad.microservice.customer_payment_service.model.CustomerPayment;
 import com.aad.microservice.customer_payment_service.model.ContractPayment;
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface CustomerPaymentService {
     // Phương thức cũ - giữ lại để tương thích ngược
     CustomerPayment createPayment(CustomerPayment payment);
+    CustomerPayment createPayment(CustomerPayment payment, String idempotencyKey);
 
     // Phương thức mới - hỗ trợ many-to-many
     CustomerPayment createPaymentWithMultipleContracts(CreatePaymentRequest request);
+    CustomerPayment createPaymentWithMultipleContracts(CreatePaymentRequest request, String idempotencyKey);
 
     CustomerPayment getPaymentById(Long id);
     List<CustomerPayment> getAllPayments();
     List<CustomerPayment> getPaymentsByCustomerId(Long customerId);
     List<CustomerPayment> getPaymentsByContractId(Long contractId);
+    PageResponse<CustomerPayment> getPaymentsByDateRange(LocalDate startDate, LocalDate endDate, Long customerId, int page, int size);
+
+    // Duyệt lần lượt từng hóa đơn (không tải toàn bộ danh sách vào bộ nhớ), khoảng thời gian có thể bỏ trống
+    void streamPayments(LocalDate startDate, LocalDate endDate, Consumer<PaymentSummaryDto> consumer);
+
+    // Change feed theo thứ tự commit (changeTxid, id) cho các service đồng bộ hóa đơn tăng dần
+    PaymentChangePage getPaymentChanges(String cursor, int limit);
+
+    // Tổng hợp doanh thu bằng GROUP BY phía cơ sở dữ liệu
+    List<RevenueBucketDto> getRevenueAggregate(LocalDate startDate, LocalDate endDate, String granularity,
+                                               Long customerId, boolean groupByCustomer, String source);
 
     // Phương thức quản lý thanh toán hợp đồng
     List<ContractPayment> getContractPaymentsByPaymentId(Long paymentId);
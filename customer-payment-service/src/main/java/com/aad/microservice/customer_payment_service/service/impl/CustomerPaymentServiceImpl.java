@@ -2,54 +2,181 @@ package com.aad.microservice.customer_payment_service.service.impl;
 
 import com.aad.microservice.customer_payment_service.client.CustomerClient;
 import com.aad.microservice.customer_payment_service.client.CustomerContractClient;
+import com.aad.microservice.customer_payment_service.client.CustomerStatisticsClient;
 import com.aad.microservice.customer_payment_service.constant.ContractStatusConstants;
+import com.aad.microservice.customer_payment_service.constant.RevenueGranularityConstants;
 import com.aad.microservice.customer_payment_service.dto.CreatePaymentRequest;
 import com.aad.microservice.customer_payment_service.dto.ContractPaymentDto;
+import com.aad.microservice.customer_payment_service.dto.PageResponse;
+import com.aad.microservice.customer_payment_service.dto.PaymentAllocationDto;
+import com.aad.microservice.customer_payment_service.dto.PaymentChangeDto;
+import com.aad.microservice.customer_payment_service.dto.PaymentChangePage;
+import com.aad.microservice.customer_payment_service.dto.PaymentSummaryDto;
+import com.aad.microservice.customer_payment_service.dto.RevenueBucketDto;
 import com.aad.microservice.customer_payment_service.exception.AppException;
 import com.aad.microservice.customer_payment_service.exception.ErrorCode;
 import com.aad.microservice.customer_payment_service.model.Customer;
 import com.aad.microservice.customer_payment_service.model.CustomerContract;
 import com.aad.microservice.customer_payment_service.model.CustomerPayment;
 import com.aad.microservice.customer_payment_service.model.ContractPayment;
+import com.aad.microservice.customer_payment_service.model.ContractPaymentVersion;
 import com.aad.microservice.customer_payment_service.repository.CustomerPaymentRepository;
 import com.aad.microservice.customer_payment_service.repository.ContractPaymentRepository;
+import com.aad.microservice.customer_payment_service.repository.ContractPaymentVersionRepository;
 import com.aad.microservice.customer_payment_service.service.CustomerPaymentService;
+import com.aad.microservice.customer_payment_service.service.IdempotencyService;
+import com.aad.microservice.customer_payment_service.util.TransactionRetry;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
 import jakarta.persistence.PersistenceContext;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
 import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class CustomerPaymentServiceImpl implements CustomerPaymentService {
+    private static final int MAX_PAGE_SIZE = 1000;
+
     private final CustomerPaymentRepository paymentRepository;
     private final ContractPaymentRepository contractPaymentRepository;
+    private final ContractPaymentVersionRepository contractPaymentVersionRepository;
     private final CustomerClient customerClient;
     private final CustomerContractClient contractClient;
+    private final CustomerStatisticsClient statisticsClient;
+    private final TransactionRetry transactionRetry;
+    private final IdempotencyService idempotencyService;
 
     @PersistenceContext
     private EntityManager entityManager;
 
     public CustomerPaymentServiceImpl(CustomerPaymentRepository paymentRepository,
                                      ContractPaymentRepository contractPaymentRepository,
+                                     ContractPaymentVersionRepository contractPaymentVersionRepository,
                                      CustomerClient customerClient,
-                                     CustomerContractClient contractClient) {
+                                     CustomerContractClient contractClient,
+                                     CustomerStatisticsClient statisticsClient,
+                                     TransactionRetry transactionRetry,
+                                     IdempotencyService idempotencyService) {
         this.paymentRepository = paymentRepository;
         this.contractPaymentRepository = contractPaymentRepository;
+        this.contractPaymentVersionRepository = contractPaymentVersionRepository;
         this.customerClient = customerClient;
         this.contractClient = contractClient;
+        this.statisticsClient = statisticsClient;
+        this.transactionRetry = transactionRetry;
+        this.idempotencyService = idempotencyService;
+    }
+
+    /**
+     * Sau khi transaction commit, báo customer-statistics-service xóa các kết quả thống kê có chứa ngày thanh toán.
+     * Lỗi kết nối chỉ được ghi log, không ảnh hưởng đến hóa đơn đã tạo (cache sẽ tự hết hạn).
+     */
+    private void invalidateStatisticsAfterCommit(LocalDate paymentDate) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                try {
+                    statisticsClient.invalidateRevenueCache(paymentDate);
+                } catch (Exception e) {
+                    System.err.println("Không thể xóa cache thống kê doanh thu ngày " + paymentDate + ": " + e.getMessage());
+                }
+            }
+        });
+    }
+
+    /**
+     * Số tiền còn lại của hợp đồng (đã lấy từ customer-contract-service ở bước kiểm tra trạng thái).
+     * Phiên bản thanh toán của hợp đồng được đọc ngay trước khi cộng tổng đã thanh toán và được tăng khi commit:
+     * thanh toán khác cho cùng hợp đồng commit xen vào giữa thì lần commit này thất bại (StaleObjectStateException)
+     * và TransactionRetry chạy lại toàn bộ kiểm tra; nhờ vậy không cần transaction SERIALIZABLE.
+     */
+    private double lockAndGetRemainingAmount(Long contractId, CustomerContract contract) {
+        contractPaymentVersionRepository.insertIfAbsent(contractId);
+        entityManager.find(ContractPaymentVersion.class, contractId, LockModeType.OPTIMISTIC_FORCE_INCREMENT);
+
+        double totalAmount = contract.getTotalAmount() != null ? contract.getTotalAmount() : 0.0;
+        return totalAmount - getTotalPaidAmountByContractId(contractId);
+    }
+
+    // Vi phạm unique constraint duplicate_key: cùng hợp đồng, số tiền, ngày, phương thức và ghi chú với hóa đơn đang hiệu lực
+    private static boolean isDuplicateKeyViolation(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation && violation.getConstraintName() != null &&
+                violation.getConstraintName().toLowerCase().contains(CustomerPayment.DUPLICATE_KEY_CONSTRAINT)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Tạo hóa đơn trong TransactionRetry. Nếu có idempotencyKey, khóa được ghi cùng transaction với hóa đơn:
+     * request lặp lại cùng khóa nhận lại đúng hóa đơn đã tạo mà không kiểm tra lại hay gọi service khác.
+     * Dấu vân tay của request được tính trước lần thử đầu tiên vì các lần thử có thể thay đổi request.
+     */
+    private CustomerPayment createIdempotently(String operation, Object request, String idempotencyKey,
+                                               Supplier<CustomerPayment> create) {
+        String fingerprint = idempotencyKey != null ? idempotencyService.fingerprint(operation, request) : null;
+        return transactionRetry.execute(() -> {
+            if (idempotencyKey != null) {
+                Optional<CustomerPayment> previous =
+                        idempotencyService.findOrClaim(idempotencyKey, fingerprint, CustomerPayment.class);
+                if (previous.isPresent()) {
+                    return previous.get();
+                }
+            }
+
+            CustomerPayment savedPayment = create.get();
+            if (idempotencyKey != null) {
+                idempotencyService.saveResponse(idempotencyKey, savedPayment);
+            }
+            return savedPayment;
+        });
     }
 
     @Override
-    @Transactional(isolation = org.springframework.transaction.annotation.Isolation.SERIALIZABLE)
     public CustomerPayment createPayment(CustomerPayment payment) {
+        return createPayment(payment, null);
+    }
+
+    @Override
+    public CustomerPayment createPayment(CustomerPayment payment, String idempotencyKey) {
+        return createIdempotently("createPayment", payment, idempotencyKey, () -> {
+            if (payment != null) {
+                // Hóa đơn chưa được lưu: bỏ ID/version và collection do Hibernate gắn ở lần thử trước (hoặc do client gửi lên)
+                payment.setId(null);
+                payment.setVersion(null);
+                payment.setContractPayments(payment.getContractPayments() != null
+                        ? new ArrayList<>(payment.getContractPayments()) : new ArrayList<>());
+            }
+            return doCreatePayment(payment);
+        });
+    }
+
+    private CustomerPayment doCreatePayment(CustomerPayment payment) {
         // Validate input parameters
         if (payment == null) {
             throw new AppException(ErrorCode.NotAllowCreate_Exception, "Thông tin thanh toán không được để trống");
@@ -63,22 +190,6 @@ public class CustomerPaymentServiceImpl implements CustomerPaymentService {
             throw new AppException(ErrorCode.ContractNotFound_Exception, "Mã hợp đồng không được để trống");
         }
 
-        // Check for potential duplicate payments
-        LocalDateTime paymentDate = payment.getPaymentDate() != null ? payment.getPaymentDate() : LocalDateTime.now();
-        LocalDate paymentDateOnly = paymentDate.toLocalDate();
-
-        List<CustomerPayment> existingPayments = paymentRepository.findByCustomerContractIdAndPaymentAmountAndPaymentDateAndPaymentMethodAndIsDeletedFalse(
-            payment.getCustomerContractId(), payment.getPaymentAmount(), paymentDateOnly, payment.getPaymentMethod());
-
-        if (!existingPayments.isEmpty()) {
-            for (CustomerPayment existing : existingPayments) {
-                if (Objects.equals(existing.getNote(), payment.getNote())) {
-                    throw new AppException(ErrorCode.Duplicated_Exception,
-                        "Thanh toán tương tự đã tồn tại cho hợp đồng này với cùng số tiền và phương thức");
-                }
-            }
-        }
-
         // Kiểm tra hợp đồng có tồn tại không
         try {
             Boolean contractExists = contractClient.checkContractExists(payment.getCustomerContractId());
@@ -109,7 +220,7 @@ public class CustomerPaymentServiceImpl implements CustomerPaymentService {
             }
 
             // Kiểm tra số tiền thanh toán không vượt quá số tiền còn lại của hợp đồng
-            Double remainingAmount = getRemainingAmountByContractId(payment.getCustomerContractId());
+            double remainingAmount = lockAndGetRemainingAmount(payment.getCustomerContractId(), contract);
             if (payment.getPaymentAmount() > remainingAmount) {
                 throw new AppException(ErrorCode.InvalidAmount_Exception,
                         "Số tiền thanh toán (" + payment.getPaymentAmount() + " VNĐ) không được vượt quá số tiền còn lại (" + remainingAmount + " VNĐ)");
@@ -148,9 +259,18 @@ public class CustomerPaymentServiceImpl implements CustomerPaymentService {
             entityManager.flush();
 
             System.out.println("Payment successfully saved with ID: " + savedPayment.getId() + " (key: " + processingKey + ")");
+            invalidateStatisticsAfterCommit(savedPayment.getPaymentDate().toLocalDate());
             return savedPayment;
 
         } catch (Exception e) {
+            // Hóa đơn trùng do unique constraint duplicate_key chặn, kể cả khi một request khác vừa tạo cùng lúc
+            if (isDuplicateKeyViolation(e)) {
+                throw new AppException(ErrorCode.Duplicated_Exception,
+                    "Thanh toán tương tự đã tồn tại cho hợp đồng này với cùng số tiền và phương thức");
+            }
+            if (TransactionRetry.isConcurrencyConflict(e)) {
+                throw e;
+            }
             System.err.println("Error saving payment with key " + processingKey + ": " + e.getMessage());
             throw new AppException(ErrorCode.NotAllowCreate_Exception, "Không thể tạo thanh toán: " + e.getMessage());
         }
@@ -180,6 +300,189 @@ public class CustomerPaymentServiceImpl implements CustomerPaymentService {
         return paymentRepository.findByCustomerContractIdAndIsDeletedFalse(contractId);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public PageResponse<CustomerPayment> getPaymentsByDateRange(LocalDate startDate, LocalDate endDate, Long customerId, int page, int size) {
+        if (startDate == null || endDate == null) {
+            throw new AppException(ErrorCode.InvalidInput_Exception, "Ngày bắt đầu và ngày kết thúc không được để trống");
+        }
+
+        if (startDate.isAfter(endDate)) {
+            throw new AppException(ErrorCode.InvalidInput_Exception, "Ngày bắt đầu không thể sau ngày kết thúc");
+        }
+
+        if (page < 0 || size <= 0 || size > MAX_PAGE_SIZE) {
+            throw new AppException(ErrorCode.InvalidInput_Exception,
+                    "Số trang phải >= 0 và kích thước trang phải từ 1 đến " + MAX_PAGE_SIZE);
+        }
+
+        // Sắp xếp theo ngày thanh toán và ID để các trang ổn định khi duyệt tuần tự
+        Pageable pageable = PageRequest.of(page, size, Sort.by("paymentDate", "id"));
+        LocalDateTime from = startDate.atStartOfDay();
+        LocalDateTime to = endDate.atTime(LocalTime.MAX);
+
+        Slice<CustomerPayment> payments = customerId != null
+                ? paymentRepository.findByCustomerIdAndPaymentDateBetweenAndIsDeletedFalse(customerId, from, to, pageable)
+                : paymentRepository.findByPaymentDateBetweenAndIsDeletedFalse(from, to, pageable);
+
+        return PageResponse.of(payments);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void streamPayments(LocalDate startDate, LocalDate endDate, Consumer<PaymentSummaryDto> consumer) {
+        // Stream phải được đóng để giải phóng cursor và kết nối
+        try (Stream<PaymentSummaryDto> payments = startDate == null
+                ? paymentRepository.streamAllSummaries()
+                : paymentRepository.streamSummariesByPaymentDateBetween(startDate.atStartOfDay(), endDate.atTime(LocalTime.MAX))) {
+            payments.forEach(consumer);
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public PaymentChangePage getPaymentChanges(String cursor, int limit) {
+        if (limit <= 0 || limit > MAX_PAGE_SIZE) {
+            throw new AppException(ErrorCode.InvalidInput_Exception,
+                    "Số lượng thay đổi mỗi trang phải từ 1 đến " + MAX_PAGE_SIZE);
+        }
+
+        long afterTxid = 0L;
+        long afterId = 0L;
+        if (cursor != null && !cursor.isEmpty()) {
+            try {
+                String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+                afterTxid = Long.parseLong(parts[0]);
+                afterId = Long.parseLong(parts[1]);
+            } catch (Exception e) {
+                throw new AppException(ErrorCode.InvalidInput_Exception, "Cursor không hợp lệ");
+            }
+        }
+
+        // Lấy dư một bản ghi để biết còn thay đổi phía sau hay không
+        List<CustomerPayment> payments = paymentRepository.findChangesAfter(afterTxid, afterId, limit + 1);
+        boolean hasMore = payments.size() > limit;
+        if (hasMore) {
+            payments = payments.subList(0, limit);
+        }
+
+        // Phân bổ hợp đồng được tạo cùng transaction với hóa đơn nên đi kèm thay đổi của hóa đơn
+        Map<Long, List<PaymentAllocationDto>> allocationsByPayment = new HashMap<>();
+        if (!payments.isEmpty()) {
+            List<Long> paymentIds = payments.stream().map(CustomerPayment::getId).collect(Collectors.toList());
+            for (ContractPayment contractPayment : contractPaymentRepository.findByPaymentIdIn(paymentIds)) {
+                allocationsByPayment
+                        .computeIfAbsent(contractPayment.getPayment().getId(), id -> new ArrayList<>())
+                        .add(PaymentAllocationDto.builder()
+                                .id(contractPayment.getId())
+                                .contractId(contractPayment.getContractId())
+                                .allocatedAmount(contractPayment.getAllocatedAmount())
+                                .build());
+            }
+        }
+
+        List<PaymentChangeDto> changes = new ArrayList<>(payments.size());
+        for (CustomerPayment payment : payments) {
+            changes.add(PaymentChangeDto.builder()
+                    .id(payment.getId())
+                    .paymentDate(payment.getPaymentDate())
+                    .paymentMethod(payment.getPaymentMethod())
+                    .paymentAmount(payment.getPaymentAmount())
+                    .note(payment.getNote())
+                    .customerContractId(payment.getCustomerContractId())
+                    .customerId(payment.getCustomerId())
+                    .isDeleted(payment.getIsDeleted())
+                    .createdAt(payment.getCreatedAt())
+                    .updatedAt(payment.getUpdatedAt())
+                    .allocations(allocationsByPayment.getOrDefault(payment.getId(), new ArrayList<>()))
+                    .build());
+        }
+
+        String nextCursor = cursor;
+        if (!payments.isEmpty()) {
+            CustomerPayment last = payments.get(payments.size() - 1);
+            String position = last.getChangeTxid() + "|" + last.getId();
+            nextCursor = Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+        }
+
+        return PaymentChangePage.builder()
+                .changes(changes)
+                .nextCursor(nextCursor)
+                .hasMore(hasMore)
+                .build();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<RevenueBucketDto> getRevenueAggregate(LocalDate startDate, LocalDate endDate, String granularity,
+                                                      Long customerId, boolean groupByCustomer, String source) {
+        if (startDate == null || endDate == null) {
+            throw new AppException(ErrorCode.InvalidInput_Exception, "Ngày bắt đầu và ngày kết thúc không được để trống");
+        }
+
+        if (startDate.isAfter(endDate)) {
+            throw new AppException(ErrorCode.InvalidInput_Exception, "Ngày bắt đầu không thể sau ngày kết thúc");
+        }
+
+        if (!RevenueGranularityConstants.isValid(granularity)) {
+            throw new AppException(ErrorCode.InvalidInput_Exception,
+                    "Đơn vị thời gian không hợp lệ: " + granularity + " (day, week, month, year)");
+        }
+
+        boolean fromAllocations = RevenueGranularityConstants.SOURCE_ALLOCATIONS.equals(source);
+        if (!fromAllocations && !RevenueGranularityConstants.SOURCE_PAYMENTS.equals(source)) {
+            throw new AppException(ErrorCode.InvalidInput_Exception,
+                    "Nguồn dữ liệu không hợp lệ: " + source + " (payments, allocations)");
+        }
+
+        LocalDateTime from = startDate.atStartOfDay();
+        LocalDateTime to = endDate.atTime(LocalTime.MAX);
+
+        List<Object[]> rows;
+        if (groupByCustomer) {
+            rows = fromAllocations
+                    ? contractPaymentRepository.sumByBucketAndCustomer(granularity, from, to, customerId)
+                    : paymentRepository.sumByBucketAndCustomer(granularity, from, to, customerId);
+        } else {
+            rows = fromAllocations
+                    ? contractPaymentRepository.sumByBucket(granularity, from, to, customerId)
+                    : paymentRepository.sumByBucket(granularity, from, to, customerId);
+        }
+
+        // Cột: bucket, [customerId], tổng tiền, số lượng
+        List<RevenueBucketDto> buckets = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            int column = 0;
+            RevenueBucketDto bucket = new RevenueBucketDto();
+            bucket.setBucketDate(toLocalDate(row[column++]));
+            if (groupByCustomer) {
+                bucket.setCustomerId(row[column] != null ? ((Number) row[column]).longValue() : null);
+                column++;
+            }
+            bucket.setTotalRevenue(row[column] != null ? ((Number) row[column]).doubleValue() : 0.0);
+            bucket.setInvoiceCount(((Number) row[column + 1]).longValue());
+            buckets.add(bucket);
+        }
+
+        return buckets;
+    }
+
+    private LocalDate toLocalDate(Object value) {
+        if (value instanceof LocalDate localDate) {
+            return localDate;
+        }
+        if (value instanceof java.sql.Date sqlDate) {
+            return sqlDate.toLocalDate();
+        }
+        if (value instanceof java.sql.Timestamp timestamp) {
+            return timestamp.toLocalDateTime().toLocalDate();
+        }
+        if (value instanceof LocalDateTime localDateTime) {
+            return localDateTime.toLocalDate();
+        }
+        return value != null ? LocalDate.parse(value.toString()) : null;
+    }
+
     @Override
     public List<Customer> searchCustomers(String fullname, String phoneNumber) {
         try {
@@ -351,8 +654,17 @@ public class CustomerPaymentServiceImpl implements CustomerPaymentService {
 
     // Phương thức mới - hỗ trợ many-to-many
     @Override
-    @Transactional(isolation = org.springframework.transaction.annotation.Isolation.SERIALIZABLE)
     public CustomerPayment createPaymentWithMultipleContracts(CreatePaymentRequest request) {
+        return createPaymentWithMultipleContracts(request, null);
+    }
+
+    @Override
+    public CustomerPayment createPaymentWithMultipleContracts(CreatePaymentRequest request, String idempotencyKey) {
+        return createIdempotently("createPaymentWithMultipleContracts", request, idempotencyKey,
+                () -> doCreatePaymentWithMultipleContracts(request));
+    }
+
+    private CustomerPayment doCreatePaymentWithMultipleContracts(CreatePaymentRequest request) {
         // Validate input parameters
         if (request == null) {
             throw new AppException(ErrorCode.NotAllowCreate_Exception, "Thông tin thanh toán không được để trống");
@@ -390,6 +702,8 @@ public class CustomerPaymentServiceImpl implements CustomerPaymentService {
             }
 
             // Validate từng hợp đồng
+            Map<Long, CustomerContract> contracts = new TreeMap<>();
+            Map<Long, Double> allocatedByContract = new HashMap<>();
             for (ContractPaymentDto allocation : request.getContractPayments()) {
                 if (allocation.getContractId() == null) {
                     throw new AppException(ErrorCode.ContractNotFound_Exception, "Mã hợp đồng không được để trống");
@@ -415,12 +729,19 @@ public class CustomerPaymentServiceImpl implements CustomerPaymentService {
                             "Chỉ có thể thanh toán cho hợp đồng đang hoạt động hoặc chờ xử lý. Hợp đồng ID: " + allocation.getContractId());
                 }
 
-                // Kiểm tra số tiền thanh toán không vượt quá số tiền còn lại của hợp đồng
-                Double remainingAmount = getRemainingAmountByContractId(allocation.getContractId());
-                if (allocation.getAllocatedAmount() > remainingAmount) {
+                contracts.put(allocation.getContractId(), contract);
+                allocatedByContract.merge(allocation.getContractId(), allocation.getAllocatedAmount(), Double::sum);
+            }
+
+            // Kiểm tra số tiền thanh toán không vượt quá số tiền còn lại của từng hợp đồng;
+            // theo thứ tự ID để hai thanh toán cùng phân bổ cho nhiều hợp đồng không chờ nhau theo vòng khi commit
+            for (Map.Entry<Long, CustomerContract> entry : contracts.entrySet()) {
+                double remainingAmount = lockAndGetRemainingAmount(entry.getKey(), entry.getValue());
+                double allocatedAmount = allocatedByContract.get(entry.getKey());
+                if (allocatedAmount > remainingAmount) {
                     throw new AppException(ErrorCode.InvalidAmount_Exception,
-                            "Số tiền thanh toán cho hợp đồng ID " + allocation.getContractId() +
-                            " (" + allocation.getAllocatedAmount() + " VNĐ) không được vượt quá số tiền còn lại (" + remainingAmount + " VNĐ)");
+                            "Số tiền thanh toán cho hợp đồng ID " + entry.getKey() +
+                            " (" + allocatedAmount + " VNĐ) không được vượt quá số tiền còn lại (" + remainingAmount + " VNĐ)");
                 }
             }
 
@@ -468,9 +789,13 @@ public class CustomerPaymentServiceImpl implements CustomerPaymentService {
             savedPayment.setContractPayments(contractPayments);
 
             System.out.println("Payment with multiple contracts successfully saved with ID: " + savedPayment.getId());
+            invalidateStatisticsAfterCommit(savedPayment.getPaymentDate().toLocalDate());
             return savedPayment;
 
         } catch (Exception e) {
+            if (TransactionRetry.isConcurrencyConflict(e)) {
+                throw e;
+            }
             System.err.println("Error saving payment with multiple contracts: " + e.getMessage());
             e.printStackTrace(); // In stack trace để debug
             throw new AppException(ErrorCode.NotAllowCreate_Exception, "Không thể tạo thanh toán: " + e.getMessage());
@@ -0,0 +1,93 @@
+package com.aad.microservice.customer_payment_service.service.impl;
+
+import com.aad.microservice.customer_payment_service.exception.AppException;
+import com.aad.microservice.customer_payment_service.exception.ErrorCode;
+import com.aad.microservice.customer_payment_service.model.IdempotencyRecord;
+import com.aad.microservice.customer_payment_service.repository.IdempotencyRecordRepository;
+import com.aad.microservice.customer_payment_service.service.IdempotencyService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Optional;
+
+@Service
+public class IdempotencyServiceImpl implements IdempotencyService {
+    private static final String IN_PROGRESS_MESSAGE = "Yêu cầu với Idempotency-Key này đang được xử lý, vui lòng thử lại";
+
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final ObjectMapper objectMapper;
+
+    public IdempotencyServiceImpl(IdempotencyRecordRepository idempotencyRecordRepository, ObjectMapper objectMapper) {
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Gọi trước khi xử lý (và trước khi request bị thay đổi): SHA-256 của tên thao tác và JSON của request.
+     */
+    @Override
+    public String fingerprint(String operation, Object request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(operation.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) '|');
+            digest.update(objectMapper.writeValueAsBytes(request));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new AppException(ErrorCode.InvalidInput_Exception, "Không thể đọc nội dung yêu cầu: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Giữ khóa cho transaction hiện tại. Trả về response đã lưu nếu khóa đã được xử lý xong, khi đó
+     * không cần kiểm tra dữ liệu hay gọi service khác. Nếu transaction hiện tại rollback, khóa được giải phóng
+     * và request lặp lại sẽ được xử lý lại từ đầu.
+     */
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public <T> Optional<T> findOrClaim(String key, String fingerprint, Class<T> responseType) {
+        if (key.isBlank() || key.length() > IdempotencyRecord.MAX_KEY_LENGTH) {
+            throw new AppException(ErrorCode.InvalidInput_Exception,
+                    "Idempotency-Key phải có từ 1 đến " + IdempotencyRecord.MAX_KEY_LENGTH + " ký tự");
+        }
+
+        if (idempotencyRecordRepository.insertIfAbsent(key, fingerprint, LocalDateTime.now()) == 1) {
+            return Optional.empty();
+        }
+
+        // Khóa vừa bị xóa hoặc chưa có response (không xảy ra khi response được lưu cùng transaction): để client gửi lại
+        IdempotencyRecord record = idempotencyRecordRepository.findById(key)
+                .orElseThrow(() -> new AppException(ErrorCode.Conflict_Exception, IN_PROGRESS_MESSAGE));
+        if (!record.getRequestHash().equals(fingerprint)) {
+            throw new AppException(ErrorCode.InvalidInput_Exception, "Idempotency-Key đã được dùng cho một yêu cầu khác");
+        }
+        if (record.getResponse() == null) {
+            throw new AppException(ErrorCode.Conflict_Exception, IN_PROGRESS_MESSAGE);
+        }
+
+        System.out.println("Trả lại kết quả đã lưu cho Idempotency-Key: " + key);
+        try {
+            return Optional.of(objectMapper.readValue(record.getResponse(), responseType));
+        } catch (JsonProcessingException e) {
+            throw new AppException(ErrorCode.Unknown_Exception, "Không thể đọc kết quả đã lưu: " + e.getMessage());
+        }
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void saveResponse(String key, Object response) {
+        try {
+            idempotencyRecordRepository.saveResponse(key, objectMapper.writeValueAsString(response));
+        } catch (JsonProcessingException e) {
+            throw new AppException(ErrorCode.Unknown_Exception, "Không thể lưu kết quả cho Idempotency-Key: " + e.getMessage());
+        }
+    }
+}
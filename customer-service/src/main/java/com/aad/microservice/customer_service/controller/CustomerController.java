@@ -2,18 +2,28 @@ package com.aad.microservice.customer_service.controller;
 
 import com.aad.microservice.customer_service.model.Customer;
 import com.aad.microservice.customer_service.service.CustomerService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 @RestController
 @RequestMapping("/api/customer")
 public class CustomerController {
+    private static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
     private final CustomerService customerService;
+    private final ObjectMapper objectMapper;
 
-    public CustomerController(CustomerService customerService) {
+    public CustomerController(CustomerService customerService, ObjectMapper objectMapper) {
         this.customerService = customerService;
+        this.objectMapper = objectMapper;
     }
 
     @GetMapping("/{id}")
@@ -32,6 +42,29 @@ public class CustomerController {
         return ResponseEntity.ok(customerService.getAllCustomers());
     }
 
+    // API stream khách hàng dạng NDJSON (mỗi dòng một khách hàng)
+    @GetMapping("/stream")
+    public ResponseEntity<StreamingResponseBody> streamAllCustomers() {
+        StreamingResponseBody body = outputStream ->
+                customerService.streamAllCustomers(customer -> writeLine(outputStream, customer));
+        return ResponseEntity.ok().contentType(APPLICATION_NDJSON).body(body);
+    }
+
+    private void writeLine(OutputStream outputStream, Customer customer) {
+        try {
+            outputStream.write(objectMapper.writeValueAsBytes(customer));
+            outputStream.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Lấy thông tin nhiều khách hàng theo danh sách ID (tối đa 1000 ID mỗi lần)
+    @PostMapping("/batch")
+    public ResponseEntity<List<Customer>> getCustomersByIds(@RequestBody List<Long> ids) {
+        return ResponseEntity.ok(customerService.getCustomersByIds(ids));
+    }
+
     @PutMapping
     public ResponseEntity<Customer> updateCustomer(@RequestBody Customer customer) {
         return ResponseEntity.ok(customerService.updateCustomer(customer));
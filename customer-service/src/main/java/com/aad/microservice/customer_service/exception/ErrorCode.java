@@ -10,6 +10,7 @@ public enum ErrorCode {
     NotAllowUpdate_Exception(1002),
     NotAllowDelete_Exception(1003),
     Duplicated_Exception(1004),
+    InvalidInput_Exception(1005),
     ;
 
     ErrorCode(int code) {
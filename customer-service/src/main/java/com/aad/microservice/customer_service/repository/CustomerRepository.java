@@ -1,14 +1,27 @@
 package com.aad.microservice.customer_service.repository;
 
 import com.aad.microservice.customer_service.model.Customer;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface CustomerRepository extends JpaRepository<Customer, Long> {
     List<Customer> findByIsDeletedFalse();
+
+    // Stream khách hàng theo từng lô fetch size; dùng constructor expression để không giữ entity trong persistence context
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "500"))
+    @Query("SELECT new com.aad.microservice.customer_service.model.Customer(" +
+           "c.id, c.fullName, c.companyName, c.phoneNumber, c.email, c.address, c.isDeleted, c.createdAt, c.updatedAt) " +
+           "FROM Customer c WHERE c.isDeleted = false ORDER BY c.id")
+    Stream<Customer> streamByIsDeletedFalse();
     Optional<Customer> findByIdAndIsDeletedFalse(Long id);
+    List<Customer> findByIdInAndIsDeletedFalse(Collection<Long> ids);
 
     Boolean existsByEmailAndIsDeletedFalse(String email);
     Boolean existsByPhoneNumberAndIsDeletedFalse(String phoneNumber);
@@ -3,6 +3,7 @@ package com.aad.microservice.customer_service.service;
 import com.aad.microservice.customer_service.model.Customer;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface CustomerService {
     Customer createCustomer(Customer customer);
@@ -11,6 +12,12 @@ public interface CustomerService {
     Customer getCustomerById(Long id);
     List<Customer> getAllCustomers();
 
+    // Duyệt lần lượt từng khách hàng mà không tải toàn bộ danh sách vào bộ nhớ
+    void streamAllCustomers(Consumer<Customer> consumer);
+
+    // Lấy nhiều khách hàng theo danh sách ID trong một truy vấn; ID không tồn tại hoặc đã xóa bị bỏ qua
+    List<Customer> getCustomersByIds(List<Long> ids);
+
     boolean checkCustomerExists(Long id);
 
     // Search methods
@@ -6,14 +6,21 @@ import com.aad.microservice.customer_service.model.Customer;
 import com.aad.microservice.customer_service.repository.CustomerRepository;
 import com.aad.microservice.customer_service.service.CustomerService;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 import java.util.regex.Pattern;
+import java.util.stream.Stream;
 
 @Service
 public class CustomerServiceImpl implements CustomerService {
+    private static final int MAX_BATCH_SIZE = 1000;
+
     private final CustomerRepository customerRepository;
 
     public CustomerServiceImpl(CustomerRepository customerRepository) {
@@ -120,6 +127,27 @@ public class CustomerServiceImpl implements CustomerService {
         return customerRepository.findByIsDeletedFalse();
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public void streamAllCustomers(Consumer<Customer> consumer) {
+        // Stream phải được đóng để giải phóng cursor và kết nối
+        try (Stream<Customer> customers = customerRepository.streamByIsDeletedFalse()) {
+            customers.forEach(consumer);
+        }
+    }
+
+    @Override
+    public List<Customer> getCustomersByIds(List<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        if (ids.size() > MAX_BATCH_SIZE) {
+            throw new AppException(ErrorCode.InvalidInput_Exception,
+                    "Chỉ được lấy tối đa " + MAX_BATCH_SIZE + " khách hàng mỗi lần");
+        }
+        return customerRepository.findByIdInAndIsDeletedFalse(new HashSet<>(ids));
+    }
+
     @Override
     public boolean checkCustomerExists(Long id) {
         return customerRepository.findByIdAndIsDeletedFalse(id).isPresent();
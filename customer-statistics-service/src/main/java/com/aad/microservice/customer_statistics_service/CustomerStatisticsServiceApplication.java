@@ -3,9 +3,11 @@ package com.aad.microservice.customer_statistics_service;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cloud.openfeign.EnableFeignClients;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @EnableFeignClients
+@EnableScheduling
 public class CustomerStatisticsServiceApplication {
     public static void main(String[] args) {
         SpringApplication.run(CustomerStatisticsServiceApplication.class, args);
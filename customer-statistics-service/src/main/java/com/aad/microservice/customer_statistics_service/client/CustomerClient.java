@@ -1,9 +1,12 @@
 package com.aad.microservice.customer_statistics_service.client;
 
 import com.aad.microservice.customer_statistics_service.model.Customer;
+import feign.Response;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 
 import java.util.List;
 
@@ -13,6 +16,14 @@ public interface CustomerClient {
     @GetMapping
     List<Customer> getAllCustomers();
 
+    // NDJSON - đọc bằng NdjsonStreamReader
+    @GetMapping("/stream")
+    Response streamAllCustomers();
+
     @GetMapping("/{id}")
     Customer getCustomerById(@PathVariable Long id);
+
+    // Tối đa 1000 ID mỗi lần; khách hàng đã xóa không được trả về
+    @PostMapping("/batch")
+    List<Customer> getCustomersByIds(@RequestBody List<Long> ids);
 }
@@ -1,6 +1,8 @@
 package com.aad.microservice.customer_statistics_service.client;
 
+import com.aad.microservice.customer_statistics_service.model.ContractAggregate;
 import com.aad.microservice.customer_statistics_service.model.CustomerContract;
+import com.aad.microservice.customer_statistics_service.model.CustomerContractPage;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -8,19 +10,56 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestParam;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Function;
 
 @FeignClient(name = "customer-contract-service", url = "${app.customer-contract-service.url}")
 public interface CustomerContractClient {
 
+    // Kích thước trang tối đa mà customer-contract-service chấp nhận
+    int PAGE_SIZE = 500;
+
     @GetMapping("/date-range")
-    List<CustomerContract> getContractsByDateRange(
+    CustomerContractPage getContractsByDateRange(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) String cursor,
+            @RequestParam int limit);
+
+    @GetMapping("/aggregate")
+    List<ContractAggregate> getContractAggregates(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
-            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate);
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) List<String> groupBy,
+            @RequestParam(required = false) String period,
+            @RequestParam(required = false) Long customerId);
 
     @GetMapping("/{id}")
     CustomerContract getContractById(@PathVariable Long id);
 
     @GetMapping("/customer/{customerId}")
-    List<CustomerContract> getContractsByCustomerId(@PathVariable Long customerId);
+    CustomerContractPage getContractsByCustomerId(@PathVariable Long customerId,
+                                                  @RequestParam(required = false) String cursor,
+                                                  @RequestParam int limit);
+
+    default List<CustomerContract> getContractsByDateRange(LocalDate startDate, LocalDate endDate) {
+        return readAllPages(cursor -> getContractsByDateRange(startDate, endDate, cursor, PAGE_SIZE));
+    }
+
+    default List<CustomerContract> getContractsByCustomerId(Long customerId) {
+        return readAllPages(cursor -> getContractsByCustomerId(customerId, cursor, PAGE_SIZE));
+    }
+
+    // Duyệt lần lượt các trang theo nextCursor cho tới trang cuối
+    private static List<CustomerContract> readAllPages(Function<String, CustomerContractPage> fetchPage) {
+        List<CustomerContract> contracts = new ArrayList<>();
+        String cursor = null;
+        do {
+            CustomerContractPage page = fetchPage.apply(cursor);
+            contracts.addAll(page.getContent());
+            cursor = page.isHasMore() ? page.getNextCursor() : null;
+        } while (cursor != null);
+        return contracts;
+    }
 }
@@ -1,6 +1,10 @@
 package com.aad.microservice.customer_statistics_service.client;
 
 import com.aad.microservice.customer_statistics_service.model.CustomerPayment;
+import com.aad.microservice.customer_statistics_service.model.PageResponse;
+import com.aad.microservice.customer_statistics_service.model.PaymentChangePage;
+import com.aad.microservice.customer_statistics_service.model.RevenueBucket;
+import feign.Response;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -16,6 +20,34 @@ public interface CustomerPaymentClient {
     @GetMapping
     List<CustomerPayment> getAllPayments();
 
+    // NDJSON - đọc bằng NdjsonStreamReader; bỏ trống khoảng thời gian để lấy tất cả hóa đơn
+    @GetMapping("/stream")
+    Response streamPayments(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate);
+
+    @GetMapping("/date-range")
+    PageResponse<CustomerPayment> getPaymentsByDateRange(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) Long customerId,
+            @RequestParam int page,
+            @RequestParam int size);
+
+    // Change feed hóa đơn theo thứ tự commit (changeTxid, id), chỉ gồm giao dịch cũ hơn giao dịch còn mở sớm nhất (xmin);
+    // cursor null để đọc từ đầu
+    @GetMapping("/changes")
+    PaymentChangePage getPaymentChanges(@RequestParam(required = false) String cursor, @RequestParam int limit);
+
+    @GetMapping("/revenue-aggregate")
+    List<RevenueBucket> getRevenueAggregate(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam String granularity,
+            @RequestParam(required = false) Long customerId,
+            @RequestParam boolean groupByCustomer,
+            @RequestParam String source);
+
     @GetMapping("/customer/{customerId}")
     List<CustomerPayment> getPaymentsByCustomerId(@PathVariable Long customerId);
 
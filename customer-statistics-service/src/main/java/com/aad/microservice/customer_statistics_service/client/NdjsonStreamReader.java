@@ -0,0 +1,45 @@
+package com.aad.microservice.customer_statistics_service.client;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import feign.Response;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.Consumer;
+
+/**
+ * Đọc response NDJSON từ Feign theo từng bản ghi bằng Jackson streaming parser,
+ * không dựng toàn bộ danh sách trong bộ nhớ.
+ */
+@Component
+public class NdjsonStreamReader {
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    public <T> long forEach(Response response, Class<T> type, Consumer<T> consumer) {
+        try (response) {
+            if (response.status() < 200 || response.status() >= 300) {
+                throw new RuntimeException("Service trả về mã lỗi " + response.status() + " khi stream dữ liệu");
+            }
+            if (response.body() == null) {
+                return 0;
+            }
+
+            long count = 0;
+            try (InputStream inputStream = response.body().asInputStream();
+                 MappingIterator<T> iterator = objectMapper.readerFor(type).readValues(inputStream)) {
+                while (iterator.hasNextValue()) {
+                    consumer.accept(iterator.nextValue());
+                    count++;
+                }
+            }
+            return count;
+        } catch (IOException e) {
+            throw new RuntimeException("Lỗi khi đọc dữ liệu stream: " + e.getMessage(), e);
+        }
+    }
+}
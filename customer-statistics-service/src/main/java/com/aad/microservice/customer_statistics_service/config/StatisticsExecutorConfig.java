@@ -0,0 +1,57 @@
+package com.aad.microservice.customer_statistics_service.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+public class StatisticsExecutorConfig {
+
+    @Value("${app.statistics.fan-out.enabled:true}")
+    private boolean fanOutEnabled;
+
+    @Value("${app.statistics.fan-out.pool-size:16}")
+    private int poolSize;
+
+    @Value("${app.statistics.fan-out.queue-capacity:100}")
+    private int queueCapacity;
+
+    @Value("${app.statistics.parallel.parallelism:0}")
+    private int parallelism;
+
+    /**
+     * Executor giới hạn dùng để gọi song song các service khác.
+     * Khi tắt fan-out, các lời gọi chạy tuần tự trên luồng của request như trước.
+     */
+    @Bean(name = "statisticsExecutor")
+    public Executor statisticsExecutor() {
+        if (!fanOutEnabled) {
+            return Runnable::run;
+        }
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("statistics-fan-out-");
+        // Khi hàng đợi đầy thì chạy luôn trên luồng của request thay vì từ chối
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Pool fork-join riêng cho tổng hợp song song trên snapshot, tách khỏi common pool
+     * để không tranh chấp với parallel stream của các phần khác. parallelism = 0 nghĩa là bằng số CPU.
+     */
+    @Bean(name = "statisticsForkJoinPool", destroyMethod = "shutdown")
+    public ForkJoinPool statisticsForkJoinPool() {
+        return new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+}
@@ -0,0 +1,16 @@
+package com.aad.microservice.customer_statistics_service.constant;
+
+public class RevenueGranularityConstants {
+    // Giá trị truyền cho date_trunc - phải khớp với customer-payment-service
+    public static final String DAY = "day";
+    public static final String WEEK = "week";
+    public static final String MONTH = "month";
+    public static final String YEAR = "year";
+
+    public static final String SOURCE_PAYMENTS = "payments";
+
+    public static boolean isValid(String granularity) {
+        return DAY.equals(granularity) || WEEK.equals(granularity) ||
+               MONTH.equals(granularity) || YEAR.equals(granularity);
+    }
+}
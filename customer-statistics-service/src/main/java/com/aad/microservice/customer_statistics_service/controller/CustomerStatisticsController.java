@@ -1,9 +1,15 @@
 package com.aad.microservice.customer_statistics_service.controller;
 
+import com.aad.microservice.customer_statistics_service.constant.RevenueGranularityConstants;
+import com.aad.microservice.customer_statistics_service.model.ApproximateRevenueStatistics;
 import com.aad.microservice.customer_statistics_service.model.CustomerRevenue;
+import com.aad.microservice.customer_statistics_service.model.CustomerRevenueDrillDown;
+import com.aad.microservice.customer_statistics_service.model.CustomerRevenueRanking;
 import com.aad.microservice.customer_statistics_service.model.CustomerPayment;
 import com.aad.microservice.customer_statistics_service.model.TimeBasedRevenue;
 import com.aad.microservice.customer_statistics_service.service.CustomerStatisticsService;
+import com.aad.microservice.customer_statistics_service.service.PaymentSketchService;
+import com.aad.microservice.customer_statistics_service.service.StatisticsCacheService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
@@ -23,6 +29,12 @@ public class CustomerStatisticsController {
     @Autowired
     private CustomerStatisticsService customerStatisticsService;
 
+    @Autowired
+    private StatisticsCacheService statisticsCacheService;
+
+    @Autowired
+    private PaymentSketchService paymentSketchService;
+
     @GetMapping
     public ResponseEntity<Map<String, String>> root() {
         Map<String, String> response = new HashMap<>();
@@ -41,6 +53,25 @@ public class CustomerStatisticsController {
         return ResponseEntity.ok(health);
     }
 
+    // Được customer-payment-service gọi sau khi tạo hóa đơn; bỏ trống date thì dùng ngày hôm nay
+    @PostMapping("/cache/invalidate")
+    public ResponseEntity<Map<String, Object>> invalidateRevenueCache(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        LocalDate invalidatedDate = date != null ? date : LocalDate.now();
+        int invalidated = statisticsCacheService.invalidate(invalidatedDate);
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("date", invalidatedDate.toString());
+        response.put("invalidated", invalidated);
+        return ResponseEntity.ok(response);
+    }
+
+    @DeleteMapping("/cache")
+    public ResponseEntity<Void> clearRevenueCache() {
+        statisticsCacheService.invalidateAll();
+        return ResponseEntity.ok().build();
+    }
+
     @GetMapping("/revenue")
     public ResponseEntity<?> getCustomerRevenueStatistics(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
@@ -61,7 +92,8 @@ public class CustomerStatisticsController {
             }
 
             System.out.println("Đang lấy thống kê doanh thu từ " + startDate + " đến " + endDate);
-            List<CustomerRevenue> statistics = customerStatisticsService.getCustomerRevenueStatistics(startDate, endDate);
+            List<CustomerRevenue> statistics = statisticsCacheService.get("revenue", startDate, endDate,
+                    () -> customerStatisticsService.getCustomerRevenueStatistics(startDate, endDate));
             System.out.println("Đã lấy " + statistics.size() + " kết quả thống kê");
             return ResponseEntity.ok(statistics);
         } catch (IllegalArgumentException e) {
@@ -78,6 +110,124 @@ public class CustomerStatisticsController {
         }
     }
 
+    // Xếp hạng khách hàng theo doanh thu có phân trang, dashboard chỉ cần top khách hàng
+    @GetMapping("/revenue/top")
+    public ResponseEntity<?> getTopCustomerRevenue(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(defaultValue = "10") int limit,
+            @RequestParam(defaultValue = "0") int offset,
+            @RequestParam(required = false) Double minRevenue) {
+
+        try {
+            if (startDate.isAfter(endDate)) {
+                Map<String, String> error = new HashMap<>();
+                error.put("error", "Ngày bắt đầu không thể sau ngày kết thúc");
+                return ResponseEntity.badRequest().body(error);
+            }
+
+            System.out.println("Đang lấy xếp hạng doanh thu từ " + startDate + " đến " + endDate +
+                              " (limit " + limit + ", offset " + offset + ", minRevenue " + minRevenue + ")");
+            String endpoint = "revenue-top:" + limit + ":" + offset + ":" + minRevenue;
+            CustomerRevenueRanking ranking = statisticsCacheService.get(endpoint, startDate, endDate,
+                    () -> customerStatisticsService.getTopCustomerRevenue(startDate, endDate, limit, offset, minRevenue));
+            return ResponseEntity.ok(ranking);
+        } catch (IllegalArgumentException e) {
+            System.err.println("Lỗi tham số đầu vào: " + e.getMessage());
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        } catch (Exception e) {
+            System.err.println("Lỗi khi lấy xếp hạng doanh thu: " + e.getMessage());
+            e.printStackTrace();
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Không thể tải xếp hạng doanh thu khách hàng: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(error);
+        }
+    }
+
+    // Top khách hàng kèm chuỗi doanh thu theo ngày/tuần/tháng/năm, thay cho việc gọi /invoices cho từng khách hàng
+    @GetMapping("/revenue/drill-down")
+    public ResponseEntity<?> getCustomerRevenueDrillDown(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(defaultValue = "month") String granularity,
+            @RequestParam(defaultValue = "10") int limit) {
+
+        try {
+            if (startDate.isAfter(endDate)) {
+                Map<String, String> error = new HashMap<>();
+                error.put("error", "Ngày bắt đầu không thể sau ngày kết thúc");
+                return ResponseEntity.badRequest().body(error);
+            }
+
+            System.out.println("Đang lấy chi tiết doanh thu top " + limit + " khách hàng (" + granularity + ") từ " +
+                              startDate + " đến " + endDate);
+            String endpoint = "revenue-drill-down:" + granularity + ":" + limit;
+            CustomerRevenueDrillDown drillDown = statisticsCacheService.get(endpoint, startDate, endDate,
+                    () -> customerStatisticsService.getCustomerRevenueDrillDown(startDate, endDate, granularity, limit));
+            return ResponseEntity.ok(drillDown);
+        } catch (IllegalArgumentException e) {
+            System.err.println("Lỗi tham số đầu vào: " + e.getMessage());
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        } catch (Exception e) {
+            System.err.println("Lỗi khi lấy chi tiết doanh thu khách hàng: " + e.getMessage());
+            e.printStackTrace();
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Không thể tải chi tiết doanh thu khách hàng: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(error);
+        }
+    }
+
+    // Thống kê gần đúng từ sketch cho dashboard tương tác: số khách hàng, phân vị số tiền, top khách hàng kèm sai số.
+    // Bỏ trống granularity thì trả về một kết quả cho cả khoảng thời gian, ngược lại trả về một kết quả cho mỗi bucket.
+    @GetMapping("/revenue/approximate")
+    public ResponseEntity<?> getApproximateRevenueStatistics(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) String granularity,
+            @RequestParam(defaultValue = "10") int topCustomers) {
+
+        Map<String, String> error = new HashMap<>();
+        if (!paymentSketchService.isEnabled()) {
+            error.put("error", "Chế độ thống kê gần đúng chưa được bật (app.statistics.approximate.enabled)");
+            return ResponseEntity.badRequest().body(error);
+        }
+        if (!paymentSketchService.isReady()) {
+            error.put("error", "Dữ liệu thống kê gần đúng đang được dựng, vui lòng thử lại sau");
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(error);
+        }
+        if (startDate.isAfter(endDate)) {
+            error.put("error", "Ngày bắt đầu không thể sau ngày kết thúc");
+            return ResponseEntity.badRequest().body(error);
+        }
+        if (granularity != null && !RevenueGranularityConstants.isValid(granularity)) {
+            error.put("error", "Granularity không hợp lệ: " + granularity);
+            return ResponseEntity.badRequest().body(error);
+        }
+        if (topCustomers < 0 || topCustomers > 100) {
+            error.put("error", "Số lượng top khách hàng phải từ 0 đến 100");
+            return ResponseEntity.badRequest().body(error);
+        }
+
+        try {
+            if (granularity == null) {
+                ApproximateRevenueStatistics statistics = paymentSketchService.summarize(startDate, endDate, topCustomers);
+                return ResponseEntity.ok(statistics);
+            }
+            List<ApproximateRevenueStatistics> statistics =
+                    paymentSketchService.summarizeByBucket(startDate, endDate, granularity, topCustomers);
+            return ResponseEntity.ok(statistics);
+        } catch (Exception e) {
+            System.err.println("Lỗi khi lấy thống kê gần đúng: " + e.getMessage());
+            e.printStackTrace();
+            error.put("error", "Không thể tải thống kê gần đúng: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(error);
+        }
+    }
+
     @GetMapping("/customer/{customerId}/invoices")
     public ResponseEntity<?> getCustomerInvoices(
             @PathVariable Long customerId,
@@ -142,7 +292,8 @@ public class CustomerStatisticsController {
             }
 
             System.out.println("Đang lấy thống kê doanh thu theo ngày từ " + startDate + " đến " + endDate);
-            List<TimeBasedRevenue> statistics = customerStatisticsService.getDailyRevenueStatistics(startDate, endDate);
+            List<TimeBasedRevenue> statistics = statisticsCacheService.get("daily", startDate, endDate,
+                    () -> customerStatisticsService.getDailyRevenueStatistics(startDate, endDate));
             System.out.println("Đã lấy " + statistics.size() + " kết quả thống kê theo ngày");
             return ResponseEntity.ok(statistics);
         } catch (IllegalArgumentException e) {
@@ -178,7 +329,8 @@ public class CustomerStatisticsController {
             }
 
             System.out.println("Đang lấy thống kê doanh thu theo tuần từ " + startDate + " đến " + endDate);
-            List<TimeBasedRevenue> statistics = customerStatisticsService.getWeeklyRevenueStatistics(startDate, endDate);
+            List<TimeBasedRevenue> statistics = statisticsCacheService.get("weekly", startDate, endDate,
+                    () -> customerStatisticsService.getWeeklyRevenueStatistics(startDate, endDate));
             System.out.println("Đã lấy " + statistics.size() + " kết quả thống kê theo tuần");
             return ResponseEntity.ok(statistics);
         } catch (IllegalArgumentException e) {
@@ -214,7 +366,8 @@ public class CustomerStatisticsController {
             }
 
             System.out.println("Đang lấy thống kê doanh thu theo tháng từ " + startDate + " đến " + endDate);
-            List<TimeBasedRevenue> statistics = customerStatisticsService.getMonthlyRevenueStatistics(startDate, endDate);
+            List<TimeBasedRevenue> statistics = statisticsCacheService.get("monthly", startDate, endDate,
+                    () -> customerStatisticsService.getMonthlyRevenueStatistics(startDate, endDate));
             System.out.println("Đã lấy " + statistics.size() + " kết quả thống kê theo tháng");
             return ResponseEntity.ok(statistics);
         } catch (IllegalArgumentException e) {
@@ -250,7 +403,8 @@ public class CustomerStatisticsController {
             }
 
             System.out.println("Đang lấy thống kê doanh thu theo năm từ " + startDate + " đến " + endDate);
-            List<TimeBasedRevenue> statistics = customerStatisticsService.getYearlyRevenueStatistics(startDate, endDate);
+            List<TimeBasedRevenue> statistics = statisticsCacheService.get("yearly", startDate, endDate,
+                    () -> customerStatisticsService.getYearlyRevenueStatistics(startDate, endDate));
             System.out.println("Đã lấy " + statistics.size() + " kết quả thống kê theo năm");
             return ResponseEntity.ok(statistics);
         } catch (IllegalArgumentException e) {
@@ -0,0 +1,46 @@
+package com.aad.microservice.customer_statistics_service.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Thống kê gần đúng của một khoảng thời gian, gộp từ các sketch theo ngày/tháng.
+ * Tổng doanh thu và số hóa đơn là chính xác; số khách hàng, phân vị số tiền và top khách hàng là ước lượng có sai số.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ApproximateRevenueStatistics {
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private String label;
+
+    private Double totalRevenue;
+    private Long invoiceCount;
+
+    // Số khách hàng khác nhau có thanh toán (HyperLogLog)
+    private ApproximateValue distinctCustomers;
+
+    // Phân vị số tiền hóa đơn: "min", "p50", "p90", "p99", "max" (KLL)
+    @Builder.Default
+    private Map<String, Double> paymentAmountQuantiles = new LinkedHashMap<>();
+
+    // Sai số hạng chuẩn hóa của phân vị: giá trị trả về cho p50 có hạng thực nằm trong 0.50 ± quantileRankError
+    private Double quantileRankError;
+
+    // Khách hàng chắc chắn có doanh thu vượt sai số tối đa (frequent items sketch); trống nếu không có khách hàng nổi trội
+    @Builder.Default
+    private List<CustomerRevenueEstimate> topCustomers = new ArrayList<>();
+
+    // Sai số tối đa của doanh thu ước lượng trong topCustomers
+    private Long topCustomersMaxError;
+}
@@ -0,0 +1,17 @@
+package com.aad.microservice.customer_statistics_service.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Giá trị ước lượng kèm cận dưới/cận trên ở độ tin cậy khoảng 95%
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ApproximateValue {
+    private double estimate;
+    private double lowerBound;
+    private double upperBound;
+}
@@ -0,0 +1,19 @@
+package com.aad.microservice.customer_statistics_service.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ContractAggregate {
+    private Long customerId;        // Chỉ có giá trị khi nhóm theo khách hàng
+    private Integer status;         // Chỉ có giá trị khi nhóm theo trạng thái
+    private LocalDate periodStart;  // Ngày bắt đầu của kỳ, chỉ có giá trị khi nhóm theo kỳ
+    private Long contractCount;
+    private Double totalAmount;
+    private Double totalPaid;
+}
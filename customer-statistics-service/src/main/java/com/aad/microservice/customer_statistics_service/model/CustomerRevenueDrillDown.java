@@ -0,0 +1,27 @@
+package com.aad.microservice.customer_statistics_service.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Top khách hàng theo doanh thu kèm chuỗi doanh thu theo thời gian của từng khách hàng
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CustomerRevenueDrillDown {
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private String granularity;
+    private long totalCustomers;    // Số khách hàng có doanh thu trong khoảng thời gian
+
+    @Builder.Default
+    private List<CustomerRevenueSeries> customers = new ArrayList<>();
+}
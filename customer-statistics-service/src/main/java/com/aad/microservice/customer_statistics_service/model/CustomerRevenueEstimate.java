@@ -0,0 +1,19 @@
+package com.aad.microservice.customer_statistics_service.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Doanh thu ước lượng của một khách hàng nằm trong nhóm doanh thu lớn nhất.
+ * Doanh thu thực luôn nằm trong [lowerBound, upperBound].
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CustomerRevenueEstimate {
+    private Long customerId;
+    private long estimate;
+    private long lowerBound;
+    private long upperBound;
+}
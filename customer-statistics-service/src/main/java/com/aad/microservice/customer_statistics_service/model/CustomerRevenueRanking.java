@@ -0,0 +1,25 @@
+package com.aad.microservice.customer_statistics_service.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Một trang của bảng xếp hạng khách hàng theo doanh thu
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CustomerRevenueRanking {
+    @Builder.Default
+    private List<CustomerRevenue> content = new ArrayList<>();
+    private int offset;
+    private int limit;
+    private long totalCustomers;    // Số khách hàng có doanh thu thỏa mãn minRevenue
+    private boolean hasNext;
+}
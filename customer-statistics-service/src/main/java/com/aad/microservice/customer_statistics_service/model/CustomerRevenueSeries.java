@@ -0,0 +1,25 @@
+package com.aad.microservice.customer_statistics_service.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Doanh thu của một khách hàng: tổng trong khoảng thời gian và chuỗi theo từng bucket
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CustomerRevenueSeries {
+    private CustomerRevenue customer;
+    private Long invoiceCount;
+
+    // Đủ mọi bucket trong khoảng thời gian, bucket không có hóa đơn có doanh thu 0
+    @Builder.Default
+    private List<TimeBasedRevenue> series = new ArrayList<>();
+}
@@ -0,0 +1,48 @@
+package com.aad.microservice.customer_statistics_service.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Bảng tổng hợp doanh thu theo ngày và theo khách hàng (day-bucket rollup).
+ * Mỗi dòng là tổng tiền và số hóa đơn của một khách hàng trong một ngày.
+ */
+@Entity
+@Table(name = "daily_revenue_rollups",
+        uniqueConstraints = @UniqueConstraint(name = "uk_daily_revenue_rollups_day_customer",
+                columnNames = {"bucket_date", "customer_id"}),
+        indexes = @Index(name = "idx_daily_revenue_rollups_bucket_date", columnList = "bucket_date"))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DailyRevenueRollup {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "bucket_date", nullable = false)
+    private LocalDate bucketDate;
+
+    @Column(name = "customer_id")
+    private Long customerId;
+
+    @Column(name = "total_revenue", nullable = false)
+    private Double totalRevenue;
+
+    @Column(name = "invoice_count", nullable = false)
+    private Integer invoiceCount;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    protected void onSave() {
+        updatedAt = LocalDateTime.now();
+    }
+}
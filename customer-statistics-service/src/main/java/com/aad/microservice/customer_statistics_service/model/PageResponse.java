@@ -0,0 +1,21 @@
+package com.aad.microservice.customer_statistics_service.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Một trang dữ liệu trả về từ các API có phân trang của các service khác
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PageResponse<T> {
+    private List<T> content = new ArrayList<>();
+    private int page;
+    private int size;
+    private boolean hasNext;
+}
@@ -0,0 +1,14 @@
+package com.aad.microservice.customer_statistics_service.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaymentAllocation {
+    private Long id;
+    private Long contractId;
+    private Double allocatedAmount;
+}
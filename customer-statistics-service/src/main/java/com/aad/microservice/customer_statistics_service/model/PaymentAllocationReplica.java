@@ -0,0 +1,29 @@
+package com.aad.microservice.customer_statistics_service.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Bản sao cục bộ của khoản phân bổ hóa đơn cho hợp đồng (contract_payments).
+ */
+@Entity
+@Table(name = "payment_allocation_replicas",
+        indexes = @Index(name = "idx_payment_allocation_replicas_payment_id", columnList = "payment_id"))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PaymentAllocationReplica {
+    @Id
+    private Long id;
+
+    @Column(name = "payment_id", nullable = false)
+    private Long paymentId;
+
+    @Column(name = "contract_id", nullable = false)
+    private Long contractId;
+
+    @Column(name = "allocated_amount", nullable = false)
+    private Double allocatedAmount;
+}
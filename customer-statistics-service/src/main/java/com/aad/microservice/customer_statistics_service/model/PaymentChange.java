@@ -0,0 +1,26 @@
+package com.aad.microservice.customer_statistics_service.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaymentChange {
+    private Long id;
+    private LocalDateTime paymentDate;
+    private Integer paymentMethod;
+    private Double paymentAmount;
+    private String note;
+    private Long customerContractId;
+    private Long customerId;
+    private Boolean isDeleted;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+    private List<PaymentAllocation> allocations = new ArrayList<>();
+}
@@ -0,0 +1,51 @@
+package com.aad.microservice.customer_statistics_service.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Bản sao cục bộ của hóa đơn, được cập nhật từ change feed của customer-payment-service.
+ * ID trùng với ID hóa đơn gốc. Hóa đơn đã xóa mềm vẫn được giữ lại với isDeleted = true.
+ */
+@Entity
+@Table(name = "payment_replicas", indexes = {
+        @Index(name = "idx_payment_replicas_payment_date", columnList = "payment_date"),
+        @Index(name = "idx_payment_replicas_customer_payment_date", columnList = "customer_id, payment_date")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PaymentReplica {
+    @Id
+    private Long id;
+
+    @Column(name = "payment_date")
+    private LocalDateTime paymentDate;
+
+    @Column(name = "payment_method")
+    private Integer paymentMethod;
+
+    @Column(name = "payment_amount")
+    private Double paymentAmount;
+
+    private String note;
+
+    @Column(name = "customer_contract_id")
+    private Long customerContractId;
+
+    @Column(name = "customer_id")
+    private Long customerId;
+
+    @Column(name = "is_deleted")
+    private Boolean isDeleted;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,389 @@
+package com.aad.microservice.customer_statistics_service.model;
+
+import com.aad.microservice.customer_statistics_service.constant.RevenueGranularityConstants;
+import com.aad.microservice.customer_statistics_service.util.LongDoubleHashMap;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Bản chụp hóa đơn dạng cột trong bộ nhớ: ba mảng song song (ngày, khách hàng, số tiền) sắp xếp theo ngày.
+ * Mỗi hóa đơn chỉ tốn 24 byte, khoảng thời gian được tìm bằng tìm kiếm nhị phân rồi cộng trong vòng lặp trên mảng nguyên thủy.
+ * Đối tượng không thay đổi sau khi tạo nên có thể đọc đồng thời từ nhiều luồng.
+ */
+public final class PaymentSnapshot {
+
+    // Giá trị customerId cho hóa đơn không có khách hàng
+    public static final long NO_CUSTOMER = Long.MIN_VALUE;
+
+    private final long[] epochDays;
+    private final long[] customerIds;
+    private final double[] amounts;
+    private final int size;
+    private final LocalDateTime builtAt;
+
+    private PaymentSnapshot(long[] epochDays, long[] customerIds, double[] amounts, int size) {
+        this.epochDays = epochDays;
+        this.customerIds = customerIds;
+        this.amounts = amounts;
+        this.size = size;
+        this.builtAt = LocalDateTime.now();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public LocalDateTime getBuiltAt() {
+        return builtAt;
+    }
+
+    // Vị trí đầu tiên có ngày >= epochDay
+    private int lowerBound(long epochDay) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (epochDays[mid] < epochDay) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Tổng doanh thu và số hóa đơn theo bucket trong khoảng thời gian.
+     * Vì dữ liệu đã sắp xếp theo ngày, mỗi bucket là một đoạn liên tiếp của mảng: tìm điểm kết thúc bằng
+     * tìm kiếm nhị phân, số hóa đơn là độ dài đoạn, tổng tiền là vòng lặp cộng trên double[].
+     */
+    public List<RevenueBucket> sumByBucket(LocalDate startDate, LocalDate endDate, String granularity) {
+        int from = lowerBound(startDate.toEpochDay());
+        int to = lowerBound(endDate.toEpochDay() + 1);
+
+        List<RevenueBucket> buckets = new ArrayList<>();
+        int index = from;
+        while (index < to) {
+            LocalDate bucketStart = bucketStart(LocalDate.ofEpochDay(epochDays[index]), granularity);
+            int bucketEnd = Math.min(lowerBound(nextBucketStart(bucketStart, granularity).toEpochDay()), to);
+
+            double total = 0.0;
+            for (int i = index; i < bucketEnd; i++) {
+                total += amounts[i];
+            }
+
+            buckets.add(new RevenueBucket(bucketStart, null, total, (long) (bucketEnd - index)));
+            index = bucketEnd;
+        }
+        return buckets;
+    }
+
+    // Số hóa đơn trong khoảng thời gian, dùng để chọn giữa tổng hợp tuần tự và song song
+    public int countInRange(LocalDate startDate, LocalDate endDate) {
+        return lowerBound(endDate.toEpochDay() + 1) - lowerBound(startDate.toEpochDay());
+    }
+
+    /**
+     * Giống sumByBucket nhưng chia đoạn hóa đơn trong khoảng thời gian cho ForkJoinPool.
+     * Mỗi lá cộng vào mảng tích lũy nguyên thủy riêng chỉ bao các bucket của đoạn mình xử lý,
+     * sau đó các mảng được gộp lại theo cây fork-join. Chỉ có lợi khi khoảng thời gian chứa rất nhiều hóa đơn.
+     */
+    public List<RevenueBucket> sumByBucketParallel(LocalDate startDate, LocalDate endDate, String granularity,
+                                                   ForkJoinPool pool, int leafSize) {
+        int from = lowerBound(startDate.toEpochDay());
+        int to = lowerBound(endDate.toEpochDay() + 1);
+        if (from >= to) {
+            return new ArrayList<>();
+        }
+
+        long[] boundaries = bucketBoundaries(LocalDate.ofEpochDay(epochDays[from]),
+                LocalDate.ofEpochDay(epochDays[to - 1]), granularity);
+        BucketAccumulator accumulator = pool.invoke(new BucketSumTask(boundaries, from, to, Math.max(leafSize, 1)));
+
+        List<RevenueBucket> buckets = new ArrayList<>();
+        for (int i = 0; i < accumulator.counts.length; i++) {
+            if (accumulator.counts[i] > 0) {
+                LocalDate bucketStart = LocalDate.ofEpochDay(boundaries[accumulator.firstBucket + i]);
+                buckets.add(new RevenueBucket(bucketStart, null, accumulator.totals[i], accumulator.counts[i]));
+            }
+        }
+        return buckets;
+    }
+
+    // Ngày bắt đầu (epoch day) của các bucket từ firstDate đến lastDate, phần tử cuối là ngày bắt đầu của bucket kế tiếp
+    private static long[] bucketBoundaries(LocalDate firstDate, LocalDate lastDate, String granularity) {
+        List<LocalDate> starts = new ArrayList<>();
+        LocalDate bucketStart = bucketStart(firstDate, granularity);
+        while (!bucketStart.isAfter(lastDate)) {
+            starts.add(bucketStart);
+            bucketStart = nextBucketStart(bucketStart, granularity);
+        }
+        starts.add(bucketStart);
+
+        long[] boundaries = new long[starts.size()];
+        for (int i = 0; i < boundaries.length; i++) {
+            boundaries[i] = starts.get(i).toEpochDay();
+        }
+        return boundaries;
+    }
+
+    // Vị trí bucket chứa epochDay: phần tử cuối cùng của boundaries <= epochDay
+    private static int bucketIndex(long[] boundaries, long epochDay) {
+        int low = 0;
+        int high = boundaries.length - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (boundaries[mid] <= epochDay) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    // Tổng tiền và số hóa đơn của các bucket liên tiếp bắt đầu từ firstBucket
+    private static final class BucketAccumulator {
+        private final int firstBucket;
+        private final double[] totals;
+        private final long[] counts;
+
+        private BucketAccumulator(int firstBucket, int bucketCount) {
+            this.firstBucket = firstBucket;
+            this.totals = new double[bucketCount];
+            this.counts = new long[bucketCount];
+        }
+
+        // Hai đoạn liên tiếp nên vùng bucket chỉ có thể chồng nhau ở bucket giáp ranh
+        private static BucketAccumulator merge(BucketAccumulator left, BucketAccumulator right) {
+            int lastBucket = right.firstBucket + right.counts.length;
+            BucketAccumulator merged = new BucketAccumulator(left.firstBucket, lastBucket - left.firstBucket);
+            System.arraycopy(left.totals, 0, merged.totals, 0, left.totals.length);
+            System.arraycopy(left.counts, 0, merged.counts, 0, left.counts.length);
+
+            int offset = right.firstBucket - left.firstBucket;
+            for (int i = 0; i < right.counts.length; i++) {
+                merged.totals[offset + i] += right.totals[i];
+                merged.counts[offset + i] += right.counts[i];
+            }
+            return merged;
+        }
+    }
+
+    private final class BucketSumTask extends RecursiveTask<BucketAccumulator> {
+        private final long[] boundaries;
+        private final int from;
+        private final int to;
+        private final int leafSize;
+
+        private BucketSumTask(long[] boundaries, int from, int to, int leafSize) {
+            this.boundaries = boundaries;
+            this.from = from;
+            this.to = to;
+            this.leafSize = leafSize;
+        }
+
+        @Override
+        protected BucketAccumulator compute() {
+            if (to - from <= leafSize) {
+                return sumLeaf();
+            }
+            int mid = (from + to) >>> 1;
+            BucketSumTask left = new BucketSumTask(boundaries, from, mid, leafSize);
+            BucketSumTask right = new BucketSumTask(boundaries, mid, to, leafSize);
+            left.fork();
+            BucketAccumulator rightResult = right.compute();
+            return BucketAccumulator.merge(left.join(), rightResult);
+        }
+
+        private BucketAccumulator sumLeaf() {
+            int bucket = bucketIndex(boundaries, epochDays[from]);
+            int lastBucket = bucketIndex(boundaries, epochDays[to - 1]);
+            BucketAccumulator accumulator = new BucketAccumulator(bucket, lastBucket - bucket + 1);
+
+            long nextBoundary = boundaries[bucket + 1];
+            for (int i = from; i < to; i++) {
+                while (epochDays[i] >= nextBoundary) {
+                    bucket++;
+                    nextBoundary = boundaries[bucket + 1];
+                }
+                accumulator.totals[bucket - accumulator.firstBucket] += amounts[i];
+                accumulator.counts[bucket - accumulator.firstBucket]++;
+            }
+            return accumulator;
+        }
+    }
+
+    // Tổng doanh thu theo khách hàng trong khoảng thời gian
+    public LongDoubleHashMap sumByCustomer(LocalDate startDate, LocalDate endDate) {
+        int from = lowerBound(startDate.toEpochDay());
+        int to = lowerBound(endDate.toEpochDay() + 1);
+
+        LongDoubleHashMap revenueByCustomer = new LongDoubleHashMap();
+        for (int i = from; i < to; i++) {
+            if (customerIds[i] != NO_CUSTOMER) {
+                revenueByCustomer.add(customerIds[i], amounts[i]);
+            }
+        }
+        return revenueByCustomer;
+    }
+
+    // Duyệt toàn bộ hóa đơn theo thứ tự ngày; customerId là NO_CUSTOMER nếu hóa đơn không có khách hàng
+    public void forEachPayment(Visitor visitor) {
+        for (int i = 0; i < size; i++) {
+            visitor.accept(epochDays[i], customerIds[i], amounts[i]);
+        }
+    }
+
+    // Duyệt hóa đơn trong khoảng thời gian theo thứ tự ngày, kể cả hóa đơn không có khách hàng
+    public void forEachPayment(LocalDate startDate, LocalDate endDate, Visitor visitor) {
+        int from = lowerBound(startDate.toEpochDay());
+        int to = lowerBound(endDate.toEpochDay() + 1);
+        for (int i = from; i < to; i++) {
+            visitor.accept(epochDays[i], customerIds[i], amounts[i]);
+        }
+    }
+
+    // Duyệt các hóa đơn có khách hàng trong khoảng thời gian theo thứ tự ngày
+    public void forEachCustomerPayment(LocalDate startDate, LocalDate endDate, Visitor visitor) {
+        int from = lowerBound(startDate.toEpochDay());
+        int to = lowerBound(endDate.toEpochDay() + 1);
+        for (int i = from; i < to; i++) {
+            if (customerIds[i] != NO_CUSTOMER) {
+                visitor.accept(epochDays[i], customerIds[i], amounts[i]);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    public interface Visitor {
+        void accept(long epochDay, long customerId, double amount);
+    }
+
+    private static LocalDate bucketStart(LocalDate date, String granularity) {
+        switch (granularity) {
+            case RevenueGranularityConstants.WEEK:
+                return date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            case RevenueGranularityConstants.MONTH:
+                return date.withDayOfMonth(1);
+            case RevenueGranularityConstants.YEAR:
+                return date.withDayOfYear(1);
+            default:
+                return date;
+        }
+    }
+
+    private static LocalDate nextBucketStart(LocalDate bucketStart, String granularity) {
+        switch (granularity) {
+            case RevenueGranularityConstants.WEEK:
+                return bucketStart.plusWeeks(1);
+            case RevenueGranularityConstants.MONTH:
+                return bucketStart.plusMonths(1);
+            case RevenueGranularityConstants.YEAR:
+                return bucketStart.plusYears(1);
+            default:
+                return bucketStart.plusDays(1);
+        }
+    }
+
+    /**
+     * Snapshot mới trong đó hóa đơn của các ngày trong days được thay bằng hóa đơn của replacement
+     * (chỉ chứa hóa đơn thuộc các ngày đó). Các đoạn không đổi được chép nguyên khối bằng System.arraycopy,
+     * nên cập nhật vài ngày không phải đọc lại toàn bộ lịch sử hóa đơn.
+     */
+    public PaymentSnapshot replaceDays(Collection<LocalDate> days, PaymentSnapshot replacement) {
+        long[] sortedDays = days.stream().mapToLong(LocalDate::toEpochDay).sorted().distinct().toArray();
+
+        int removed = 0;
+        for (long day : sortedDays) {
+            removed += lowerBound(day + 1) - lowerBound(day);
+        }
+        int newSize = size - removed + replacement.size;
+        long[] newEpochDays = new long[newSize];
+        long[] newCustomerIds = new long[newSize];
+        double[] newAmounts = new double[newSize];
+
+        int source = 0;
+        int target = 0;
+        int replaced = 0;
+        for (long day : sortedDays) {
+            int dayStart = lowerBound(day);
+            target = copyRange(this, source, dayStart, newEpochDays, newCustomerIds, newAmounts, target);
+
+            int replacementStart = replacement.lowerBound(day);
+            int replacementEnd = replacement.lowerBound(day + 1);
+            if (replacementStart != replaced) {
+                throw new IllegalArgumentException("Snapshot thay thế chứa hóa đơn ngoài các ngày được làm mới");
+            }
+            target = copyRange(replacement, replacementStart, replacementEnd, newEpochDays, newCustomerIds, newAmounts, target);
+            replaced = replacementEnd;
+            source = lowerBound(day + 1);
+        }
+        if (replaced != replacement.size) {
+            throw new IllegalArgumentException("Snapshot thay thế chứa hóa đơn ngoài các ngày được làm mới");
+        }
+        copyRange(this, source, size, newEpochDays, newCustomerIds, newAmounts, target);
+
+        return new PaymentSnapshot(newEpochDays, newCustomerIds, newAmounts, newSize);
+    }
+
+    private static int copyRange(PaymentSnapshot from, int start, int end,
+                                 long[] epochDays, long[] customerIds, double[] amounts, int target) {
+        int length = end - start;
+        System.arraycopy(from.epochDays, start, epochDays, target, length);
+        System.arraycopy(from.customerIds, start, customerIds, target, length);
+        System.arraycopy(from.amounts, start, amounts, target, length);
+        return target + length;
+    }
+
+    /**
+     * Dựng snapshot từ các hóa đơn đã sắp xếp tăng dần theo ngày; mảng được nới gấp đôi khi đầy.
+     */
+    public static class Builder {
+        private long[] epochDays;
+        private long[] customerIds;
+        private double[] amounts;
+        private int size;
+        private long lastEpochDay = Long.MIN_VALUE;
+
+        public Builder(int initialCapacity) {
+            int capacity = Math.max(initialCapacity, 16);
+            this.epochDays = new long[capacity];
+            this.customerIds = new long[capacity];
+            this.amounts = new double[capacity];
+        }
+
+        public Builder add(LocalDate paymentDate, Long customerId, double amount) {
+            long epochDay = paymentDate.toEpochDay();
+            if (epochDay < lastEpochDay) {
+                throw new IllegalArgumentException("Hóa đơn phải được thêm theo thứ tự ngày tăng dần");
+            }
+            if (size == epochDays.length) {
+                int capacity = epochDays.length * 2;
+                epochDays = Arrays.copyOf(epochDays, capacity);
+                customerIds = Arrays.copyOf(customerIds, capacity);
+                amounts = Arrays.copyOf(amounts, capacity);
+            }
+            epochDays[size] = epochDay;
+            customerIds[size] = customerId != null ? customerId : NO_CUSTOMER;
+            amounts[size] = amount;
+            lastEpochDay = epochDay;
+            size++;
+            return this;
+        }
+
+        public PaymentSnapshot build() {
+            return new PaymentSnapshot(Arrays.copyOf(epochDays, size), Arrays.copyOf(customerIds, size),
+                    Arrays.copyOf(amounts, size), size);
+        }
+    }
+}
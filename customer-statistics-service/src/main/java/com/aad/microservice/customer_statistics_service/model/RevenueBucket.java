@@ -0,0 +1,17 @@
+package com.aad.microservice.customer_statistics_service.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RevenueBucket {
+    private LocalDate bucketDate;   // Ngày bắt đầu của bucket (ngày, thứ 2 của tuần, ngày 1 của tháng/năm)
+    private Long customerId;
+    private Double totalRevenue;
+    private Long invoiceCount;
+}
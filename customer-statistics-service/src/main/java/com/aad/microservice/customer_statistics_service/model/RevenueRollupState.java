@@ -0,0 +1,33 @@
+package com.aad.microservice.customer_statistics_service.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Trạng thái đồng bộ hóa đơn từ change feed của customer-payment-service.
+ * Cursor được lưu cùng transaction với bản sao hóa đơn và rollup, nên sau khi khởi động lại
+ * service tiếp tục từ cursor này thay vì tải lại toàn bộ.
+ */
+@Entity
+@Table(name = "revenue_rollup_states")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RevenueRollupState {
+    public static final String PAYMENTS = "payments";
+
+    @Id
+    @Column(name = "name", length = 50)
+    private String name;
+
+    @Column(name = "change_cursor", length = 512)
+    private String changeCursor;
+
+    // Thời điểm gần nhất đã đọc hết change feed; null khi chưa đồng bộ xong lần đầu
+    @Column(name = "synced_at")
+    private LocalDateTime syncedAt;
+}
@@ -0,0 +1,16 @@
+package com.aad.microservice.customer_statistics_service.model;
+
+import lombok.Value;
+
+import java.time.LocalDate;
+
+@Value
+public class StatisticsCacheKey {
+    String endpoint;        // revenue, daily, weekly, monthly, yearly
+    LocalDate startDate;
+    LocalDate endDate;
+
+    public boolean contains(LocalDate date) {
+        return !date.isBefore(startDate) && !date.isAfter(endDate);
+    }
+}
@@ -0,0 +1,30 @@
+package com.aad.microservice.customer_statistics_service.repository;
+
+import com.aad.microservice.customer_statistics_service.model.DailyRevenueRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+public interface DailyRevenueRollupRepository extends JpaRepository<DailyRevenueRollup, Long> {
+
+    List<DailyRevenueRollup> findByBucketDateIn(Collection<LocalDate> bucketDates);
+
+    // Tổng doanh thu theo khách hàng trong khoảng thời gian - trả về [customerId, tổng tiền]
+    @Query("SELECT r.customerId, SUM(r.totalRevenue) FROM DailyRevenueRollup r " +
+           "WHERE r.bucketDate BETWEEN :startDate AND :endDate AND r.customerId IS NOT NULL " +
+           "GROUP BY r.customerId")
+    List<Object[]> sumByCustomer(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+
+    // Tổng doanh thu theo bucket (date_trunc) trong khoảng thời gian - trả về [bucket, tổng tiền, số hóa đơn]
+    @Query(value = "SELECT CAST(date_trunc(:granularity, r.bucket_date) AS date) AS bucket, " +
+                   "SUM(r.total_revenue) AS total, SUM(r.invoice_count) AS cnt " +
+                   "FROM daily_revenue_rollups r WHERE r.bucket_date BETWEEN :startDate AND :endDate " +
+                   "GROUP BY 1 ORDER BY 1", nativeQuery = true)
+    List<Object[]> sumByBucket(@Param("granularity") String granularity,
+                               @Param("startDate") LocalDate startDate,
+                               @Param("endDate") LocalDate endDate);
+}
@@ -0,0 +1,16 @@
+package com.aad.microservice.customer_statistics_service.repository;
+
+import com.aad.microservice.customer_statistics_service.model.PaymentAllocationReplica;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+
+public interface PaymentAllocationReplicaRepository extends JpaRepository<PaymentAllocationReplica, Long> {
+
+    @Modifying
+    @Query("DELETE FROM PaymentAllocationReplica a WHERE a.paymentId IN :paymentIds")
+    int deleteByPaymentIdIn(@Param("paymentIds") Collection<Long> paymentIds);
+}
@@ -0,0 +1,34 @@
+package com.aad.microservice.customer_statistics_service.repository;
+
+import com.aad.microservice.customer_statistics_service.model.PaymentReplica;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+public interface PaymentReplicaRepository extends JpaRepository<PaymentReplica, Long> {
+
+    List<PaymentReplica> findByCustomerIdAndPaymentDateBetweenAndIsDeletedFalseOrderByPaymentDateDesc(
+            Long customerId, LocalDateTime startDate, LocalDateTime endDate);
+
+    // [paymentDate, customerId, paymentAmount] của các hóa đơn được tính doanh thu, sắp xếp theo ngày
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "1000"))
+    @Query("SELECT p.paymentDate, p.customerId, p.paymentAmount FROM PaymentReplica p " +
+           "WHERE (p.isDeleted IS NULL OR p.isDeleted = false) " +
+           "AND p.paymentDate IS NOT NULL AND p.paymentAmount IS NOT NULL " +
+           "ORDER BY p.paymentDate")
+    Stream<Object[]> streamCountedPayments();
+
+    // Như streamCountedPayments nhưng chỉ các hóa đơn có ngày trong [startDate, endDate), dùng khi làm mới snapshot theo ngày
+    @Query("SELECT p.paymentDate, p.customerId, p.paymentAmount FROM PaymentReplica p " +
+           "WHERE (p.isDeleted IS NULL OR p.isDeleted = false) " +
+           "AND p.paymentDate >= :startDate AND p.paymentDate < :endDate AND p.paymentAmount IS NOT NULL " +
+           "ORDER BY p.paymentDate")
+    List<Object[]> findCountedPaymentsBetween(@Param("startDate") LocalDateTime startDate,
+                                              @Param("endDate") LocalDateTime endDate);
+}
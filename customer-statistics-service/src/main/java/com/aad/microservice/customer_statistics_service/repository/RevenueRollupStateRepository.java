@@ -0,0 +1,7 @@
+package com.aad.microservice.customer_statistics_service.repository;
+
+import com.aad.microservice.customer_statistics_service.model.RevenueRollupState;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface RevenueRollupStateRepository extends JpaRepository<RevenueRollupState, String> {
+}
@@ -0,0 +1,38 @@
+package com.aad.microservice.customer_statistics_service.scheduler;
+
+import com.aad.microservice.customer_statistics_service.service.PaymentReplicaService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Giữ bản sao hóa đơn và bảng tổng hợp doanh thu theo ngày luôn được cập nhật:
+ * khi khởi động tiếp tục từ cursor đã lưu, sau đó định kỳ đọc các thay đổi mới từ change feed.
+ */
+@Component
+public class PaymentSyncScheduler {
+
+    @Autowired
+    private PaymentReplicaService paymentReplicaService;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialSync() {
+        sync();
+    }
+
+    @Scheduled(fixedDelayString = "${app.statistics.payment-sync.interval-ms:10000}",
+               initialDelayString = "${app.statistics.payment-sync.interval-ms:10000}")
+    public void scheduledSync() {
+        sync();
+    }
+
+    private void sync() {
+        try {
+            paymentReplicaService.syncChanges();
+        } catch (Exception e) {
+            System.err.println("Lỗi khi đồng bộ hóa đơn từ change feed: " + e.getMessage());
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package com.aad.microservice.customer_statistics_service.service;
 
 import com.aad.microservice.customer_statistics_service.model.CustomerRevenue;
+import com.aad.microservice.customer_statistics_service.model.CustomerRevenueDrillDown;
+import com.aad.microservice.customer_statistics_service.model.CustomerRevenueRanking;
 import com.aad.microservice.customer_statistics_service.model.CustomerPayment;
 import com.aad.microservice.customer_statistics_service.model.TimeBasedRevenue;
 
@@ -12,6 +14,14 @@ public interface CustomerStatisticsService {
 
     List<CustomerRevenue> getCustomerRevenueStatistics(LocalDate startDate, LocalDate endDate);
 
+    // Xếp hạng khách hàng theo doanh thu, chỉ lấy thông tin khách hàng cho trang [offset, offset + limit)
+    CustomerRevenueRanking getTopCustomerRevenue(LocalDate startDate, LocalDate endDate,
+                                                 int limit, int offset, Double minRevenue);
+
+    // Top khách hàng theo doanh thu kèm chuỗi doanh thu theo granularity, tính trong một lần duyệt hóa đơn
+    CustomerRevenueDrillDown getCustomerRevenueDrillDown(LocalDate startDate, LocalDate endDate,
+                                                         String granularity, int limit);
+
     List<CustomerPayment> getCustomerInvoices(Long customerId, LocalDate startDate, LocalDate endDate);
 
     List<TimeBasedRevenue> getDailyRevenueStatistics(LocalDate startDate, LocalDate endDate);
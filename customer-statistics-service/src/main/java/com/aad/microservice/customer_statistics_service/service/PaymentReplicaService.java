@@ -0,0 +1,18 @@
+package com.aad.microservice.customer_statistics_service.service;
+
+import com.aad.microservice.customer_statistics_service.model.CustomerPayment;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface PaymentReplicaService {
+
+    // Đọc change feed từ cursor đã lưu và áp dụng vào bản sao hóa đơn + rollup, trả về số thay đổi đã xử lý
+    int syncChanges();
+
+    // Bản sao đã đọc hết change feed ít nhất một lần - có thể trả lời thống kê mà không cần gọi service khác
+    boolean isReady();
+
+    // Hóa đơn của khách hàng trong khoảng thời gian từ bản sao cục bộ, mới nhất lên đầu
+    List<CustomerPayment> getCustomerInvoices(Long customerId, LocalDate startDate, LocalDate endDate);
+}
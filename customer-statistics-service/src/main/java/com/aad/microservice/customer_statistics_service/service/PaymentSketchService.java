@@ -0,0 +1,25 @@
+package com.aad.microservice.customer_statistics_service.service;
+
+import com.aad.microservice.customer_statistics_service.model.ApproximateRevenueStatistics;
+import com.aad.microservice.customer_statistics_service.model.PaymentSnapshot;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+public interface PaymentSketchService {
+
+    boolean isEnabled();
+
+    // Sketch đã được dựng ít nhất một lần
+    boolean isReady();
+
+    // Dựng lại sketch của các ngày đã thay đổi (và tháng chứa chúng); lần đầu thì dựng toàn bộ từ snapshot
+    void refresh(PaymentSnapshot snapshot, Collection<LocalDate> affectedDates);
+
+    ApproximateRevenueStatistics summarize(LocalDate startDate, LocalDate endDate, int topCustomers);
+
+    // Một kết quả cho mỗi bucket (ngày, tuần, tháng, năm) trong khoảng thời gian
+    List<ApproximateRevenueStatistics> summarizeByBucket(LocalDate startDate, LocalDate endDate,
+                                                         String granularity, int topCustomers);
+}
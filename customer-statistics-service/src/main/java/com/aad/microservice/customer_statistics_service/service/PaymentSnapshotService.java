@@ -0,0 +1,18 @@
+package com.aad.microservice.customer_statistics_service.service;
+
+import com.aad.microservice.customer_statistics_service.model.PaymentSnapshot;
+
+import java.time.LocalDate;
+import java.util.Collection;
+
+public interface PaymentSnapshotService {
+
+    // Dựng lại snapshot dạng cột từ bản sao hóa đơn cục bộ
+    void rebuild();
+
+    // Đọc lại hóa đơn của các ngày có thay đổi và ghép vào snapshot hiện tại; dựng lại toàn bộ nếu chưa có snapshot
+    void refreshDays(Collection<LocalDate> days);
+
+    // Snapshot hiện tại, null khi chưa dựng lần nào
+    PaymentSnapshot getSnapshot();
+}
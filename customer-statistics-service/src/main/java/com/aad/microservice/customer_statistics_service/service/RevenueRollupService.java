@@ -0,0 +1,24 @@
+package com.aad.microservice.customer_statistics_service.service;
+
+import com.aad.microservice.customer_statistics_service.model.DailyRevenueRollup;
+import com.aad.microservice.customer_statistics_service.model.RevenueBucket;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+public interface RevenueRollupService {
+
+    // Cộng các thay đổi (có thể âm khi hóa đơn bị xóa) vào bảng rollup theo (ngày, khách hàng)
+    void applyDeltas(Collection<DailyRevenueRollup> deltas);
+
+    // Xóa toàn bộ rollup để dựng lại từ đầu
+    void clear();
+
+    // Tổng doanh thu theo bucket (day, week, month, year) trong khoảng thời gian, sắp xếp tăng dần theo ngày
+    List<RevenueBucket> getRevenueBuckets(LocalDate startDate, LocalDate endDate, String granularity);
+
+    // Tổng doanh thu theo khách hàng trong khoảng thời gian
+    Map<Long, Double> getRevenueByCustomer(LocalDate startDate, LocalDate endDate);
+}
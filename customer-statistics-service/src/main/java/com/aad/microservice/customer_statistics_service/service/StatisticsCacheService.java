@@ -0,0 +1,15 @@
+package com.aad.microservice.customer_statistics_service.service;
+
+import java.time.LocalDate;
+import java.util.function.Supplier;
+
+public interface StatisticsCacheService {
+
+    // Lấy kết quả thống kê từ cache, nếu chưa có thì tính bằng loader rồi lưu lại
+    <T> T get(String endpoint, LocalDate startDate, LocalDate endDate, Supplier<T> loader);
+
+    // Xóa các kết quả có khoảng thời gian chứa ngày đã cho, trả về số kết quả bị xóa
+    int invalidate(LocalDate date);
+
+    void invalidateAll();
+}
@@ -3,32 +3,53 @@ package com.aad.microservice.customer_statistics_service.service.impl;
 import com.aad.microservice.customer_statistics_service.client.CustomerClient;
 import com.aad.microservice.customer_statistics_service.client.CustomerContractClient;
 import com.aad.microservice.customer_statistics_service.client.CustomerPaymentClient;
+import com.aad.microservice.customer_statistics_service.client.NdjsonStreamReader;
+import com.aad.microservice.customer_statistics_service.constant.RevenueGranularityConstants;
 import com.aad.microservice.customer_statistics_service.model.Customer;
-import com.aad.microservice.customer_statistics_service.model.CustomerContract;
+import com.aad.microservice.customer_statistics_service.model.ContractAggregate;
 import com.aad.microservice.customer_statistics_service.model.CustomerPayment;
 import com.aad.microservice.customer_statistics_service.model.CustomerRevenue;
+import com.aad.microservice.customer_statistics_service.model.CustomerRevenueDrillDown;
+import com.aad.microservice.customer_statistics_service.model.CustomerRevenueSeries;
+import com.aad.microservice.customer_statistics_service.model.CustomerRevenueRanking;
+import com.aad.microservice.customer_statistics_service.model.PageResponse;
+import com.aad.microservice.customer_statistics_service.model.PaymentSnapshot;
+import com.aad.microservice.customer_statistics_service.model.RevenueBucket;
 import com.aad.microservice.customer_statistics_service.model.TimeBasedRevenue;
 import com.aad.microservice.customer_statistics_service.service.CustomerStatisticsService;
+import com.aad.microservice.customer_statistics_service.service.PaymentReplicaService;
+import com.aad.microservice.customer_statistics_service.service.PaymentSnapshotService;
+import com.aad.microservice.customer_statistics_service.service.RevenueRollupService;
+import com.aad.microservice.customer_statistics_service.util.CustomerSeriesAccumulator;
+import com.aad.microservice.customer_statistics_service.util.LongDoubleHashMap;
+import com.aad.microservice.customer_statistics_service.util.TimeBuckets;
+import com.aad.microservice.customer_statistics_service.util.TopNSelector;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.time.DayOfWeek;
 import java.time.LocalDate;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.time.temporal.TemporalAdjusters;
-import java.time.temporal.WeekFields;
 import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
-import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.stream.Collectors;
 
 @Service
 public class CustomerStatisticsServiceImpl implements CustomerStatisticsService {
 
+    private static final int PAYMENT_PAGE_SIZE = 1000;
+    private static final int MAX_RANKING_LIMIT = 1000;
+    private static final int MAX_DRILL_DOWN_LIMIT = 100;
+    private static final String CONTRACT_GROUP_CUSTOMER = "customer";
+
     @Autowired
     private CustomerClient customerClient;
 
@@ -38,6 +59,35 @@ public class CustomerStatisticsServiceImpl implements CustomerStatisticsService
     @Autowired
     private CustomerPaymentClient paymentClient;
 
+    @Autowired
+    private RevenueRollupService revenueRollupService;
+
+    @Autowired
+    private PaymentReplicaService paymentReplicaService;
+
+    @Autowired
+    private PaymentSnapshotService paymentSnapshotService;
+
+    @Autowired
+    private NdjsonStreamReader ndjsonStreamReader;
+
+    @Autowired
+    @Qualifier("statisticsExecutor")
+    private Executor statisticsExecutor;
+
+    @Autowired
+    @Qualifier("statisticsForkJoinPool")
+    private ForkJoinPool statisticsForkJoinPool;
+
+    @Value("${app.statistics.fan-out.timeout-ms:10000}")
+    private long fanOutTimeoutMs;
+
+    @Value("${app.statistics.parallel.threshold-rows:500000}")
+    private int parallelThresholdRows;
+
+    @Value("${app.statistics.parallel.leaf-size:65536}")
+    private int parallelLeafSize;
+
     @Override
     public List<CustomerRevenue> getCustomerRevenueStatistics(LocalDate startDate, LocalDate endDate) {
         try {
@@ -50,93 +100,51 @@ public class CustomerStatisticsServiceImpl implements CustomerStatisticsService
                 throw new IllegalArgumentException("Ngày bắt đầu không thể sau ngày kết thúc");
             }
 
-            // Lấy danh sách tất cả khách hàng
-            List<Customer> customers;
-            try {
-                customers = customerClient.getAllCustomers();
-                System.out.println("Đã lấy " + customers.size() + " khách hàng từ customer-service");
-            } catch (Exception e) {
-                System.err.println("Lỗi khi lấy danh sách khách hàng: " + e.getMessage());
-                e.printStackTrace();
-                throw new RuntimeException("Không thể kết nối đến customer-service: " + e.getMessage());
-            }
+            // Gọi đồng thời ba service, mỗi lời gọi có thời gian chờ riêng
+            CompletableFuture<Map<Long, CustomerRevenue>> customersFuture = CompletableFuture
+                    .supplyAsync(this::streamCustomerRevenues, statisticsExecutor)
+                    .orTimeout(fanOutTimeoutMs, TimeUnit.MILLISECONDS);
 
-            // Lấy danh sách tất cả hợp đồng trong khoảng thời gian
-            List<CustomerContract> contracts;
-            try {
-                contracts = contractClient.getContractsByDateRange(startDate, endDate);
-                System.out.println("Đã lấy " + contracts.size() + " hợp đồng từ customer-contract-service");
-            } catch (Exception e) {
-                System.err.println("Lỗi khi lấy danh sách hợp đồng: " + e.getMessage());
-                e.printStackTrace();
-                contracts = new ArrayList<>();
-                System.out.println("Tiếp tục với danh sách hợp đồng trống");
-            }
+            CompletableFuture<List<ContractAggregate>> contractsFuture = getContractCountsAsync(startDate, endDate);
+
+            // Doanh thu theo khách hàng từ snapshot dạng cột; khi chưa đồng bộ xong thì cộng dồn từ stream hóa đơn
+            CompletableFuture<LongDoubleHashMap> revenueFuture = CompletableFuture
+                    .supplyAsync(() -> getRevenueByCustomer(startDate, endDate), statisticsExecutor)
+                    .orTimeout(fanOutTimeoutMs, TimeUnit.MILLISECONDS);
 
-            // Lấy danh sách tất cả hóa đơn
-            List<CustomerPayment> allPayments;
+            // Thông tin cơ bản của tất cả khách hàng
+            Map<Long, CustomerRevenue> customerRevenueMap;
             try {
-                allPayments = paymentClient.getAllPayments();
-                System.out.println("Đã lấy " + allPayments.size() + " hóa đơn từ customer-payment-service");
-            } catch (Exception e) {
-                System.err.println("Lỗi khi lấy danh sách hóa đơn: " + e.getMessage());
+                customerRevenueMap = customersFuture.join();
+                System.out.println("Đã lấy " + customerRevenueMap.size() + " khách hàng từ customer-service");
+            } catch (CompletionException e) {
+                System.err.println("Lỗi khi lấy danh sách khách hàng: " + getFanOutErrorMessage(e));
                 e.printStackTrace();
-                throw new RuntimeException("Không thể kết nối đến customer-payment-service: " + e.getMessage());
+                throw new RuntimeException("Không thể kết nối đến customer-service: " + getFanOutErrorMessage(e));
             }
 
-            // Lọc hóa đơn trong khoảng thời gian
-            List<CustomerPayment> payments = allPayments.stream()
-                    .filter(payment -> {
-                        LocalDateTime paymentDateTime = payment.getPaymentDate();
-                        LocalDate paymentDate = paymentDateTime != null ? paymentDateTime.toLocalDate() : null;
-                        return paymentDate != null &&
-                               !paymentDate.isBefore(startDate) &&
-                               !paymentDate.isAfter(endDate);
-                    })
-                    .collect(Collectors.toList());
-
-            System.out.println("Đã lọc " + payments.size() + " hóa đơn trong khoảng thời gian từ " +
-                              startDate + " đến " + endDate);
-
-            // Tạo map để lưu thông tin thống kê theo khách hàng
-            Map<Long, CustomerRevenue> customerRevenueMap = new HashMap<>();
+            // Số hợp đồng theo khách hàng trong khoảng thời gian (lỗi thì đã thay bằng danh sách trống)
+            List<ContractAggregate> contractCounts = contractsFuture.join();
+            System.out.println("Đã lấy số hợp đồng của " + contractCounts.size() + " khách hàng từ customer-contract-service");
 
-            // Khởi tạo thông tin cơ bản cho mỗi khách hàng
-            for (Customer customer : customers) {
-                CustomerRevenue revenue = new CustomerRevenue();
-                revenue.setId(customer.getId());
-                revenue.setFullName(customer.getFullName());
-                revenue.setCompanyName(customer.getCompanyName());
-                revenue.setPhoneNumber(customer.getPhoneNumber());
-                revenue.setEmail(customer.getEmail());
-                revenue.setAddress(customer.getAddress());
-                revenue.setIsDeleted(customer.getIsDeleted());
-                revenue.setCreatedAt(customer.getCreatedAt());
-                revenue.setUpdatedAt(customer.getUpdatedAt());
-                revenue.setContractCount(0);
-                revenue.setTotalRevenue(0.0);
-
-                customerRevenueMap.put(customer.getId(), revenue);
-            }
-
-            // Tính số lượng hợp đồng cho mỗi khách hàng
-            for (CustomerContract contract : contracts) {
-                Long customerId = contract.getCustomerId();
-                if (customerId != null && customerRevenueMap.containsKey(customerId)) {
-                    CustomerRevenue revenue = customerRevenueMap.get(customerId);
-                    revenue.setContractCount(revenue.getContractCount() + 1);
-                }
+            LongDoubleHashMap revenueByCustomer;
+            try {
+                revenueByCustomer = revenueFuture.join();
+            } catch (CompletionException e) {
+                System.err.println("Lỗi khi lấy danh sách hóa đơn: " + getFanOutErrorMessage(e));
+                throw new RuntimeException("Không thể kết nối đến customer-payment-service: " + getFanOutErrorMessage(e));
             }
 
-            // Tính tổng doanh thu cho mỗi khách hàng
-            for (CustomerPayment payment : payments) {
-                Long customerId = payment.getCustomerId();
-                Double paymentAmount = payment.getPaymentAmount();
-                if (customerId != null && customerRevenueMap.containsKey(customerId) && paymentAmount != null) {
-                    CustomerRevenue revenue = customerRevenueMap.get(customerId);
-                    revenue.setTotalRevenue(revenue.getTotalRevenue() + paymentAmount);
+            // Gán số lượng hợp đồng cho mỗi khách hàng
+            applyContractCounts(contractCounts, customerRevenueMap);
+
+            // Gán tổng doanh thu cho mỗi khách hàng
+            revenueByCustomer.forEach((customerId, totalRevenue) -> {
+                CustomerRevenue revenue = customerRevenueMap.get(customerId);
+                if (revenue != null) {
+                    revenue.setTotalRevenue(totalRevenue);
                 }
-            }
+            });
 
             // Chuyển map thành list và lọc những khách hàng có doanh thu > 0
             List<CustomerRevenue> result = customerRevenueMap.values().stream()
@@ -154,13 +162,10 @@ public class CustomerStatisticsServiceImpl implements CustomerStatisticsService
     }
 
     @Override
-    public List<CustomerPayment> getCustomerInvoices(Long customerId, LocalDate startDate, LocalDate endDate) {
+    public CustomerRevenueRanking getTopCustomerRevenue(LocalDate startDate, LocalDate endDate,
+                                                        int limit, int offset, Double minRevenue) {
         try {
             // Validate input parameters
-            if (customerId == null) {
-                throw new IllegalArgumentException("ID khách hàng không được để trống");
-            }
-
             if (startDate == null || endDate == null) {
                 throw new IllegalArgumentException("Ngày bắt đầu và ngày kết thúc không được để trống");
             }
@@ -169,88 +174,86 @@ public class CustomerStatisticsServiceImpl implements CustomerStatisticsService
                 throw new IllegalArgumentException("Ngày bắt đầu không thể sau ngày kết thúc");
             }
 
-            // Lấy danh sách hóa đơn của khách hàng
-            List<CustomerPayment> customerPayments;
-            try {
-                customerPayments = paymentClient.getPaymentsByCustomerId(customerId);
-                System.out.println("Đã lấy " + customerPayments.size() + " hóa đơn của khách hàng ID: " + customerId);
-            } catch (Exception e) {
-                System.err.println("Lỗi khi lấy danh sách hóa đơn của khách hàng: " + e.getMessage());
-                e.printStackTrace();
-                throw new RuntimeException("Không thể kết nối đến customer-payment-service: " + e.getMessage());
+            if (limit < 1 || limit > MAX_RANKING_LIMIT) {
+                throw new IllegalArgumentException("Số lượng khách hàng phải từ 1 đến " + MAX_RANKING_LIMIT);
             }
 
-            // Lọc hóa đơn trong khoảng thời gian
-            List<CustomerPayment> filteredPayments = customerPayments.stream()
-                    .filter(payment -> {
-                        LocalDateTime paymentDateTime = payment.getPaymentDate();
-                        LocalDate paymentDate = paymentDateTime != null ? paymentDateTime.toLocalDate() : null;
-                        return paymentDate != null &&
-                               !paymentDate.isBefore(startDate) &&
-                               !paymentDate.isAfter(endDate);
-                    })
-                    .collect(Collectors.toList());
+            if (offset < 0) {
+                throw new IllegalArgumentException("Vị trí bắt đầu không được âm");
+            }
 
-            System.out.println("Đã lọc " + filteredPayments.size() + " hóa đơn trong khoảng thời gian từ " +
-                              startDate + " đến " + endDate);
+            if (minRevenue != null && minRevenue < 0) {
+                throw new IllegalArgumentException("Doanh thu tối thiểu không được âm");
+            }
 
+            // Số hợp đồng trong khoảng thời gian được lấy song song với việc tính doanh thu
+            CompletableFuture<List<ContractAggregate>> contractsFuture = getContractCountsAsync(startDate, endDate);
 
-            // Sắp xếp hóa đơn theo ngày thanh toán giảm dần (mới nhất lên đầu)
-            filteredPayments.sort((p1, p2) -> {
-                if (p1.getPaymentDate() == null && p2.getPaymentDate() == null) return 0;
-                if (p1.getPaymentDate() == null) return 1;
-                if (p2.getPaymentDate() == null) return -1;
-                return p2.getPaymentDate().compareTo(p1.getPaymentDate());
-            });
+            LongDoubleHashMap revenueByCustomer = getRevenueByCustomer(startDate, endDate);
 
-            return filteredPayments;
-        } catch (Exception e) {
-            System.err.println("Lỗi khi lấy danh sách hóa đơn: " + e.getMessage());
-            e.printStackTrace();
-            throw new RuntimeException("Lỗi khi lấy danh sách hóa đơn: " + e.getMessage());
-        }
-    }
+            // Chỉ giữ offset + limit khách hàng tốt nhất trong heap, không sắp xếp toàn bộ
+            double threshold = minRevenue != null ? minRevenue : 0.0;
+            TopNSelector selector = new TopNSelector((int) Math.min((long) offset + limit, revenueByCustomer.size()));
+            revenueByCustomer.forEach((customerId, totalRevenue) -> {
+                if (totalRevenue > 0 && totalRevenue >= threshold) {
+                    selector.offer(customerId, totalRevenue);
+                }
+            });
+            long[] rankedIds = selector.drainKeysDescending();
 
+            List<Long> pageIds = new ArrayList<>();
+            for (int i = offset; i < rankedIds.length; i++) {
+                pageIds.add(rankedIds[i]);
+            }
 
-    private List<CustomerPayment> getAllPaymentsInDateRange(LocalDate startDate, LocalDate endDate) {
-        try {
-            // Lấy danh sách tất cả hóa đơn
-            List<CustomerPayment> allPayments;
-            try {
-                allPayments = paymentClient.getAllPayments();
-                System.out.println("Đã lấy " + allPayments.size() + " hóa đơn từ customer-payment-service");
-            } catch (Exception e) {
-                System.err.println("Lỗi khi lấy danh sách hóa đơn: " + e.getMessage());
-                e.printStackTrace();
-                throw new RuntimeException("Không thể kết nối đến customer-payment-service: " + e.getMessage());
+            // Thông tin khách hàng chỉ được lấy cho những khách hàng nằm trong trang kết quả
+            Map<Long, CustomerRevenue> customerRevenueMap = new HashMap<>();
+            if (!pageIds.isEmpty()) {
+                try {
+                    for (Customer customer : customerClient.getCustomersByIds(pageIds)) {
+                        customerRevenueMap.put(customer.getId(), toCustomerRevenue(customer));
+                    }
+                } catch (Exception e) {
+                    System.err.println("Lỗi khi lấy thông tin khách hàng: " + e.getMessage());
+                    throw new RuntimeException("Không thể kết nối đến customer-service: " + e.getMessage());
+                }
             }
 
-            // Lọc hóa đơn trong khoảng thời gian
-            List<CustomerPayment> filteredPayments = allPayments.stream()
-                    .filter(payment -> {
-                        LocalDateTime paymentDateTime = payment.getPaymentDate();
-                        LocalDate paymentDate = paymentDateTime != null ? paymentDateTime.toLocalDate() : null;
-                        return paymentDate != null &&
-                               !paymentDate.isBefore(startDate) &&
-                               !paymentDate.isAfter(endDate);
-                    })
-                    .collect(Collectors.toList());
+            applyContractCounts(contractsFuture.join(), customerRevenueMap);
 
-            System.out.println("Đã lọc " + filteredPayments.size() + " hóa đơn trong khoảng thời gian từ " +
-                              startDate + " đến " + endDate);
+            // Giữ đúng thứ tự xếp hạng; khách hàng đã bị xóa ở customer-service được bỏ qua
+            List<CustomerRevenue> content = new ArrayList<>();
+            for (Long customerId : pageIds) {
+                CustomerRevenue revenue = customerRevenueMap.get(customerId);
+                if (revenue != null) {
+                    revenue.setTotalRevenue(revenueByCustomer.get(customerId));
+                    content.add(revenue);
+                }
+            }
 
-            return filteredPayments;
+            System.out.println("Trả về " + content.size() + "/" + selector.getOffered() +
+                              " khách hàng có doanh thu (offset " + offset + ", limit " + limit + ")");
+            return CustomerRevenueRanking.builder()
+                    .content(content)
+                    .offset(offset)
+                    .limit(limit)
+                    .totalCustomers(selector.getOffered())
+                    .hasNext((long) offset + limit < selector.getOffered())
+                    .build();
+        } catch (IllegalArgumentException e) {
+            throw e;
         } catch (Exception e) {
-            System.err.println("Lỗi khi lấy danh sách hóa đơn: " + e.getMessage());
+            System.err.println("Lỗi khi lấy xếp hạng doanh thu khách hàng: " + e.getMessage());
             e.printStackTrace();
-            throw new RuntimeException("Lỗi khi lấy danh sách hóa đơn: " + e.getMessage());
+            throw new RuntimeException("Lỗi khi tính toán xếp hạng doanh thu: " + e.getMessage());
         }
     }
 
     @Override
-    public List<TimeBasedRevenue> getDailyRevenueStatistics(LocalDate startDate, LocalDate endDate) {
+    public CustomerRevenueDrillDown getCustomerRevenueDrillDown(LocalDate startDate, LocalDate endDate,
+                                                                String granularity, int limit) {
         try {
-            // Validate input dates
+            // Validate input parameters
             if (startDate == null || endDate == null) {
                 throw new IllegalArgumentException("Ngày bắt đầu và ngày kết thúc không được để trống");
             }
@@ -259,60 +262,101 @@ public class CustomerStatisticsServiceImpl implements CustomerStatisticsService
                 throw new IllegalArgumentException("Ngày bắt đầu không thể sau ngày kết thúc");
             }
 
-            // Lấy danh sách hóa đơn trong khoảng thời gian
-            List<CustomerPayment> payments = getAllPaymentsInDateRange(startDate, endDate);
-
-            // Tạo map để lưu thông tin thống kê theo ngày
-            Map<LocalDate, TimeBasedRevenue> dailyRevenueMap = new HashMap<>();
-
-            // Tạo các ngày trong khoảng thời gian
-            LocalDate currentDate = startDate;
-            DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+            if (!RevenueGranularityConstants.isValid(granularity)) {
+                throw new IllegalArgumentException("Granularity không hợp lệ: " + granularity);
+            }
 
-            while (!currentDate.isAfter(endDate)) {
-                TimeBasedRevenue dailyRevenue = new TimeBasedRevenue();
-                dailyRevenue.setDate(currentDate);
-                dailyRevenue.setLabel(currentDate.format(dateFormatter));
-                dailyRevenue.setTotalRevenue(0.0);
-                dailyRevenue.setInvoiceCount(0);
-                dailyRevenue.setPeriodType("daily");
+            if (limit < 1 || limit > MAX_DRILL_DOWN_LIMIT) {
+                throw new IllegalArgumentException("Số lượng khách hàng phải từ 1 đến " + MAX_DRILL_DOWN_LIMIT);
+            }
 
-                dailyRevenueMap.put(currentDate, dailyRevenue);
-                currentDate = currentDate.plusDays(1);
+            // Một lần duyệt hóa đơn trong khoảng thời gian cho cả tổng theo khách hàng và chuỗi theo bucket
+            CustomerSeriesAccumulator accumulator = new CustomerSeriesAccumulator(startDate, endDate, granularity);
+            PaymentSnapshot snapshot = paymentSnapshotService.getSnapshot();
+            if (snapshot != null) {
+                snapshot.forEachCustomerPayment(startDate, endDate, accumulator::accept);
+            } else {
+                ndjsonStreamReader.forEach(paymentClient.streamPayments(startDate, endDate), CustomerPayment.class, payment -> {
+                    if (payment.getCustomerId() != null && payment.getPaymentAmount() != null && payment.getPaymentDate() != null) {
+                        accumulator.accept(payment.getPaymentDate().toLocalDate().toEpochDay(),
+                                payment.getCustomerId(), payment.getPaymentAmount());
+                    }
+                });
             }
 
-            // Tính tổng doanh thu và số lượng hóa đơn cho mỗi ngày
-            for (CustomerPayment payment : payments) {
-                LocalDateTime paymentDateTime = payment.getPaymentDate();
-                if (paymentDateTime != null) {
-                    LocalDate paymentDate = paymentDateTime.toLocalDate();
-                    Double paymentAmount = payment.getPaymentAmount();
+            TopNSelector selector = new TopNSelector(Math.min(limit, accumulator.getCustomerTotals().size()));
+            accumulator.getCustomerTotals().forEach((customerId, totalRevenue) -> {
+                if (totalRevenue > 0) {
+                    selector.offer(customerId, totalRevenue);
+                }
+            });
+            long[] topCustomerIds = selector.drainKeysDescending();
 
-                    if (dailyRevenueMap.containsKey(paymentDate) && paymentAmount != null) {
-                        TimeBasedRevenue dailyRevenue = dailyRevenueMap.get(paymentDate);
-                        dailyRevenue.setTotalRevenue(dailyRevenue.getTotalRevenue() + paymentAmount);
-                        dailyRevenue.setInvoiceCount(dailyRevenue.getInvoiceCount() + 1);
+            // Thông tin khách hàng chỉ được lấy cho top khách hàng, trong một lời gọi
+            Map<Long, CustomerRevenue> customerRevenueMap = new HashMap<>();
+            if (topCustomerIds.length > 0) {
+                List<Long> ids = new ArrayList<>();
+                for (long customerId : topCustomerIds) {
+                    ids.add(customerId);
+                }
+                try {
+                    for (Customer customer : customerClient.getCustomersByIds(ids)) {
+                        customerRevenueMap.put(customer.getId(), toCustomerRevenue(customer));
                     }
+                } catch (Exception e) {
+                    System.err.println("Lỗi khi lấy thông tin khách hàng: " + e.getMessage());
+                    throw new RuntimeException("Không thể kết nối đến customer-service: " + e.getMessage());
                 }
             }
 
-            // Chuyển map thành list và sắp xếp theo ngày
-            List<TimeBasedRevenue> result = dailyRevenueMap.values().stream()
-                    .sorted(Comparator.comparing(TimeBasedRevenue::getDate))
-                    .collect(Collectors.toList());
+            List<CustomerRevenueSeries> customers = new ArrayList<>();
+            for (long customerId : topCustomerIds) {
+                CustomerRevenue revenue = customerRevenueMap.get(customerId);
+                if (revenue == null) {
+                    // Khách hàng đã bị xóa ở customer-service
+                    continue;
+                }
+                revenue.setTotalRevenue(accumulator.getCustomerTotals().get(customerId));
 
-            return result;
+                List<TimeBasedRevenue> series = new ArrayList<>(accumulator.getBucketCount());
+                for (int i = 0; i < accumulator.getBucketCount(); i++) {
+                    series.add(toTimeBasedRevenue(accumulator.getFirstKey() + i, granularity,
+                            accumulator.getBucketRevenue(customerId, i), accumulator.getBucketInvoiceCount(customerId, i)));
+                }
+
+                customers.add(CustomerRevenueSeries.builder()
+                        .customer(revenue)
+                        .invoiceCount(accumulator.getInvoiceCount(customerId))
+                        .series(series)
+                        .build());
+            }
+
+            System.out.println("Trả về chuỗi doanh thu (" + granularity + ") của " + customers.size() + "/" +
+                              selector.getOffered() + " khách hàng có doanh thu");
+            return CustomerRevenueDrillDown.builder()
+                    .startDate(startDate)
+                    .endDate(endDate)
+                    .granularity(granularity)
+                    .totalCustomers(selector.getOffered())
+                    .customers(customers)
+                    .build();
+        } catch (IllegalArgumentException e) {
+            throw e;
         } catch (Exception e) {
-            System.err.println("Lỗi khi lấy thống kê doanh thu theo ngày: " + e.getMessage());
+            System.err.println("Lỗi khi lấy chi tiết doanh thu khách hàng: " + e.getMessage());
             e.printStackTrace();
-            throw new RuntimeException("Lỗi khi tính toán thống kê doanh thu theo ngày: " + e.getMessage());
+            throw new RuntimeException("Lỗi khi tính toán chi tiết doanh thu khách hàng: " + e.getMessage());
         }
     }
 
     @Override
-    public List<TimeBasedRevenue> getWeeklyRevenueStatistics(LocalDate startDate, LocalDate endDate) {
+    public List<CustomerPayment> getCustomerInvoices(Long customerId, LocalDate startDate, LocalDate endDate) {
         try {
-            // Validate input dates
+            // Validate input parameters
+            if (customerId == null) {
+                throw new IllegalArgumentException("ID khách hàng không được để trống");
+            }
+
             if (startDate == null || endDate == null) {
                 throw new IllegalArgumentException("Ngày bắt đầu và ngày kết thúc không được để trống");
             }
@@ -321,76 +365,210 @@ public class CustomerStatisticsServiceImpl implements CustomerStatisticsService
                 throw new IllegalArgumentException("Ngày bắt đầu không thể sau ngày kết thúc");
             }
 
-            // Lấy danh sách hóa đơn trong khoảng thời gian
-            List<CustomerPayment> payments = getAllPaymentsInDateRange(startDate, endDate);
+            // Lấy danh sách hóa đơn của khách hàng trong khoảng thời gian
+            List<CustomerPayment> filteredPayments = paymentReplicaService.isReady()
+                    ? paymentReplicaService.getCustomerInvoices(customerId, startDate, endDate)
+                    : getPaymentsInDateRange(startDate, endDate, customerId);
 
-            // Điều chỉnh startDate về đầu tuần (thứ 2)
-            LocalDate adjustedStartDate = startDate.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            // Sắp xếp hóa đơn theo ngày thanh toán giảm dần (mới nhất lên đầu)
+            filteredPayments.sort((p1, p2) -> {
+                if (p1.getPaymentDate() == null && p2.getPaymentDate() == null) return 0;
+                if (p1.getPaymentDate() == null) return 1;
+                if (p2.getPaymentDate() == null) return -1;
+                return p2.getPaymentDate().compareTo(p1.getPaymentDate());
+            });
 
-            // Điều chỉnh endDate về cuối tuần (chủ nhật)
-            LocalDate adjustedEndDate = endDate.with(TemporalAdjusters.nextOrSame(DayOfWeek.SUNDAY));
+            return filteredPayments;
+        } catch (Exception e) {
+            System.err.println("Lỗi khi lấy danh sách hóa đơn: " + e.getMessage());
+            e.printStackTrace();
+            throw new RuntimeException("Lỗi khi lấy danh sách hóa đơn: " + e.getMessage());
+        }
+    }
 
-            // Tạo map để lưu thông tin thống kê theo tuần
-            Map<LocalDate, TimeBasedRevenue> weeklyRevenueMap = new HashMap<>();
 
-            // Tạo các tuần trong khoảng thời gian
-            LocalDate currentWeekStart = adjustedStartDate;
-            DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("dd/MM/yyyy");
-            WeekFields weekFields = WeekFields.of(Locale.getDefault());
+    private Map<Long, CustomerRevenue> streamCustomerRevenues() {
+        // Khởi tạo thông tin cơ bản cho mỗi khách hàng trong khi đọc stream
+        Map<Long, CustomerRevenue> customerRevenueMap = new HashMap<>();
+        ndjsonStreamReader.forEach(customerClient.streamAllCustomers(), Customer.class,
+                customer -> customerRevenueMap.put(customer.getId(), toCustomerRevenue(customer)));
+        return customerRevenueMap;
+    }
 
-            while (!currentWeekStart.isAfter(adjustedEndDate)) {
-                LocalDate weekEnd = currentWeekStart.plusDays(6); // Chủ nhật
+    private CustomerRevenue toCustomerRevenue(Customer customer) {
+        CustomerRevenue revenue = new CustomerRevenue();
+        revenue.setId(customer.getId());
+        revenue.setFullName(customer.getFullName());
+        revenue.setCompanyName(customer.getCompanyName());
+        revenue.setPhoneNumber(customer.getPhoneNumber());
+        revenue.setEmail(customer.getEmail());
+        revenue.setAddress(customer.getAddress());
+        revenue.setIsDeleted(customer.getIsDeleted());
+        revenue.setCreatedAt(customer.getCreatedAt());
+        revenue.setUpdatedAt(customer.getUpdatedAt());
+        revenue.setContractCount(0);
+        revenue.setTotalRevenue(0.0);
+        return revenue;
+    }
 
-                int weekNumber = currentWeekStart.get(weekFields.weekOfWeekBasedYear());
-                int year = currentWeekStart.getYear();
+    private LongDoubleHashMap streamRevenueByCustomer(LocalDate startDate, LocalDate endDate) {
+        // Chỉ giữ tổng doanh thu theo khách hàng, từng hóa đơn bị bỏ đi ngay sau khi cộng
+        LongDoubleHashMap revenueByCustomer = new LongDoubleHashMap();
+        long count = ndjsonStreamReader.forEach(paymentClient.streamPayments(startDate, endDate), CustomerPayment.class, payment -> {
+            if (payment.getCustomerId() != null && payment.getPaymentAmount() != null) {
+                revenueByCustomer.add(payment.getCustomerId(), payment.getPaymentAmount());
+            }
+        });
 
-                String label = String.format("Tuần %d (%s - %s)",
-                        weekNumber,
-                        currentWeekStart.format(dateFormatter),
-                        weekEnd.format(dateFormatter));
+        System.out.println("Đã đọc " + count + " hóa đơn trong khoảng thời gian từ " + startDate + " đến " + endDate);
+        return revenueByCustomer;
+    }
 
-                TimeBasedRevenue weeklyRevenue = new TimeBasedRevenue();
-                weeklyRevenue.setDate(currentWeekStart);
-                weeklyRevenue.setLabel(label);
-                weeklyRevenue.setTotalRevenue(0.0);
-                weeklyRevenue.setInvoiceCount(0);
-                weeklyRevenue.setPeriodType("weekly");
+    /**
+     * Số hợp đồng theo khách hàng được đếm bằng GROUP BY ở customer-contract-service,
+     * mỗi khách hàng chỉ trả về một dòng thay vì toàn bộ hợp đồng trong khoảng thời gian.
+     */
+    private CompletableFuture<List<ContractAggregate>> getContractCountsAsync(LocalDate startDate, LocalDate endDate) {
+        return CompletableFuture
+                .supplyAsync(() -> contractClient.getContractAggregates(
+                        startDate, endDate, List.of(CONTRACT_GROUP_CUSTOMER), null, null), statisticsExecutor)
+                .orTimeout(fanOutTimeoutMs, TimeUnit.MILLISECONDS)
+                .exceptionally(e -> {
+                    System.err.println("Lỗi khi lấy số lượng hợp đồng: " + getFanOutErrorMessage(e));
+                    System.out.println("Tiếp tục với số lượng hợp đồng bằng 0");
+                    return new ArrayList<>();
+                });
+    }
 
-                weeklyRevenueMap.put(currentWeekStart, weeklyRevenue);
-                currentWeekStart = currentWeekStart.plusWeeks(1);
+    private void applyContractCounts(List<ContractAggregate> contractCounts, Map<Long, CustomerRevenue> customerRevenueMap) {
+        for (ContractAggregate aggregate : contractCounts) {
+            CustomerRevenue revenue = aggregate.getCustomerId() != null ? customerRevenueMap.get(aggregate.getCustomerId()) : null;
+            if (revenue != null && aggregate.getContractCount() != null) {
+                revenue.setContractCount(aggregate.getContractCount().intValue());
             }
+        }
+    }
 
-            // Tính tổng doanh thu và số lượng hóa đơn cho mỗi tuần
-            for (CustomerPayment payment : payments) {
-                LocalDateTime paymentDateTime = payment.getPaymentDate();
-                if (paymentDateTime != null) {
-                    LocalDate paymentDate = paymentDateTime.toLocalDate();
-                    LocalDate weekStart = paymentDate.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
-                    Double paymentAmount = payment.getPaymentAmount();
+    private String getFanOutErrorMessage(Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        if (cause instanceof TimeoutException) {
+            return "Hết thời gian chờ sau " + fanOutTimeoutMs + " ms";
+        }
+        return cause.getMessage();
+    }
 
-                    if (weeklyRevenueMap.containsKey(weekStart) && paymentAmount != null) {
-                        TimeBasedRevenue weeklyRevenue = weeklyRevenueMap.get(weekStart);
-                        weeklyRevenue.setTotalRevenue(weeklyRevenue.getTotalRevenue() + paymentAmount);
-                        weeklyRevenue.setInvoiceCount(weeklyRevenue.getInvoiceCount() + 1);
-                    }
+    private List<CustomerPayment> getPaymentsInDateRange(LocalDate startDate, LocalDate endDate, Long customerId) {
+        List<CustomerPayment> payments = new ArrayList<>();
+        try {
+            // Duyệt lần lượt các trang, chỉ những hóa đơn trong khoảng thời gian được truyền qua mạng
+            int page = 0;
+            PageResponse<CustomerPayment> paymentPage;
+            do {
+                paymentPage = paymentClient.getPaymentsByDateRange(startDate, endDate, customerId, page, PAYMENT_PAGE_SIZE);
+                payments.addAll(paymentPage.getContent());
+                page++;
+            } while (paymentPage.isHasNext());
+        } catch (Exception e) {
+            System.err.println("Lỗi khi lấy danh sách hóa đơn: " + e.getMessage());
+            e.printStackTrace();
+            throw new RuntimeException("Không thể kết nối đến customer-payment-service: " + e.getMessage());
+        }
+
+        System.out.println("Đã lấy " + payments.size() + " hóa đơn" +
+                          (customerId != null ? " của khách hàng ID: " + customerId : "") +
+                          " trong khoảng thời gian từ " + startDate + " đến " + endDate);
+        return payments;
+    }
+
+    private LongDoubleHashMap getRevenueByCustomer(LocalDate startDate, LocalDate endDate) {
+        PaymentSnapshot snapshot = paymentSnapshotService.getSnapshot();
+        if (snapshot != null) {
+            return snapshot.sumByCustomer(startDate, endDate);
+        }
+        if (paymentReplicaService.isReady()) {
+            Map<Long, Double> rollupRevenue = revenueRollupService.getRevenueByCustomer(startDate, endDate);
+            LongDoubleHashMap revenueByCustomer = new LongDoubleHashMap(rollupRevenue.size());
+            rollupRevenue.forEach((customerId, totalRevenue) -> {
+                if (customerId != null) {
+                    revenueByCustomer.add(customerId, totalRevenue);
                 }
+            });
+            return revenueByCustomer;
+        }
+        return streamRevenueByCustomer(startDate, endDate);
+    }
+
+    private List<RevenueBucket> getRevenueBuckets(LocalDate startDate, LocalDate endDate, String granularity) {
+        List<RevenueBucket> buckets;
+        PaymentSnapshot snapshot = paymentSnapshotService.getSnapshot();
+        if (snapshot != null) {
+            // Snapshot dạng cột trong bộ nhớ: tìm kiếm nhị phân theo ngày rồi cộng trên mảng nguyên thủy.
+            // Chỉ chia cho fork-join khi khoảng thời gian đủ nhiều hóa đơn để bù chi phí chia và gộp.
+            int rowCount = snapshot.countInRange(startDate, endDate);
+            buckets = rowCount >= parallelThresholdRows
+                    ? snapshot.sumByBucketParallel(startDate, endDate, granularity, statisticsForkJoinPool, parallelLeafSize)
+                    : snapshot.sumByBucket(startDate, endDate, granularity);
+        } else if (paymentReplicaService.isReady()) {
+            // Snapshot chưa dựng xong - tính từ bảng rollup, không cần gọi service khác
+            buckets = revenueRollupService.getRevenueBuckets(startDate, endDate, granularity);
+        } else {
+            try {
+                // Chưa đồng bộ xong lần đầu: tổng hợp bằng GROUP BY phía customer-payment-service
+                buckets = paymentClient.getRevenueAggregate(startDate, endDate, granularity, null, false,
+                        RevenueGranularityConstants.SOURCE_PAYMENTS);
+            } catch (Exception e) {
+                System.err.println("Lỗi khi lấy tổng hợp doanh thu từ customer-payment-service: " + e.getMessage());
+                e.printStackTrace();
+                throw new RuntimeException("Không thể kết nối đến customer-payment-service: " + e.getMessage());
             }
+        }
 
-            // Chuyển map thành list và sắp xếp theo ngày bắt đầu tuần
-            List<TimeBasedRevenue> result = weeklyRevenueMap.values().stream()
-                    .sorted(Comparator.comparing(TimeBasedRevenue::getDate))
-                    .collect(Collectors.toList());
+        System.out.println("Đã lấy " + buckets.size() + " bucket doanh thu (" + granularity + ") trong khoảng thời gian từ " +
+                          startDate + " đến " + endDate);
 
-            return result;
-        } catch (Exception e) {
-            System.err.println("Lỗi khi lấy thống kê doanh thu theo tuần: " + e.getMessage());
-            e.printStackTrace();
-            throw new RuntimeException("Lỗi khi tính toán thống kê doanh thu theo tuần: " + e.getMessage());
+        return buckets;
+    }
+
+    /**
+     * Dựng chuỗi thống kê liên tục từ bucket đầu tiên đến bucket cuối cùng của khoảng thời gian.
+     * Mỗi bucket được đánh số bằng khóa nguyên của TimeBuckets nên doanh thu được cộng thẳng vào mảng
+     * theo chỉ số, không cần HashMap hay sắp xếp lại, và nhãn được lấy từ bảng DateLabels.
+     */
+    private List<TimeBasedRevenue> buildTimeSeries(LocalDate startDate, LocalDate endDate, String granularity) {
+        List<RevenueBucket> buckets = getRevenueBuckets(startDate, endDate, granularity);
+
+        long firstKey = TimeBuckets.key(startDate, granularity);
+        int bucketCount = (int) (TimeBuckets.key(endDate, granularity) - firstKey + 1);
+        double[] totals = new double[bucketCount];
+        long[] counts = new long[bucketCount];
+
+        for (RevenueBucket bucket : buckets) {
+            int index = (int) (TimeBuckets.key(bucket.getBucketDate(), granularity) - firstKey);
+            if (index >= 0 && index < bucketCount) {
+                totals[index] += bucket.getTotalRevenue() != null ? bucket.getTotalRevenue() : 0.0;
+                counts[index] += bucket.getInvoiceCount() != null ? bucket.getInvoiceCount() : 0;
+            }
+        }
+
+        List<TimeBasedRevenue> result = new ArrayList<>(bucketCount);
+        for (int i = 0; i < bucketCount; i++) {
+            result.add(toTimeBasedRevenue(firstKey + i, granularity, totals[i], counts[i]));
         }
+        return result;
+    }
+
+    private TimeBasedRevenue toTimeBasedRevenue(long bucketKey, String granularity, double totalRevenue, long invoiceCount) {
+        TimeBasedRevenue revenue = new TimeBasedRevenue();
+        revenue.setDate(TimeBuckets.startDate(bucketKey, granularity));
+        revenue.setLabel(TimeBuckets.label(bucketKey, granularity));
+        revenue.setTotalRevenue(totalRevenue);
+        revenue.setInvoiceCount((int) invoiceCount);
+        revenue.setPeriodType(TimeBuckets.periodType(granularity));
+        return revenue;
     }
 
     @Override
-    public List<TimeBasedRevenue> getMonthlyRevenueStatistics(LocalDate startDate, LocalDate endDate) {
+    public List<TimeBasedRevenue> getDailyRevenueStatistics(LocalDate startDate, LocalDate endDate) {
         try {
             // Validate input dates
             if (startDate == null || endDate == null) {
@@ -401,69 +579,50 @@ public class CustomerStatisticsServiceImpl implements CustomerStatisticsService
                 throw new IllegalArgumentException("Ngày bắt đầu không thể sau ngày kết thúc");
             }
 
-            // Lấy danh sách hóa đơn trong khoảng thời gian
-            List<CustomerPayment> payments = getAllPaymentsInDateRange(startDate, endDate);
-
-            // Điều chỉnh startDate về đầu tháng
-            LocalDate adjustedStartDate = startDate.withDayOfMonth(1);
-
-            // Điều chỉnh endDate về cuối tháng
-            LocalDate adjustedEndDate = endDate.withDayOfMonth(endDate.lengthOfMonth());
-
-            // Tạo map để lưu thông tin thống kê theo tháng
-            Map<String, TimeBasedRevenue> monthlyRevenueMap = new HashMap<>();
-
-            // Tạo các tháng trong khoảng thời gian
-            LocalDate currentMonth = adjustedStartDate;
-            DateTimeFormatter monthFormatter = DateTimeFormatter.ofPattern("MM/yyyy");
-            DateTimeFormatter monthNameFormatter = DateTimeFormatter.ofPattern("MMMM yyyy", new Locale("vi"));
-
-            while (!currentMonth.isAfter(adjustedEndDate)) {
-                String monthKey = currentMonth.format(monthFormatter);
-                String monthName = currentMonth.format(monthNameFormatter);
-
-                // Capitalize first letter of month name
-                monthName = monthName.substring(0, 1).toUpperCase() + monthName.substring(1);
-
-                TimeBasedRevenue monthlyRevenue = new TimeBasedRevenue();
-                monthlyRevenue.setDate(currentMonth);
-                monthlyRevenue.setLabel(monthName);
-                monthlyRevenue.setTotalRevenue(0.0);
-                monthlyRevenue.setInvoiceCount(0);
-                monthlyRevenue.setPeriodType("monthly");
+            // Các ngày trong khoảng thời gian, kể cả ngày không có doanh thu
+            return buildTimeSeries(startDate, endDate, RevenueGranularityConstants.DAY);
+        } catch (Exception e) {
+            System.err.println("Lỗi khi lấy thống kê doanh thu theo ngày: " + e.getMessage());
+            e.printStackTrace();
+            throw new RuntimeException("Lỗi khi tính toán thống kê doanh thu theo ngày: " + e.getMessage());
+        }
+    }
 
-                monthlyRevenueMap.put(monthKey, monthlyRevenue);
+    @Override
+    public List<TimeBasedRevenue> getWeeklyRevenueStatistics(LocalDate startDate, LocalDate endDate) {
+        try {
+            // Validate input dates
+            if (startDate == null || endDate == null) {
+                throw new IllegalArgumentException("Ngày bắt đầu và ngày kết thúc không được để trống");
+            }
 
-                // Chuyển sang tháng tiếp theo
-                if (currentMonth.getMonthValue() == 12) {
-                    currentMonth = LocalDate.of(currentMonth.getYear() + 1, 1, 1);
-                } else {
-                    currentMonth = LocalDate.of(currentMonth.getYear(), currentMonth.getMonthValue() + 1, 1);
-                }
+            if (startDate.isAfter(endDate)) {
+                throw new IllegalArgumentException("Ngày bắt đầu không thể sau ngày kết thúc");
             }
 
-            // Tính tổng doanh thu và số lượng hóa đơn cho mỗi tháng
-            for (CustomerPayment payment : payments) {
-                LocalDateTime paymentDateTime = payment.getPaymentDate();
-                if (paymentDateTime != null) {
-                    LocalDate paymentDate = paymentDateTime.toLocalDate();
-                    String monthKey = paymentDate.format(monthFormatter);
-                    Double paymentAmount = payment.getPaymentAmount();
+            // Các tuần trong khoảng thời gian, kể cả tuần không có doanh thu
+            return buildTimeSeries(startDate, endDate, RevenueGranularityConstants.WEEK);
+        } catch (Exception e) {
+            System.err.println("Lỗi khi lấy thống kê doanh thu theo tuần: " + e.getMessage());
+            e.printStackTrace();
+            throw new RuntimeException("Lỗi khi tính toán thống kê doanh thu theo tuần: " + e.getMessage());
+        }
+    }
 
-                    if (monthlyRevenueMap.containsKey(monthKey) && paymentAmount != null) {
-                        TimeBasedRevenue monthlyRevenue = monthlyRevenueMap.get(monthKey);
-                        monthlyRevenue.setTotalRevenue(monthlyRevenue.getTotalRevenue() + paymentAmount);
-                        monthlyRevenue.setInvoiceCount(monthlyRevenue.getInvoiceCount() + 1);
-                    }
-                }
+    @Override
+    public List<TimeBasedRevenue> getMonthlyRevenueStatistics(LocalDate startDate, LocalDate endDate) {
+        try {
+            // Validate input dates
+            if (startDate == null || endDate == null) {
+                throw new IllegalArgumentException("Ngày bắt đầu và ngày kết thúc không được để trống");
             }
 
-            // Chuyển map thành list và sắp xếp theo ngày
-            List<TimeBasedRevenue> result = monthlyRevenueMap.values().stream()
-                    .sorted(Comparator.comparing(TimeBasedRevenue::getDate))
-                    .collect(Collectors.toList());
+            if (startDate.isAfter(endDate)) {
+                throw new IllegalArgumentException("Ngày bắt đầu không thể sau ngày kết thúc");
+            }
 
-            return result;
+            // Các tháng trong khoảng thời gian, kể cả tháng không có doanh thu
+            return buildTimeSeries(startDate, endDate, RevenueGranularityConstants.MONTH);
         } catch (Exception e) {
             System.err.println("Lỗi khi lấy thống kê doanh thu theo tháng: " + e.getMessage());
             e.printStackTrace();
@@ -483,56 +642,8 @@ public class CustomerStatisticsServiceImpl implements CustomerStatisticsService
                 throw new IllegalArgumentException("Ngày bắt đầu không thể sau ngày kết thúc");
             }
 
-            // Lấy danh sách hóa đơn trong khoảng thời gian
-            List<CustomerPayment> payments = getAllPaymentsInDateRange(startDate, endDate);
-
-            // Điều chỉnh startDate về đầu năm
-            LocalDate adjustedStartDate = LocalDate.of(startDate.getYear(), 1, 1);
-
-            // Điều chỉnh endDate về cuối năm
-            LocalDate adjustedEndDate = LocalDate.of(endDate.getYear(), 12, 31);
-
-            // Tạo map để lưu thông tin thống kê theo năm
-            Map<Integer, TimeBasedRevenue> yearlyRevenueMap = new HashMap<>();
-
-            // Tạo các năm trong khoảng thời gian
-            int startYear = adjustedStartDate.getYear();
-            int endYear = adjustedEndDate.getYear();
-
-            for (int year = startYear; year <= endYear; year++) {
-                LocalDate yearDate = LocalDate.of(year, 1, 1);
-
-                TimeBasedRevenue yearlyRevenue = new TimeBasedRevenue();
-                yearlyRevenue.setDate(yearDate);
-                yearlyRevenue.setLabel("Năm " + year);
-                yearlyRevenue.setTotalRevenue(0.0);
-                yearlyRevenue.setInvoiceCount(0);
-                yearlyRevenue.setPeriodType("yearly");
-
-                yearlyRevenueMap.put(year, yearlyRevenue);
-            }
-
-            // Tính tổng doanh thu và số lượng hóa đơn cho mỗi năm
-            for (CustomerPayment payment : payments) {
-                LocalDateTime paymentDateTime = payment.getPaymentDate();
-                if (paymentDateTime != null) {
-                    int year = paymentDateTime.getYear();
-                    Double paymentAmount = payment.getPaymentAmount();
-
-                    if (yearlyRevenueMap.containsKey(year) && paymentAmount != null) {
-                        TimeBasedRevenue yearlyRevenue = yearlyRevenueMap.get(year);
-                        yearlyRevenue.setTotalRevenue(yearlyRevenue.getTotalRevenue() + paymentAmount);
-                        yearlyRevenue.setInvoiceCount(yearlyRevenue.getInvoiceCount() + 1);
-                    }
-                }
-            }
-
-            // Chuyển map thành list và sắp xếp theo năm
-            List<TimeBasedRevenue> result = yearlyRevenueMap.values().stream()
-                    .sorted(Comparator.comparing(TimeBasedRevenue::getDate))
-                    .collect(Collectors.toList());
-
-            return result;
+            // Các năm trong khoảng thời gian, kể cả năm không có doanh thu
+            return buildTimeSeries(startDate, endDate, RevenueGranularityConstants.YEAR);
         } catch (Exception e) {
             System.err.println("Lỗi khi lấy thống kê doanh thu theo năm: " + e.getMessage());
             e.printStackTrace();
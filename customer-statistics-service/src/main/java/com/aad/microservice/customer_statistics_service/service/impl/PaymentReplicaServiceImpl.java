@@ -0,0 +1,253 @@
+package com.aad.microservice.customer_statistics_service.service.impl;
+
+import com.aad.microservice.customer_statistics_service.client.CustomerPaymentClient;
+import com.aad.microservice.customer_statistics_service.model.CustomerPayment;
+import com.aad.microservice.customer_statistics_service.model.DailyRevenueRollup;
+import com.aad.microservice.customer_statistics_service.model.PaymentAllocation;
+import com.aad.microservice.customer_statistics_service.model.PaymentAllocationReplica;
+import com.aad.microservice.customer_statistics_service.model.PaymentChange;
+import com.aad.microservice.customer_statistics_service.model.PaymentChangePage;
+import com.aad.microservice.customer_statistics_service.model.PaymentReplica;
+import com.aad.microservice.customer_statistics_service.model.RevenueRollupState;
+import com.aad.microservice.customer_statistics_service.repository.PaymentAllocationReplicaRepository;
+import com.aad.microservice.customer_statistics_service.repository.PaymentReplicaRepository;
+import com.aad.microservice.customer_statistics_service.repository.RevenueRollupStateRepository;
+import com.aad.microservice.customer_statistics_service.service.PaymentReplicaService;
+import com.aad.microservice.customer_statistics_service.service.PaymentSketchService;
+import com.aad.microservice.customer_statistics_service.service.PaymentSnapshotService;
+import com.aad.microservice.customer_statistics_service.service.RevenueRollupService;
+import com.aad.microservice.customer_statistics_service.service.StatisticsCacheService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Service
+public class PaymentReplicaServiceImpl implements PaymentReplicaService {
+
+    @Autowired
+    private CustomerPaymentClient paymentClient;
+
+    @Autowired
+    private PaymentReplicaRepository replicaRepository;
+
+    @Autowired
+    private PaymentAllocationReplicaRepository allocationRepository;
+
+    @Autowired
+    private RevenueRollupStateRepository stateRepository;
+
+    @Autowired
+    private RevenueRollupService revenueRollupService;
+
+    @Autowired
+    private PaymentSnapshotService paymentSnapshotService;
+
+    @Autowired
+    private PaymentSketchService paymentSketchService;
+
+    @Autowired
+    private StatisticsCacheService statisticsCacheService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${app.statistics.payment-sync.page-size:500}")
+    private int pageSize;
+
+    @Value("${app.statistics.payment-sync.max-pages-per-run:200}")
+    private int maxPagesPerRun;
+
+    /**
+     * Mỗi trang của change feed được áp dụng trong một transaction riêng cùng với cursor,
+     * nên nếu bị dừng giữa chừng thì lần sau tiếp tục từ trang chưa áp dụng.
+     * Lời gọi HTTP nằm ngoài transaction để không giữ kết nối cơ sở dữ liệu khi chờ mạng.
+     */
+    @Override
+    public synchronized int syncChanges() {
+        int processed = 0;
+        Set<LocalDate> affectedDates = new HashSet<>();
+        // Lần chạy đầu tiên, hoặc bản sao đang được đồng bộ lại từ đầu (cursor null): snapshot phải dựng lại toàn bộ
+        boolean fullRebuild = paymentSnapshotService.getSnapshot() == null || !isReady();
+        try {
+            for (int page = 0; page < maxPagesPerRun; page++) {
+                RevenueRollupState state = stateRepository.findById(RevenueRollupState.PAYMENTS)
+                        .orElseGet(() -> RevenueRollupState.builder().name(RevenueRollupState.PAYMENTS).build());
+
+                PaymentChangePage changePage;
+                try {
+                    changePage = paymentClient.getPaymentChanges(state.getChangeCursor(), pageSize);
+                } catch (Exception e) {
+                    System.err.println("Lỗi khi đọc change feed hóa đơn: " + e.getMessage());
+                    throw new RuntimeException("Không thể kết nối đến customer-payment-service: " + e.getMessage());
+                }
+
+                affectedDates.addAll(transactionTemplate.execute(status -> applyPage(state, changePage)));
+                processed += changePage.getChanges().size();
+
+                if (!changePage.isHasMore()) {
+                    break;
+                }
+            }
+        } finally {
+            // Các trang đã áp dụng vẫn được đưa vào snapshot dù lần đồng bộ bị dừng giữa chừng;
+            // khi đã có snapshot thì chỉ đọc lại các ngày có thay đổi, giống cách sketch được làm mới
+            if (isReady()) {
+                if (fullRebuild) {
+                    paymentSnapshotService.rebuild();
+                    paymentSketchService.refresh(paymentSnapshotService.getSnapshot(), affectedDates);
+                } else if (!affectedDates.isEmpty()) {
+                    paymentSnapshotService.refreshDays(affectedDates);
+                    paymentSketchService.refresh(paymentSnapshotService.getSnapshot(), affectedDates);
+                }
+            }
+
+            // Xóa cache sau khi snapshot mới đã sẵn sàng, tránh cache lại kết quả tính từ snapshot cũ
+            affectedDates.forEach(statisticsCacheService::invalidate);
+        }
+
+        if (processed > 0) {
+            System.out.println("Đã đồng bộ " + processed + " thay đổi hóa đơn từ change feed");
+        }
+        return processed;
+    }
+
+    private Set<LocalDate> applyPage(RevenueRollupState state, PaymentChangePage changePage) {
+        if (state.getChangeCursor() == null) {
+            // Lần đồng bộ đầu tiên (hoặc rollup cũ dựng theo ID hóa đơn): dựng lại bản sao và rollup từ đầu
+            allocationRepository.deleteAllInBatch();
+            replicaRepository.deleteAllInBatch();
+            revenueRollupService.clear();
+            state.setSyncedAt(null);
+        }
+
+        List<PaymentChange> changes = changePage.getChanges();
+        Set<LocalDate> affectedDates = new HashSet<>();
+
+        if (!changes.isEmpty()) {
+            List<Long> paymentIds = changes.stream().map(PaymentChange::getId).collect(Collectors.toList());
+            Map<Long, PaymentReplica> replicas = replicaRepository.findAllById(paymentIds).stream()
+                    .collect(Collectors.toMap(PaymentReplica::getId, Function.identity()));
+
+            // Gom thay đổi doanh thu theo (ngày, khách hàng): trừ trạng thái cũ, cộng trạng thái mới
+            Map<LocalDate, Map<Long, DailyRevenueRollup>> deltas = new HashMap<>();
+            List<PaymentAllocationReplica> allocations = new ArrayList<>();
+
+            for (PaymentChange change : changes) {
+                PaymentReplica replica = replicas.get(change.getId());
+                if (replica != null && isCounted(replica.getIsDeleted(), replica.getPaymentDate(), replica.getPaymentAmount())) {
+                    LocalDate day = replica.getPaymentDate().toLocalDate();
+                    addDelta(deltas, day, replica.getCustomerId(), -replica.getPaymentAmount(), -1);
+                    affectedDates.add(day);
+                }
+                if (isCounted(change.getIsDeleted(), change.getPaymentDate(), change.getPaymentAmount())) {
+                    LocalDate day = change.getPaymentDate().toLocalDate();
+                    addDelta(deltas, day, change.getCustomerId(), change.getPaymentAmount(), 1);
+                    affectedDates.add(day);
+                }
+
+                if (replica == null) {
+                    replica = PaymentReplica.builder().id(change.getId()).build();
+                    replicas.put(change.getId(), replica);
+                }
+                replica.setPaymentDate(change.getPaymentDate());
+                replica.setPaymentMethod(change.getPaymentMethod());
+                replica.setPaymentAmount(change.getPaymentAmount());
+                replica.setNote(change.getNote());
+                replica.setCustomerContractId(change.getCustomerContractId());
+                replica.setCustomerId(change.getCustomerId());
+                replica.setIsDeleted(change.getIsDeleted());
+                replica.setCreatedAt(change.getCreatedAt());
+                replica.setUpdatedAt(change.getUpdatedAt());
+
+                if (change.getAllocations() != null) {
+                    for (PaymentAllocation allocation : change.getAllocations()) {
+                        allocations.add(PaymentAllocationReplica.builder()
+                                .id(allocation.getId())
+                                .paymentId(change.getId())
+                                .contractId(allocation.getContractId())
+                                .allocatedAmount(allocation.getAllocatedAmount())
+                                .build());
+                    }
+                }
+            }
+
+            replicaRepository.saveAll(replicas.values());
+            // Phân bổ luôn được thay thế toàn bộ theo trạng thái mới nhất của hóa đơn
+            allocationRepository.deleteByPaymentIdIn(paymentIds);
+            allocationRepository.saveAll(allocations);
+
+            List<DailyRevenueRollup> rollupDeltas = new ArrayList<>();
+            deltas.values().forEach(dayDeltas -> rollupDeltas.addAll(dayDeltas.values()));
+            revenueRollupService.applyDeltas(rollupDeltas);
+        }
+
+        state.setChangeCursor(changePage.getNextCursor());
+        if (!changePage.isHasMore()) {
+            state.setSyncedAt(LocalDateTime.now());
+        }
+        stateRepository.save(state);
+
+        return affectedDates;
+    }
+
+    private boolean isCounted(Boolean isDeleted, LocalDateTime paymentDate, Double paymentAmount) {
+        return !Boolean.TRUE.equals(isDeleted) && paymentDate != null && paymentAmount != null;
+    }
+
+    private void addDelta(Map<LocalDate, Map<Long, DailyRevenueRollup>> deltas,
+                          LocalDate day, Long customerId, double amount, int count) {
+        DailyRevenueRollup delta = deltas
+                .computeIfAbsent(day, d -> new HashMap<>())
+                .computeIfAbsent(customerId, id -> DailyRevenueRollup.builder()
+                        .bucketDate(day)
+                        .customerId(id)
+                        .totalRevenue(0.0)
+                        .invoiceCount(0)
+                        .build());
+        delta.setTotalRevenue(delta.getTotalRevenue() + amount);
+        delta.setInvoiceCount(delta.getInvoiceCount() + count);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public boolean isReady() {
+        return stateRepository.findById(RevenueRollupState.PAYMENTS)
+                .map(state -> state.getChangeCursor() != null && state.getSyncedAt() != null)
+                .orElse(false);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<CustomerPayment> getCustomerInvoices(Long customerId, LocalDate startDate, LocalDate endDate) {
+        return replicaRepository.findByCustomerIdAndPaymentDateBetweenAndIsDeletedFalseOrderByPaymentDateDesc(
+                        customerId, startDate.atStartOfDay(), endDate.atTime(LocalTime.MAX))
+                .stream()
+                .map(replica -> CustomerPayment.builder()
+                        .id(replica.getId())
+                        .paymentDate(replica.getPaymentDate())
+                        .paymentMethod(replica.getPaymentMethod())
+                        .paymentAmount(replica.getPaymentAmount())
+                        .note(replica.getNote())
+                        .customerContractId(replica.getCustomerContractId())
+                        .customerId(replica.getCustomerId())
+                        .isDeleted(replica.getIsDeleted())
+                        .createdAt(replica.getCreatedAt())
+                        .updatedAt(replica.getUpdatedAt())
+                        .build())
+                .collect(Collectors.toCollection(ArrayList::new));
+    }
+}
@@ -0,0 +1,262 @@
+package com.aad.microservice.customer_statistics_service.service.impl;
+
+import com.aad.microservice.customer_statistics_service.model.ApproximateRevenueStatistics;
+import com.aad.microservice.customer_statistics_service.model.ApproximateValue;
+import com.aad.microservice.customer_statistics_service.model.CustomerRevenueEstimate;
+import com.aad.microservice.customer_statistics_service.model.PaymentSnapshot;
+import com.aad.microservice.customer_statistics_service.service.PaymentSketchService;
+import com.aad.microservice.customer_statistics_service.util.DateLabels;
+import com.aad.microservice.customer_statistics_service.util.TimeBuckets;
+import org.apache.datasketches.frequencies.ErrorType;
+import org.apache.datasketches.frequencies.LongsSketch;
+import org.apache.datasketches.hll.HllSketch;
+import org.apache.datasketches.hll.Union;
+import org.apache.datasketches.kll.KllDoublesSketch;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Giữ sketch theo từng ngày và từng tháng: HyperLogLog cho số khách hàng, KLL cho phân phối số tiền hóa đơn,
+ * frequent items cho khách hàng doanh thu lớn. Truy vấn một khoảng thời gian chỉ gộp sketch của các tháng trọn vẹn
+ * và các ngày lẻ ở hai đầu, nên vài năm dữ liệu cũng chỉ cần gộp vài chục đến vài trăm sketch.
+ * Sketch đã công bố không bao giờ bị sửa, khi làm mới thì thay bằng sketch mới, nên đọc đồng thời không cần khóa.
+ */
+@Service
+public class PaymentSketchServiceImpl implements PaymentSketchService {
+
+    private static final double[] QUANTILE_RANKS = {0.0, 0.5, 0.9, 0.99, 1.0};
+    private static final String[] QUANTILE_NAMES = {"min", "p50", "p90", "p99", "max"};
+    // Cận dưới/trên của HLL ở 2 độ lệch chuẩn (~95%)
+    private static final int HLL_STANDARD_DEVIATIONS = 2;
+
+    @Value("${app.statistics.approximate.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.statistics.approximate.hll-lg-k:12}")
+    private int hllLgK;
+
+    @Value("${app.statistics.approximate.kll-k:200}")
+    private int kllK;
+
+    @Value("${app.statistics.approximate.heavy-hitters-map-size:64}")
+    private int heavyHittersMapSize;
+
+    private final Map<Long, PeriodSketch> daySketches = new ConcurrentHashMap<>();
+    private final Map<Integer, PeriodSketch> monthSketches = new ConcurrentHashMap<>();
+    private volatile boolean ready;
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public boolean isReady() {
+        return ready;
+    }
+
+    @Override
+    public synchronized void refresh(PaymentSnapshot snapshot, Collection<LocalDate> affectedDates) {
+        if (!enabled || snapshot == null) {
+            return;
+        }
+        long startTime = System.currentTimeMillis();
+
+        if (!ready) {
+            buildAll(snapshot);
+            ready = true;
+            System.out.println("Đã dựng sketch cho " + daySketches.size() + " ngày trong " +
+                              (System.currentTimeMillis() - startTime) + " ms");
+            return;
+        }
+
+        // HLL và KLL không hỗ trợ xóa phần tử, nên ngày có thay đổi được dựng lại từ snapshot
+        Set<Integer> affectedMonths = new HashSet<>();
+        for (LocalDate date : affectedDates) {
+            PeriodSketch daySketch = newSketch();
+            snapshot.forEachPayment(date, date, daySketch::update);
+            if (daySketch.invoiceCount > 0) {
+                daySketches.put(date.toEpochDay(), daySketch);
+            } else {
+                daySketches.remove(date.toEpochDay());
+            }
+            affectedMonths.add(DateLabels.monthIndex(date));
+        }
+        affectedMonths.forEach(this::rebuildMonth);
+
+        if (!affectedDates.isEmpty()) {
+            System.out.println("Đã làm mới sketch của " + affectedDates.size() + " ngày trong " +
+                              (System.currentTimeMillis() - startTime) + " ms");
+        }
+    }
+
+    private void buildAll(PaymentSnapshot snapshot) {
+        daySketches.clear();
+        monthSketches.clear();
+
+        Map<Long, PeriodSketch> built = new HashMap<>();
+        snapshot.forEachPayment((epochDay, customerId, amount) ->
+                built.computeIfAbsent(epochDay, day -> newSketch()).update(epochDay, customerId, amount));
+        daySketches.putAll(built);
+
+        Set<Integer> months = new HashSet<>();
+        built.keySet().forEach(epochDay -> months.add(DateLabels.monthIndex(LocalDate.ofEpochDay(epochDay))));
+        months.forEach(this::rebuildMonth);
+    }
+
+    private void rebuildMonth(int monthIndex) {
+        LocalDate monthStart = DateLabels.monthStart(monthIndex);
+        PeriodMerge merge = new PeriodMerge();
+        for (LocalDate date = monthStart; date.getMonthValue() == monthStart.getMonthValue(); date = date.plusDays(1)) {
+            merge.add(daySketches.get(date.toEpochDay()));
+        }
+        if (merge.invoiceCount > 0) {
+            monthSketches.put(monthIndex, merge.toSketch());
+        } else {
+            monthSketches.remove(monthIndex);
+        }
+    }
+
+    @Override
+    public ApproximateRevenueStatistics summarize(LocalDate startDate, LocalDate endDate, int topCustomers) {
+        ApproximateRevenueStatistics statistics = merge(startDate, endDate).toStatistics(topCustomers);
+        statistics.setStartDate(startDate);
+        statistics.setEndDate(endDate);
+        return statistics;
+    }
+
+    @Override
+    public List<ApproximateRevenueStatistics> summarizeByBucket(LocalDate startDate, LocalDate endDate,
+                                                                String granularity, int topCustomers) {
+        List<ApproximateRevenueStatistics> result = new ArrayList<>();
+        long firstKey = TimeBuckets.key(startDate, granularity);
+        long lastKey = TimeBuckets.key(endDate, granularity);
+        for (long key = firstKey; key <= lastKey; key++) {
+            // Bucket đầu và cuối bị cắt theo khoảng thời gian yêu cầu
+            LocalDate bucketStart = TimeBuckets.startDate(key, granularity);
+            LocalDate bucketEnd = TimeBuckets.startDate(key + 1, granularity).minusDays(1);
+            LocalDate from = bucketStart.isBefore(startDate) ? startDate : bucketStart;
+            LocalDate to = bucketEnd.isAfter(endDate) ? endDate : bucketEnd;
+
+            ApproximateRevenueStatistics statistics = merge(from, to).toStatistics(topCustomers);
+            statistics.setStartDate(bucketStart);
+            statistics.setEndDate(bucketEnd);
+            statistics.setLabel(TimeBuckets.label(key, granularity));
+            result.add(statistics);
+        }
+        return result;
+    }
+
+    // Gộp sketch của các tháng nằm trọn trong khoảng thời gian và của từng ngày còn lại
+    private PeriodMerge merge(LocalDate startDate, LocalDate endDate) {
+        PeriodMerge merge = new PeriodMerge();
+        LocalDate date = startDate;
+        while (!date.isAfter(endDate)) {
+            LocalDate monthEnd = date.withDayOfMonth(date.lengthOfMonth());
+            if (date.getDayOfMonth() == 1 && !monthEnd.isAfter(endDate)) {
+                merge.add(monthSketches.get(DateLabels.monthIndex(date)));
+                date = monthEnd.plusDays(1);
+            } else {
+                merge.add(daySketches.get(date.toEpochDay()));
+                date = date.plusDays(1);
+            }
+        }
+        return merge;
+    }
+
+    private PeriodSketch newSketch() {
+        return new PeriodSketch(new HllSketch(hllLgK), KllDoublesSketch.newHeapInstance(kllK),
+                new LongsSketch(heavyHittersMapSize));
+    }
+
+    // Sketch của một ngày hoặc một tháng
+    private static final class PeriodSketch {
+        private final HllSketch customers;
+        private final KllDoublesSketch amounts;
+        private final LongsSketch revenueByCustomer;
+        private double totalRevenue;
+        private long invoiceCount;
+
+        private PeriodSketch(HllSketch customers, KllDoublesSketch amounts, LongsSketch revenueByCustomer) {
+            this.customers = customers;
+            this.amounts = amounts;
+            this.revenueByCustomer = revenueByCustomer;
+        }
+
+        private void update(long epochDay, long customerId, double amount) {
+            amounts.update(amount);
+            totalRevenue += amount;
+            invoiceCount++;
+            if (customerId != PaymentSnapshot.NO_CUSTOMER) {
+                customers.update(customerId);
+                // Frequent items sketch đếm theo trọng số nguyên: doanh thu làm tròn đến đồng
+                long weight = Math.round(amount);
+                if (weight > 0) {
+                    revenueByCustomer.update(customerId, weight);
+                }
+            }
+        }
+    }
+
+    // Kết quả gộp nhiều PeriodSketch
+    private final class PeriodMerge {
+        private final Union customers = new Union(hllLgK);
+        private final KllDoublesSketch amounts = KllDoublesSketch.newHeapInstance(kllK);
+        private final LongsSketch revenueByCustomer = new LongsSketch(heavyHittersMapSize);
+        private double totalRevenue;
+        private long invoiceCount;
+
+        private void add(PeriodSketch sketch) {
+            if (sketch == null) {
+                return;
+            }
+            customers.update(sketch.customers);
+            amounts.merge(sketch.amounts);
+            revenueByCustomer.merge(sketch.revenueByCustomer);
+            totalRevenue += sketch.totalRevenue;
+            invoiceCount += sketch.invoiceCount;
+        }
+
+        private PeriodSketch toSketch() {
+            PeriodSketch sketch = new PeriodSketch(customers.getResult(), amounts, revenueByCustomer);
+            sketch.totalRevenue = totalRevenue;
+            sketch.invoiceCount = invoiceCount;
+            return sketch;
+        }
+
+        private ApproximateRevenueStatistics toStatistics(int topCustomers) {
+            HllSketch distinct = customers.getResult();
+            ApproximateRevenueStatistics statistics = ApproximateRevenueStatistics.builder()
+                    .totalRevenue(totalRevenue)
+                    .invoiceCount(invoiceCount)
+                    .distinctCustomers(new ApproximateValue(distinct.getEstimate(),
+                            distinct.getLowerBound(HLL_STANDARD_DEVIATIONS), distinct.getUpperBound(HLL_STANDARD_DEVIATIONS)))
+                    .topCustomersMaxError(revenueByCustomer.getMaximumError())
+                    .build();
+
+            if (!amounts.isEmpty()) {
+                statistics.setQuantileRankError(amounts.getNormalizedRankError(false));
+                for (int i = 0; i < QUANTILE_RANKS.length; i++) {
+                    statistics.getPaymentAmountQuantiles().put(QUANTILE_NAMES[i], amounts.getQuantile(QUANTILE_RANKS[i]));
+                }
+            }
+
+            LongsSketch.Row[] rows = revenueByCustomer.getFrequentItems(ErrorType.NO_FALSE_POSITIVES);
+            for (int i = 0; i < rows.length && i < topCustomers; i++) {
+                statistics.getTopCustomers().add(new CustomerRevenueEstimate(rows[i].getItem(),
+                        rows[i].getEstimate(), rows[i].getLowerBound(), rows[i].getUpperBound()));
+            }
+            return statistics;
+        }
+    }
+}
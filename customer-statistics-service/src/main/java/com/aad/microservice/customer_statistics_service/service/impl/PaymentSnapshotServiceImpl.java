@@ -0,0 +1,92 @@
+package com.aad.microservice.customer_statistics_service.service.impl;
+
+import com.aad.microservice.customer_statistics_service.model.PaymentSnapshot;
+import com.aad.microservice.customer_statistics_service.repository.PaymentReplicaRepository;
+import com.aad.microservice.customer_statistics_service.service.PaymentSnapshotService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+@Service
+public class PaymentSnapshotServiceImpl implements PaymentSnapshotService {
+
+    // Quá nhiều đoạn ngày rời nhau thì một lần đọc toàn bộ rẻ hơn nhiều truy vấn nhỏ
+    private static final int MAX_REFRESH_RANGES = 64;
+
+    @Autowired
+    private PaymentReplicaRepository replicaRepository;
+
+    // Snapshot mới được dựng xong rồi mới thay thế, các request đang đọc snapshot cũ không bị ảnh hưởng
+    private volatile PaymentSnapshot snapshot;
+
+    @Override
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        long startTime = System.currentTimeMillis();
+        PaymentSnapshot current = snapshot;
+        PaymentSnapshot.Builder builder = new PaymentSnapshot.Builder(current != null ? current.size() + 1024 : 1024);
+
+        try (Stream<Object[]> rows = replicaRepository.streamCountedPayments()) {
+            rows.forEach(row -> builder.add(((LocalDateTime) row[0]).toLocalDate(), (Long) row[1], (Double) row[2]));
+        }
+
+        snapshot = builder.build();
+        System.out.println("Đã dựng snapshot " + snapshot.size() + " hóa đơn trong " +
+                          (System.currentTimeMillis() - startTime) + " ms");
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void refreshDays(Collection<LocalDate> days) {
+        PaymentSnapshot current = snapshot;
+        if (current == null) {
+            rebuild();
+            return;
+        }
+        if (days.isEmpty()) {
+            return;
+        }
+        long startTime = System.currentTimeMillis();
+
+        // Gom các ngày liên tiếp thành đoạn [ngày đầu, ngày cuối] để mỗi đoạn chỉ cần một truy vấn
+        List<LocalDate> sortedDays = days.stream().distinct().sorted().collect(Collectors.toList());
+        List<LocalDate[]> ranges = new ArrayList<>();
+        for (LocalDate day : sortedDays) {
+            LocalDate[] last = ranges.isEmpty() ? null : ranges.get(ranges.size() - 1);
+            if (last != null && last[1].plusDays(1).equals(day)) {
+                last[1] = day;
+            } else {
+                ranges.add(new LocalDate[]{day, day});
+            }
+        }
+        if (ranges.size() > MAX_REFRESH_RANGES) {
+            rebuild();
+            return;
+        }
+
+        PaymentSnapshot.Builder builder = new PaymentSnapshot.Builder(1024);
+        for (LocalDate[] range : ranges) {
+            for (Object[] row : replicaRepository.findCountedPaymentsBetween(
+                    range[0].atStartOfDay(), range[1].plusDays(1).atStartOfDay())) {
+                builder.add(((LocalDateTime) row[0]).toLocalDate(), (Long) row[1], (Double) row[2]);
+            }
+        }
+
+        snapshot = current.replaceDays(sortedDays, builder.build());
+        System.out.println("Đã làm mới snapshot cho " + sortedDays.size() + " ngày trong " +
+                          (System.currentTimeMillis() - startTime) + " ms");
+    }
+
+    @Override
+    public PaymentSnapshot getSnapshot() {
+        return snapshot;
+    }
+}
@@ -0,0 +1,99 @@
+package com.aad.microservice.customer_statistics_service.service.impl;
+
+import com.aad.microservice.customer_statistics_service.model.DailyRevenueRollup;
+import com.aad.microservice.customer_statistics_service.model.RevenueBucket;
+import com.aad.microservice.customer_statistics_service.repository.DailyRevenueRollupRepository;
+import com.aad.microservice.customer_statistics_service.service.RevenueRollupService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@Service
+public class RevenueRollupServiceImpl implements RevenueRollupService {
+
+    @Autowired
+    private DailyRevenueRollupRepository rollupRepository;
+
+    @Override
+    @Transactional
+    public void applyDeltas(Collection<DailyRevenueRollup> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        // Nạp các bucket đã có của những ngày bị ảnh hưởng bằng một truy vấn rồi cộng dồn
+        Set<LocalDate> bucketDates = deltas.stream().map(DailyRevenueRollup::getBucketDate).collect(Collectors.toSet());
+        Map<LocalDate, Map<Long, DailyRevenueRollup>> existingByDay = new HashMap<>();
+        for (DailyRevenueRollup existing : rollupRepository.findByBucketDateIn(bucketDates)) {
+            existingByDay.computeIfAbsent(existing.getBucketDate(), d -> new HashMap<>())
+                    .put(existing.getCustomerId(), existing);
+        }
+
+        List<DailyRevenueRollup> toSave = new ArrayList<>();
+        List<DailyRevenueRollup> toDelete = new ArrayList<>();
+        for (DailyRevenueRollup delta : deltas) {
+            DailyRevenueRollup existing = existingByDay
+                    .getOrDefault(delta.getBucketDate(), Collections.emptyMap())
+                    .get(delta.getCustomerId());
+
+            if (existing == null) {
+                // Bucket mới; bỏ qua nếu thay đổi triệt tiêu nhau (thêm rồi xóa trong cùng lần đồng bộ)
+                if (delta.getInvoiceCount() > 0) {
+                    toSave.add(delta);
+                }
+                continue;
+            }
+
+            existing.setTotalRevenue(existing.getTotalRevenue() + delta.getTotalRevenue());
+            existing.setInvoiceCount(existing.getInvoiceCount() + delta.getInvoiceCount());
+            if (existing.getInvoiceCount() <= 0) {
+                toDelete.add(existing);
+            } else {
+                toSave.add(existing);
+            }
+        }
+
+        rollupRepository.saveAll(toSave);
+        rollupRepository.deleteAll(toDelete);
+    }
+
+    @Override
+    @Transactional
+    public void clear() {
+        rollupRepository.deleteAllInBatch();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<RevenueBucket> getRevenueBuckets(LocalDate startDate, LocalDate endDate, String granularity) {
+        List<Object[]> rows = rollupRepository.sumByBucket(granularity, startDate, endDate);
+        List<RevenueBucket> buckets = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            LocalDate bucketDate = row[0] instanceof java.sql.Date sqlDate ? sqlDate.toLocalDate() : (LocalDate) row[0];
+            buckets.add(new RevenueBucket(bucketDate, null,
+                    ((Number) row[1]).doubleValue(), ((Number) row[2]).longValue()));
+        }
+        return buckets;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Map<Long, Double> getRevenueByCustomer(LocalDate startDate, LocalDate endDate) {
+        Map<Long, Double> revenueByCustomer = new HashMap<>();
+        for (Object[] row : rollupRepository.sumByCustomer(startDate, endDate)) {
+            revenueByCustomer.put((Long) row[0], Objects.requireNonNullElse((Double) row[1], 0.0));
+        }
+        return revenueByCustomer;
+    }
+}
@@ -0,0 +1,82 @@
+package com.aad.microservice.customer_statistics_service.service.impl;
+
+import com.aad.microservice.customer_statistics_service.model.StatisticsCacheKey;
+import com.aad.microservice.customer_statistics_service.service.StatisticsCacheService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+@Service
+public class StatisticsCacheServiceImpl implements StatisticsCacheService {
+
+    private static final String CACHE_NAME = "revenueStatistics";
+
+    private final Cache<StatisticsCacheKey, Object> cache;
+
+    public StatisticsCacheServiceImpl(MeterRegistry meterRegistry,
+                                      @Value("${app.statistics.cache.max-entries:1000}") long maxEntries,
+                                      @Value("${app.statistics.cache.closed-period-ttl-minutes:1440}") long closedPeriodTtlMinutes,
+                                      @Value("${app.statistics.cache.open-period-ttl-minutes:5}") long openPeriodTtlMinutes) {
+        long closedPeriodTtlNanos = Duration.ofMinutes(closedPeriodTtlMinutes).toNanos();
+        long openPeriodTtlNanos = Duration.ofMinutes(openPeriodTtlMinutes).toNanos();
+
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfter(new Expiry<StatisticsCacheKey, Object>() {
+                    // Khoảng thời gian đã kết thúc (trước hôm nay) giữ lâu; khoảng chứa hôm nay giữ ngắn
+                    @Override
+                    public long expireAfterCreate(StatisticsCacheKey key, Object value, long currentTime) {
+                        return key.getEndDate().isBefore(LocalDate.now()) ? closedPeriodTtlNanos : openPeriodTtlNanos;
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(StatisticsCacheKey key, Object value, long currentTime, long currentDuration) {
+                        return expireAfterCreate(key, value, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(StatisticsCacheKey key, Object value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+
+        // Số lần hit/miss/eviction xem tại /actuator/metrics/cache.gets, cache.evictions,...
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(String endpoint, LocalDate startDate, LocalDate endDate, Supplier<T> loader) {
+        // Lỗi trong loader không được lưu vào cache, lần gọi sau sẽ tính lại
+        return (T) cache.get(new StatisticsCacheKey(endpoint, startDate, endDate), key -> loader.get());
+    }
+
+    @Override
+    public int invalidate(LocalDate date) {
+        List<StatisticsCacheKey> affectedKeys = cache.asMap().keySet().stream()
+                .filter(key -> key.contains(date))
+                .collect(Collectors.toList());
+        cache.invalidateAll(affectedKeys);
+
+        System.out.println("Đã xóa " + affectedKeys.size() + " kết quả thống kê trong cache chứa ngày " + date);
+        return affectedKeys.size();
+    }
+
+    @Override
+    public void invalidateAll() {
+        cache.invalidateAll();
+        System.out.println("Đã xóa toàn bộ cache thống kê doanh thu");
+    }
+}
@@ -0,0 +1,72 @@
+package com.aad.microservice.customer_statistics_service.util;
+
+import java.time.LocalDate;
+
+/**
+ * Cộng dồn doanh thu theo khách hàng và theo (khách hàng, bucket) trong một lần duyệt hóa đơn,
+ * để lấy được cả tổng lẫn chuỗi thời gian của top khách hàng mà không phải duyệt lại.
+ * Khóa của cặp (khách hàng, bucket) là customerId * bucketCount + chỉ số bucket, nên bộ nhớ chỉ tỷ lệ với
+ * số cặp thực sự có hóa đơn chứ không phải số khách hàng × số bucket.
+ */
+public final class CustomerSeriesAccumulator {
+
+    private final String granularity;
+    private final long firstKey;
+    private final int bucketCount;
+
+    private final LongDoubleHashMap customerTotals = new LongDoubleHashMap();
+    private final LongDoubleHashMap customerCounts = new LongDoubleHashMap();
+    private final LongDoubleHashMap bucketTotals = new LongDoubleHashMap();
+    private final LongDoubleHashMap bucketCounts = new LongDoubleHashMap();
+
+    // Hóa đơn thường đến theo thứ tự ngày nên chỉ tính lại chỉ số bucket khi ngày thay đổi
+    private long lastEpochDay = Long.MIN_VALUE;
+    private int lastIndex;
+
+    public CustomerSeriesAccumulator(LocalDate startDate, LocalDate endDate, String granularity) {
+        this.granularity = granularity;
+        this.firstKey = TimeBuckets.key(startDate, granularity);
+        this.bucketCount = (int) (TimeBuckets.key(endDate, granularity) - firstKey + 1);
+    }
+
+    public void accept(long epochDay, long customerId, double amount) {
+        if (epochDay != lastEpochDay) {
+            lastIndex = (int) (TimeBuckets.key(LocalDate.ofEpochDay(epochDay), granularity) - firstKey);
+            lastEpochDay = epochDay;
+        }
+        if (lastIndex < 0 || lastIndex >= bucketCount) {
+            return;
+        }
+
+        customerTotals.add(customerId, amount);
+        customerCounts.add(customerId, 1);
+
+        long pairKey = customerId * bucketCount + lastIndex;
+        bucketTotals.add(pairKey, amount);
+        bucketCounts.add(pairKey, 1);
+    }
+
+    public LongDoubleHashMap getCustomerTotals() {
+        return customerTotals;
+    }
+
+    public long getInvoiceCount(long customerId) {
+        return (long) customerCounts.get(customerId);
+    }
+
+    public long getFirstKey() {
+        return firstKey;
+    }
+
+    public int getBucketCount() {
+        return bucketCount;
+    }
+
+    public double getBucketRevenue(long customerId, int bucketIndex) {
+        return bucketTotals.get(customerId * bucketCount + bucketIndex);
+    }
+
+    public long getBucketInvoiceCount(long customerId, int bucketIndex) {
+        return (long) bucketCounts.get(customerId * bucketCount + bucketIndex);
+    }
+}
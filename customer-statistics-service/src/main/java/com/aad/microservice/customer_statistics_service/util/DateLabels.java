@@ -0,0 +1,113 @@
+package com.aad.microservice.customer_statistics_service.util;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.IsoFields;
+import java.util.Locale;
+
+/**
+ * Nhãn hiển thị của các bucket thống kê, tra theo khóa số nguyên (epoch day, year * 12 + month - 1, năm).
+ * Nhãn trong khoảng năm FIRST_YEAR..LAST_YEAR được định dạng một lần rồi giữ trong bảng,
+ * các lần thống kê sau chỉ đọc lại chuỗi có sẵn. Ngoài khoảng này thì định dạng trực tiếp.
+ * Bảng được điền dần khi dùng; hai luồng cùng điền một ô chỉ tạo ra hai chuỗi giống nhau nên không cần khóa.
+ */
+public final class DateLabels {
+
+    private static final int FIRST_YEAR = 2000;
+    private static final int LAST_YEAR = 2100;
+    private static final long FIRST_EPOCH_DAY = LocalDate.of(FIRST_YEAR, 1, 1).toEpochDay();
+    private static final long LAST_EPOCH_DAY = LocalDate.of(LAST_YEAR, 12, 31).toEpochDay();
+    private static final int FIRST_MONTH_INDEX = FIRST_YEAR * 12;
+
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+    private static final DateTimeFormatter MONTH_NAME_FORMATTER = DateTimeFormatter.ofPattern("MMMM yyyy", new Locale("vi"));
+
+    private static final String[] DAILY = new String[(int) (LAST_EPOCH_DAY - FIRST_EPOCH_DAY + 1)];
+    private static final String[] WEEKLY = new String[DAILY.length / 7 + 2];
+    private static final String[] MONTHLY = new String[(LAST_YEAR - FIRST_YEAR + 1) * 12];
+    private static final String[] YEARLY = new String[LAST_YEAR - FIRST_YEAR + 1];
+
+    private DateLabels() {
+    }
+
+    // year * 12 + month - 1, khóa số nguyên của tháng
+    public static int monthIndex(LocalDate date) {
+        return date.getYear() * 12 + date.getMonthValue() - 1;
+    }
+
+    public static LocalDate monthStart(int monthIndex) {
+        return LocalDate.of(Math.floorDiv(monthIndex, 12), Math.floorMod(monthIndex, 12) + 1, 1);
+    }
+
+    // "dd/MM/yyyy"
+    public static String daily(long epochDay) {
+        if (epochDay < FIRST_EPOCH_DAY || epochDay > LAST_EPOCH_DAY) {
+            return formatDaily(epochDay);
+        }
+        int index = (int) (epochDay - FIRST_EPOCH_DAY);
+        String label = DAILY[index];
+        if (label == null) {
+            label = formatDaily(epochDay);
+            DAILY[index] = label;
+        }
+        return label;
+    }
+
+    // "Tuần <số tuần ISO> (dd/MM/yyyy - dd/MM/yyyy)", mondayEpochDay là thứ 2 đầu tuần
+    public static String weekly(long mondayEpochDay) {
+        if (mondayEpochDay < FIRST_EPOCH_DAY || mondayEpochDay > LAST_EPOCH_DAY) {
+            return formatWeekly(mondayEpochDay);
+        }
+        int index = (int) ((mondayEpochDay - FIRST_EPOCH_DAY) / 7);
+        String label = WEEKLY[index];
+        if (label == null) {
+            label = formatWeekly(mondayEpochDay);
+            WEEKLY[index] = label;
+        }
+        return label;
+    }
+
+    // "Tháng 3 2024"
+    public static String monthly(int monthIndex) {
+        int index = monthIndex - FIRST_MONTH_INDEX;
+        if (index < 0 || index >= MONTHLY.length) {
+            return formatMonthly(monthIndex);
+        }
+        String label = MONTHLY[index];
+        if (label == null) {
+            label = formatMonthly(monthIndex);
+            MONTHLY[index] = label;
+        }
+        return label;
+    }
+
+    // "Năm 2024"
+    public static String yearly(int year) {
+        int index = year - FIRST_YEAR;
+        if (index < 0 || index >= YEARLY.length) {
+            return "Năm " + year;
+        }
+        String label = YEARLY[index];
+        if (label == null) {
+            label = "Năm " + year;
+            YEARLY[index] = label;
+        }
+        return label;
+    }
+
+    private static String formatDaily(long epochDay) {
+        return LocalDate.ofEpochDay(epochDay).format(DATE_FORMATTER);
+    }
+
+    private static String formatWeekly(long mondayEpochDay) {
+        LocalDate weekStart = LocalDate.ofEpochDay(mondayEpochDay);
+        return "Tuần " + weekStart.get(IsoFields.WEEK_OF_WEEK_BASED_YEAR) +
+               " (" + weekStart.format(DATE_FORMATTER) + " - " + weekStart.plusDays(6).format(DATE_FORMATTER) + ")";
+    }
+
+    private static String formatMonthly(int monthIndex) {
+        String monthName = monthStart(monthIndex).format(MONTH_NAME_FORMATTER);
+        // Viết hoa chữ cái đầu của tên tháng
+        return monthName.substring(0, 1).toUpperCase() + monthName.substring(1);
+    }
+}
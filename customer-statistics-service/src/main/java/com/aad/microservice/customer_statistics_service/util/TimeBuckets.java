@@ -0,0 +1,72 @@
+package com.aad.microservice.customer_statistics_service.util;
+
+import com.aad.microservice.customer_statistics_service.constant.RevenueGranularityConstants;
+
+import java.time.LocalDate;
+
+/**
+ * Khóa nguyên của bucket thống kê theo granularity; các bucket liên tiếp có khóa liên tiếp:
+ * ngày = epoch day, tuần = số tuần kể từ thứ 2 ngày 29/12/1969, tháng = year * 12 + month - 1, năm = năm.
+ */
+public final class TimeBuckets {
+
+    // Epoch day của thứ 2 ngày 29/12/1969, mốc đánh số tuần
+    private static final long WEEK_EPOCH_OFFSET = -3;
+
+    private TimeBuckets() {
+    }
+
+    public static long key(LocalDate date, String granularity) {
+        switch (granularity) {
+            case RevenueGranularityConstants.WEEK:
+                return Math.floorDiv(date.toEpochDay() - WEEK_EPOCH_OFFSET, 7);
+            case RevenueGranularityConstants.MONTH:
+                return DateLabels.monthIndex(date);
+            case RevenueGranularityConstants.YEAR:
+                return date.getYear();
+            default:
+                return date.toEpochDay();
+        }
+    }
+
+    // Ngày bắt đầu của bucket (thứ 2 đầu tuần, ngày 1 của tháng/năm)
+    public static LocalDate startDate(long key, String granularity) {
+        switch (granularity) {
+            case RevenueGranularityConstants.WEEK:
+                return LocalDate.ofEpochDay(key * 7 + WEEK_EPOCH_OFFSET);
+            case RevenueGranularityConstants.MONTH:
+                return DateLabels.monthStart((int) key);
+            case RevenueGranularityConstants.YEAR:
+                return LocalDate.of((int) key, 1, 1);
+            default:
+                return LocalDate.ofEpochDay(key);
+        }
+    }
+
+    public static String label(long key, String granularity) {
+        switch (granularity) {
+            case RevenueGranularityConstants.WEEK:
+                return DateLabels.weekly(key * 7 + WEEK_EPOCH_OFFSET);
+            case RevenueGranularityConstants.MONTH:
+                return DateLabels.monthly((int) key);
+            case RevenueGranularityConstants.YEAR:
+                return DateLabels.yearly((int) key);
+            default:
+                return DateLabels.daily(key);
+        }
+    }
+
+    // Giá trị periodType của TimeBasedRevenue
+    public static String periodType(String granularity) {
+        switch (granularity) {
+            case RevenueGranularityConstants.WEEK:
+                return "weekly";
+            case RevenueGranularityConstants.MONTH:
+                return "monthly";
+            case RevenueGranularityConstants.YEAR:
+                return "yearly";
+            default:
+                return "daily";
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.aad.microservice.customer_statistics_service.util;
+
+/**
+ * Chọn N phần tử có giá trị lớn nhất bằng min-heap giới hạn kích thước N trên mảng nguyên thủy:
+ * O(M log N) thời gian và O(N) bộ nhớ thay vì sắp xếp toàn bộ M phần tử.
+ * Khi bằng giá trị, khóa nhỏ hơn được xếp trước để kết quả ổn định giữa các lần gọi.
+ */
+public final class TopNSelector {
+
+    private final long[] heapKeys;
+    private final double[] heapValues;
+    private int size;
+    private long offered;
+
+    public TopNSelector(int capacity) {
+        this.heapKeys = new long[capacity];
+        this.heapValues = new double[capacity];
+    }
+
+    public void offer(long key, double value) {
+        offered++;
+        if (heapKeys.length == 0) {
+            return;
+        }
+        if (size < heapKeys.length) {
+            heapKeys[size] = key;
+            heapValues[size] = value;
+            siftUp(size++);
+        } else if (ranksBefore(key, value, heapKeys[0], heapValues[0])) {
+            // Thay phần tử kém nhất ở gốc heap
+            heapKeys[0] = key;
+            heapValues[0] = value;
+            siftDown(0);
+        }
+    }
+
+    // Tổng số phần tử đã được đưa vào, kể cả những phần tử không lọt vào top N
+    public long getOffered() {
+        return offered;
+    }
+
+    // Các khóa đã chọn, sắp xếp giảm dần theo giá trị. Heap bị làm rỗng sau khi gọi.
+    public long[] drainKeysDescending() {
+        long[] result = new long[size];
+        for (int i = size - 1; i >= 0; i--) {
+            result[i] = heapKeys[0];
+            size--;
+            heapKeys[0] = heapKeys[size];
+            heapValues[0] = heapValues[size];
+            siftDown(0);
+        }
+        return result;
+    }
+
+    private static boolean ranksBefore(long key, double value, long otherKey, double otherValue) {
+        return value > otherValue || (value == otherValue && key < otherKey);
+    }
+
+    private void siftUp(int index) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (!ranksBefore(heapKeys[parent], heapValues[parent], heapKeys[index], heapValues[index])) {
+                break;
+            }
+            swap(index, parent);
+            index = parent;
+        }
+    }
+
+    private void siftDown(int index) {
+        while (true) {
+            int left = 2 * index + 1;
+            if (left >= size) {
+                break;
+            }
+            int worst = left;
+            int right = left + 1;
+            if (right < size && ranksBefore(heapKeys[worst], heapValues[worst], heapKeys[right], heapValues[right])) {
+                worst = right;
+            }
+            if (!ranksBefore(heapKeys[index], heapValues[index], heapKeys[worst], heapValues[worst])) {
+                break;
+            }
+            swap(index, worst);
+            index = worst;
+        }
+    }
+
+    private void swap(int i, int j) {
+        long key = heapKeys[i];
+        heapKeys[i] = heapKeys[j];
+        heapKeys[j] = key;
+        double value = heapValues[i];
+        heapValues[i] = heapValues[j];
+        heapValues[j] = value;
+    }
+}
@@ -0,0 +1,128 @@
+package com.aad.microservice.customer_statistics_service.model;
+
+import com.aad.microservice.customer_statistics_service.constant.RevenueGranularityConstants;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * sumByBucketParallel phải cho đúng kết quả của sumByBucket với mọi granularity, kể cả khi một bucket
+ * bị cắt ngang bởi điểm chia của fork-join. Số tiền là số nguyên nên tổng không phụ thuộc thứ tự cộng.
+ */
+class PaymentSnapshotParallelTest {
+
+    private static final String[] GRANULARITIES = {
+            RevenueGranularityConstants.DAY, RevenueGranularityConstants.WEEK,
+            RevenueGranularityConstants.MONTH, RevenueGranularityConstants.YEAR
+    };
+    private static final LocalDate FIRST_DAY = LocalDate.of(2019, 11, 20);
+    private static final int DAYS = 5 * 365;
+
+    private static ForkJoinPool pool;
+
+    @BeforeAll
+    static void startPool() {
+        pool = new ForkJoinPool(4);
+    }
+
+    @AfterAll
+    static void stopPool() {
+        pool.shutdown();
+    }
+
+    @Test
+    void parallelMatchesSequentialOnRandomData() {
+        Random random = new Random(42);
+        for (int round = 0; round < 20; round++) {
+            PaymentSnapshot snapshot = randomSnapshot(random, 1 + random.nextInt(20_000));
+            for (int query = 0; query < 10; query++) {
+                LocalDate start = FIRST_DAY.plusDays(random.nextInt(DAYS) - 30);
+                LocalDate end = start.plusDays(random.nextInt(DAYS));
+                // Lá nhỏ để đoạn hóa đơn bị chia ở nhiều vị trí, kể cả giữa một bucket
+                int leafSize = 1 + random.nextInt(500);
+                for (String granularity : GRANULARITIES) {
+                    assertSameBuckets(snapshot, start, end, granularity, leafSize);
+                }
+            }
+        }
+    }
+
+    @Test
+    void bucketSpanningSplitPointIsMergedOnce() {
+        // Mọi hóa đơn cùng một tuần/tháng/năm: mỗi lá chỉ thấy một phần của bucket
+        PaymentSnapshot.Builder builder = new PaymentSnapshot.Builder(1000);
+        LocalDate day = LocalDate.of(2024, 5, 13);
+        for (int i = 0; i < 1000; i++) {
+            builder.add(day.plusDays(i / 200), (long) (i % 7), i + 1);
+        }
+        PaymentSnapshot snapshot = builder.build();
+
+        for (String granularity : GRANULARITIES) {
+            for (int leafSize : new int[]{1, 3, 199, 200, 201, 999}) {
+                assertSameBuckets(snapshot, day, day.plusDays(10), granularity, leafSize);
+            }
+        }
+        List<RevenueBucket> weeks = snapshot.sumByBucketParallel(
+                day, day.plusDays(10), RevenueGranularityConstants.WEEK, pool, 7);
+        assertEquals(1, weeks.size());
+        assertEquals(1000L, weeks.get(0).getInvoiceCount());
+        assertEquals(500_500.0, weeks.get(0).getTotalRevenue());
+    }
+
+    @Test
+    void emptyRangeAndSingleDay() {
+        PaymentSnapshot snapshot = randomSnapshot(new Random(7), 5_000);
+
+        for (String granularity : GRANULARITIES) {
+            // Trước và sau toàn bộ dữ liệu, và khoảng ngược (bắt đầu sau kết thúc)
+            assertTrue(snapshot.sumByBucketParallel(FIRST_DAY.minusYears(2), FIRST_DAY.minusDays(1),
+                    granularity, pool, 16).isEmpty());
+            assertTrue(snapshot.sumByBucketParallel(FIRST_DAY.plusDays(DAYS + 1), FIRST_DAY.plusDays(DAYS + 400),
+                    granularity, pool, 16).isEmpty());
+            assertTrue(snapshot.sumByBucketParallel(FIRST_DAY.plusDays(100), FIRST_DAY.plusDays(99),
+                    granularity, pool, 16).isEmpty());
+
+            for (int offset : new int[]{0, 1, 365, DAYS - 1}) {
+                LocalDate day = FIRST_DAY.plusDays(offset);
+                assertSameBuckets(snapshot, day, day, granularity, 1);
+                assertSameBuckets(snapshot, day, day, granularity, 64);
+            }
+        }
+
+        PaymentSnapshot empty = new PaymentSnapshot.Builder(0).build();
+        assertTrue(empty.sumByBucketParallel(FIRST_DAY, FIRST_DAY.plusDays(DAYS),
+                RevenueGranularityConstants.MONTH, pool, 16).isEmpty());
+    }
+
+    private static void assertSameBuckets(PaymentSnapshot snapshot, LocalDate start, LocalDate end,
+                                          String granularity, int leafSize) {
+        List<RevenueBucket> expected = snapshot.sumByBucket(start, end, granularity);
+        List<RevenueBucket> actual = snapshot.sumByBucketParallel(start, end, granularity, pool, leafSize);
+        assertEquals(expected, actual,
+                () -> granularity + " " + start + ".." + end + " leafSize=" + leafSize);
+    }
+
+    // Hóa đơn theo ngày tăng dần, có ngày không có hóa đơn và ngày có nhiều hóa đơn
+    private static PaymentSnapshot randomSnapshot(Random random, int payments) {
+        PaymentSnapshot.Builder builder = new PaymentSnapshot.Builder(payments);
+        long[] days = new long[payments];
+        for (int i = 0; i < payments; i++) {
+            days[i] = FIRST_DAY.toEpochDay() + random.nextInt(DAYS);
+        }
+        Arrays.sort(days);
+        for (long day : days) {
+            Long customerId = random.nextInt(10) == 0 ? null : (long) random.nextInt(1000);
+            builder.add(LocalDate.ofEpochDay(day), customerId, 1 + random.nextInt(1_000_000));
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,105 @@
+package com.aad.microservice.customer_statistics_service.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * replaceDays phải cho đúng snapshot dựng lại từ đầu sau khi thay hóa đơn của các ngày có thay đổi,
+ * kể cả ngày đầu/cuối, ngày chưa có hóa đơn, ngày nằm ngoài snapshot và ngày bị xóa hết hóa đơn.
+ */
+class PaymentSnapshotReplaceDaysTest {
+
+    private static final LocalDate FIRST_DAY = LocalDate.of(2023, 12, 25);
+    private static final int DAYS = 60;
+
+    @Test
+    void replaceDaysMatchesFullRebuildOnRandomData() {
+        Random random = new Random(7);
+        for (int round = 0; round < 200; round++) {
+            TreeMap<Long, List<double[]>> payments = randomPayments(random, random.nextInt(300), 0, DAYS);
+            PaymentSnapshot snapshot = build(payments);
+
+            // Ngày thay đổi có thể nằm trước, trong hoặc sau khoảng của snapshot
+            Set<LocalDate> changedDays = new HashSet<>();
+            int changes = random.nextInt(8);
+            for (int i = 0; i < changes; i++) {
+                changedDays.add(FIRST_DAY.plusDays(random.nextInt(DAYS + 10) - 5));
+            }
+
+            TreeMap<Long, List<double[]>> replacementPayments = new TreeMap<>();
+            for (LocalDate day : changedDays) {
+                long epochDay = day.toEpochDay();
+                int count = random.nextInt(4);
+                for (int i = 0; i < count; i++) {
+                    replacementPayments.computeIfAbsent(epochDay, d -> new ArrayList<>()).add(randomPayment(random));
+                }
+            }
+
+            TreeMap<Long, List<double[]>> expected = new TreeMap<>(payments);
+            changedDays.forEach(day -> expected.remove(day.toEpochDay()));
+            expected.putAll(replacementPayments);
+
+            PaymentSnapshot replaced = snapshot.replaceDays(changedDays, build(replacementPayments));
+            assertEquals(rows(build(expected)), rows(replaced));
+        }
+    }
+
+    @Test
+    void emptyChangeKeepsSnapshot() {
+        PaymentSnapshot snapshot = build(randomPayments(new Random(1), 50, 0, DAYS));
+        PaymentSnapshot replaced = snapshot.replaceDays(List.of(), build(new TreeMap<>()));
+        assertEquals(rows(snapshot), rows(replaced));
+    }
+
+    @Test
+    void replacementOutsideChangedDaysIsRejected() {
+        PaymentSnapshot snapshot = build(randomPayments(new Random(2), 50, 0, DAYS));
+        PaymentSnapshot replacement = new PaymentSnapshot.Builder(1)
+                .add(FIRST_DAY.plusDays(3), 1L, 100)
+                .build();
+        assertThrows(IllegalArgumentException.class,
+                () -> snapshot.replaceDays(List.of(FIRST_DAY.plusDays(4)), replacement));
+    }
+
+    private static TreeMap<Long, List<double[]>> randomPayments(Random random, int count, int fromDay, int toDay) {
+        TreeMap<Long, List<double[]>> payments = new TreeMap<>();
+        for (int i = 0; i < count; i++) {
+            long epochDay = FIRST_DAY.plusDays(fromDay + random.nextInt(toDay - fromDay)).toEpochDay();
+            payments.computeIfAbsent(epochDay, d -> new ArrayList<>()).add(randomPayment(random));
+        }
+        return payments;
+    }
+
+    // [customerId, số tiền]; customerId 0 nghĩa là hóa đơn không có khách hàng
+    private static double[] randomPayment(Random random) {
+        return new double[]{random.nextInt(5), 1 + random.nextInt(1_000_000)};
+    }
+
+    private static PaymentSnapshot build(Map<Long, List<double[]>> payments) {
+        PaymentSnapshot.Builder builder = new PaymentSnapshot.Builder(16);
+        payments.forEach((epochDay, dayPayments) -> {
+            for (double[] payment : dayPayments) {
+                Long customerId = payment[0] == 0 ? null : (long) payment[0];
+                builder.add(LocalDate.ofEpochDay(epochDay), customerId, payment[1]);
+            }
+        });
+        return builder.build();
+    }
+
+    private static List<String> rows(PaymentSnapshot snapshot) {
+        List<String> rows = new ArrayList<>();
+        snapshot.forEachPayment((epochDay, customerId, amount) -> rows.add(epochDay + "|" + customerId + "|" + amount));
+        return rows;
+    }
+}
@@ -0,0 +1,61 @@
+package com.aad.microservice.customer_statistics_service.util;
+
+import com.aad.microservice.customer_statistics_service.constant.RevenueGranularityConstants;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CustomerSeriesAccumulatorTest {
+
+    @Test
+    void matchesPerCustomerAndBucketSums() {
+        LocalDate start = LocalDate.of(2020, 11, 15);
+        LocalDate end = LocalDate.of(2021, 2, 10);
+        Random random = new Random(5);
+
+        for (String granularity : new String[]{RevenueGranularityConstants.DAY, RevenueGranularityConstants.WEEK,
+                RevenueGranularityConstants.MONTH, RevenueGranularityConstants.YEAR}) {
+            CustomerSeriesAccumulator accumulator = new CustomerSeriesAccumulator(start, end, granularity);
+            Map<Long, Double> totals = new HashMap<>();
+            Map<String, Double> bucketTotals = new HashMap<>();
+            Map<String, Long> bucketCounts = new HashMap<>();
+
+            // Cả ngày nằm ngoài khoảng (cùng tuần/tháng/năm với ngày đầu hoặc cuối) phải bị bỏ qua
+            for (int i = 0; i < 5_000; i++) {
+                LocalDate day = start.plusDays(random.nextInt(120) - 15);
+                long customerId = random.nextInt(50);
+                double amount = 1 + random.nextInt(1000);
+                accumulator.accept(day.toEpochDay(), customerId, amount);
+
+                long bucketIndex = TimeBuckets.key(day, granularity) - TimeBuckets.key(start, granularity);
+                if (bucketIndex >= 0 && bucketIndex < accumulator.getBucketCount()) {
+                    totals.merge(customerId, amount, Double::sum);
+                    bucketTotals.merge(customerId + "|" + bucketIndex, amount, Double::sum);
+                    bucketCounts.merge(customerId + "|" + bucketIndex, 1L, Long::sum);
+                }
+            }
+
+            assertEquals(TimeBuckets.key(end, granularity) - TimeBuckets.key(start, granularity) + 1,
+                    accumulator.getBucketCount());
+            Map<Long, Double> actualTotals = new HashMap<>();
+            accumulator.getCustomerTotals().forEach(actualTotals::put);
+            assertEquals(totals, actualTotals, granularity);
+
+            for (long customerId = 0; customerId < 50; customerId++) {
+                long invoices = 0;
+                for (int bucket = 0; bucket < accumulator.getBucketCount(); bucket++) {
+                    String key = customerId + "|" + bucket;
+                    assertEquals(bucketTotals.getOrDefault(key, 0.0), accumulator.getBucketRevenue(customerId, bucket));
+                    assertEquals(bucketCounts.getOrDefault(key, 0L), accumulator.getBucketInvoiceCount(customerId, bucket));
+                    invoices += bucketCounts.getOrDefault(key, 0L);
+                }
+                assertEquals(invoices, accumulator.getInvoiceCount(customerId));
+            }
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.aad.microservice.customer_statistics_service.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Nhãn trong bảng đã định dạng sẵn (2000..2100) và nhãn định dạng trực tiếp ngoài khoảng đó phải cùng một dạng.
+ */
+class DateLabelsTest {
+
+    @Test
+    void dailyLabelsAroundCachedRange() {
+        assertEquals("31/12/1999", DateLabels.daily(LocalDate.of(1999, 12, 31).toEpochDay()));
+        assertEquals("01/01/2000", DateLabels.daily(LocalDate.of(2000, 1, 1).toEpochDay()));
+        assertEquals("31/12/2100", DateLabels.daily(LocalDate.of(2100, 12, 31).toEpochDay()));
+        assertEquals("01/01/2101", DateLabels.daily(LocalDate.of(2101, 1, 1).toEpochDay()));
+        assertEquals("15/06/1970", DateLabels.daily(LocalDate.of(1970, 6, 15).toEpochDay()));
+    }
+
+    @Test
+    void weeklyLabelsAroundCachedRange() {
+        // Thứ 2 trước ngày đầu bảng, tuần đầu tiên và tuần vắt qua ngày cuối bảng
+        assertEquals("Tuần 52 (27/12/1999 - 02/01/2000)", DateLabels.weekly(LocalDate.of(1999, 12, 27).toEpochDay()));
+        assertEquals("Tuần 1 (03/01/2000 - 09/01/2000)", DateLabels.weekly(LocalDate.of(2000, 1, 3).toEpochDay()));
+        assertEquals("Tuần 52 (27/12/2100 - 02/01/2101)", DateLabels.weekly(LocalDate.of(2100, 12, 27).toEpochDay()));
+        assertEquals("Tuần 1 (03/01/2101 - 09/01/2101)", DateLabels.weekly(LocalDate.of(2101, 1, 3).toEpochDay()));
+        assertEquals("Tuần 53 (28/12/2020 - 03/01/2021)", DateLabels.weekly(LocalDate.of(2020, 12, 28).toEpochDay()));
+    }
+
+    @Test
+    void monthlyAndYearlyLabelsAroundCachedRange() {
+        assertEquals("Tháng 12 1999", DateLabels.monthly(1999 * 12 + 11));
+        assertEquals("Tháng 1 2000", DateLabels.monthly(2000 * 12));
+        assertEquals("Tháng 12 2100", DateLabels.monthly(2100 * 12 + 11));
+        assertEquals("Tháng 1 2101", DateLabels.monthly(2101 * 12));
+
+        assertEquals("Năm 1999", DateLabels.yearly(1999));
+        assertEquals("Năm 2000", DateLabels.yearly(2000));
+        assertEquals("Năm 2100", DateLabels.yearly(2100));
+        assertEquals("Năm 2101", DateLabels.yearly(2101));
+    }
+
+    @Test
+    void cachedLabelIsReturnedAgain() {
+        long day = LocalDate.of(2024, 2, 29).toEpochDay();
+        assertEquals("29/02/2024", DateLabels.daily(day));
+        assertEquals(DateLabels.daily(day), DateLabels.daily(day));
+        assertEquals("Tháng 2 2024", DateLabels.monthly(DateLabels.monthIndex(LocalDate.of(2024, 2, 29))));
+    }
+
+    @Test
+    void monthIndexRoundTrip() {
+        for (LocalDate date : new LocalDate[]{LocalDate.of(1999, 12, 31), LocalDate.of(2000, 1, 1),
+                LocalDate.of(2101, 1, 1), LocalDate.of(1, 1, 1)}) {
+            assertEquals(date.withDayOfMonth(1), DateLabels.monthStart(DateLabels.monthIndex(date)));
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.aad.microservice.customer_statistics_service.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class LongDoubleHashMapTest {
+
+    @Test
+    void collidingKeysSurviveResize() {
+        // Các khóa cùng ô đầu tiên trong bảng 16 ô: chuỗi dò tuyến tính dài rồi bảng được nới khi vượt 12 phần tử
+        List<Long> keys = keysInSameSlot(16, 40);
+        LongDoubleHashMap map = new LongDoubleHashMap();
+        for (int i = 0; i < keys.size(); i++) {
+            map.add(keys.get(i), i);
+            map.add(keys.get(i), 0.5);
+        }
+
+        assertEquals(keys.size(), map.size());
+        for (int i = 0; i < keys.size(); i++) {
+            assertEquals(i + 0.5, map.get(keys.get(i)));
+        }
+        assertEquals(0.0, map.get(keysInSameSlot(16, 41).get(40)));
+    }
+
+    @Test
+    void matchesHashMapOnRandomKeys() {
+        Random random = new Random(1);
+        LongDoubleHashMap map = new LongDoubleHashMap(1);
+        Map<Long, Double> expected = new HashMap<>();
+        for (int i = 0; i < 50_000; i++) {
+            long key = random.nextInt(10) == 0 ? random.nextLong() : random.nextInt(5_000) - 2_500;
+            if (key == Long.MIN_VALUE) {
+                continue;
+            }
+            map.add(key, i);
+            expected.merge(key, (double) i, Double::sum);
+        }
+
+        assertEquals(expected.size(), map.size());
+        Map<Long, Double> actual = new HashMap<>();
+        map.forEach(actual::put);
+        assertEquals(expected, actual);
+        expected.forEach((key, value) -> assertEquals(value, map.get(key)));
+    }
+
+    @Test
+    void minValueKeyIsRejected() {
+        LongDoubleHashMap map = new LongDoubleHashMap();
+        assertThrows(IllegalArgumentException.class, () -> map.add(Long.MIN_VALUE, 1.0));
+        assertEquals(0.0, map.get(Long.MIN_VALUE));
+        assertEquals(0, map.size());
+
+        map.add(Long.MAX_VALUE, 2.0);
+        map.add(Long.MIN_VALUE + 1, 3.0);
+        assertEquals(2.0, map.get(Long.MAX_VALUE));
+        assertEquals(3.0, map.get(Long.MIN_VALUE + 1));
+    }
+
+    // Cùng hàm băm với LongDoubleHashMap.slot
+    private static List<Long> keysInSameSlot(int capacity, int count) {
+        List<Long> keys = new ArrayList<>();
+        for (long key = 1; keys.size() < count; key++) {
+            long hash = key * 0x9E3779B97F4A7C15L;
+            if (((int) (hash ^ (hash >>> 32)) & (capacity - 1)) == 0) {
+                keys.add(key);
+            }
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,75 @@
+package com.aad.microservice.customer_statistics_service.util;
+
+import com.aad.microservice.customer_statistics_service.constant.RevenueGranularityConstants;
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TimeBucketsTest {
+
+    private static final String DAY = RevenueGranularityConstants.DAY;
+    private static final String WEEK = RevenueGranularityConstants.WEEK;
+    private static final String MONTH = RevenueGranularityConstants.MONTH;
+    private static final String YEAR = RevenueGranularityConstants.YEAR;
+
+    @Test
+    void isoWeekAcrossYearBoundary() {
+        // 31/12/2020 (thứ 5) và 03/01/2021 (chủ nhật) cùng thuộc tuần ISO 53 của 2020, bắt đầu thứ 2 28/12/2020
+        long week = TimeBuckets.key(LocalDate.of(2020, 12, 31), WEEK);
+        assertEquals(week, TimeBuckets.key(LocalDate.of(2020, 12, 28), WEEK));
+        assertEquals(week, TimeBuckets.key(LocalDate.of(2021, 1, 3), WEEK));
+        assertEquals(week + 1, TimeBuckets.key(LocalDate.of(2021, 1, 4), WEEK));
+        assertEquals(week - 1, TimeBuckets.key(LocalDate.of(2020, 12, 27), WEEK));
+        assertEquals(LocalDate.of(2020, 12, 28), TimeBuckets.startDate(week, WEEK));
+        assertEquals("Tuần 53 (28/12/2020 - 03/01/2021)", TimeBuckets.label(week, WEEK));
+    }
+
+    @Test
+    void monthAndYearAcrossYearBoundary() {
+        long december = TimeBuckets.key(LocalDate.of(2020, 12, 31), MONTH);
+        assertEquals(december + 1, TimeBuckets.key(LocalDate.of(2021, 1, 3), MONTH));
+        assertEquals(LocalDate.of(2020, 12, 1), TimeBuckets.startDate(december, MONTH));
+        assertEquals(LocalDate.of(2021, 1, 1), TimeBuckets.startDate(december + 1, MONTH));
+        assertEquals("Tháng 1 2021", TimeBuckets.label(december + 1, MONTH));
+
+        assertEquals(2020, TimeBuckets.key(LocalDate.of(2020, 12, 31), YEAR));
+        assertEquals(2021, TimeBuckets.key(LocalDate.of(2021, 1, 3), YEAR));
+        assertEquals(LocalDate.of(2021, 1, 1), TimeBuckets.startDate(2021, YEAR));
+    }
+
+    @Test
+    void consecutiveDaysMatchCalendarBuckets() {
+        // Mỗi ngày từ 1969 đến 2030: khóa trả về đúng ngày bắt đầu bucket và tăng 1 khi sang bucket mới
+        for (String granularity : new String[]{DAY, WEEK, MONTH, YEAR}) {
+            LocalDate date = LocalDate.of(1969, 1, 1);
+            long previousKey = TimeBuckets.key(date, granularity);
+            LocalDate previousStart = expectedStart(date, granularity);
+            while (date.getYear() < 2031) {
+                long key = TimeBuckets.key(date, granularity);
+                LocalDate start = expectedStart(date, granularity);
+                assertEquals(start, TimeBuckets.startDate(key, granularity), granularity + " " + date);
+                assertEquals(start.equals(previousStart) ? previousKey : previousKey + 1, key, granularity + " " + date);
+                previousKey = key;
+                previousStart = start;
+                date = date.plusDays(1);
+            }
+        }
+    }
+
+    private static LocalDate expectedStart(LocalDate date, String granularity) {
+        switch (granularity) {
+            case RevenueGranularityConstants.WEEK:
+                return date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            case RevenueGranularityConstants.MONTH:
+                return date.withDayOfMonth(1);
+            case RevenueGranularityConstants.YEAR:
+                return date.withDayOfYear(1);
+            default:
+                return date;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.aad.microservice.customer_statistics_service.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TopNSelectorTest {
+
+    @Test
+    void equalValuesKeepSmallerKeysFirst() {
+        TopNSelector selector = new TopNSelector(3);
+        for (long key : new long[]{9, 4, 7, 1, 8, 2}) {
+            selector.offer(key, 100.0);
+        }
+        selector.offer(5, 50.0);
+
+        assertArrayEquals(new long[]{1, 2, 4}, selector.drainKeysDescending());
+    }
+
+    @Test
+    void orderedByValueThenKey() {
+        TopNSelector selector = new TopNSelector(4);
+        selector.offer(10, 5.0);
+        selector.offer(3, 7.0);
+        selector.offer(8, 7.0);
+        selector.offer(1, 1.0);
+        selector.offer(6, 9.0);
+
+        assertArrayEquals(new long[]{6, 3, 8, 10}, selector.drainKeysDescending());
+    }
+
+    @Test
+    void capacityLargerThanOffered() {
+        TopNSelector selector = new TopNSelector(10);
+        selector.offer(2, 1.0);
+        selector.offer(1, 3.0);
+        selector.offer(3, 2.0);
+
+        assertArrayEquals(new long[]{1, 3, 2}, selector.drainKeysDescending());
+        assertEquals(3, selector.getOffered());
+    }
+
+    @Test
+    void zeroCapacitySelectsNothing() {
+        TopNSelector selector = new TopNSelector(0);
+        selector.offer(1, 1.0);
+        selector.offer(2, 2.0);
+
+        assertEquals(0, selector.drainKeysDescending().length);
+        assertEquals(2, selector.getOffered());
+    }
+
+    @Test
+    void matchesFullSortOnRandomData() {
+        Random random = new Random(3);
+        for (int round = 0; round < 200; round++) {
+            int m = random.nextInt(300);
+            int n = random.nextInt(40);
+            long[] keys = random.longs(m, 0, 1_000).distinct().toArray();
+            // Ít giá trị khác nhau để có nhiều phần tử bằng giá trị
+            double[] values = IntStream.range(0, keys.length).mapToDouble(i -> random.nextInt(20)).toArray();
+
+            TopNSelector selector = new TopNSelector(n);
+            for (int i = 0; i < keys.length; i++) {
+                selector.offer(keys[i], values[i]);
+            }
+
+            long[] expected = IntStream.range(0, keys.length).boxed()
+                    .sorted(Comparator.<Integer>comparingDouble(i -> -values[i]).thenComparingLong(i -> keys[i]))
+                    .limit(n)
+                    .mapToLong(i -> keys[i])
+                    .toArray();
+            assertArrayEquals(expected, selector.drainKeysDescending(), "m=" + m + " n=" + n);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+-- Move contract, job detail and work shift ids from IDENTITY columns to pooled sequences
+-- (allocationSize = 50 in CustomerContract, JobDetail and WorkShift), so Hibernate can batch inserts.
+-- Existing ids are kept; each sequence continues after the current MAX(id).
+-- Run once with customer-contract-service stopped, before deploying the new version.
+
+-- Connect to customer contract database
+\c customercontractdb;
+
+BEGIN;
+
+-- Block inserts while the sequences are positioned
+LOCK TABLE customer_contracts, job_details, work_shifts IN EXCLUSIVE MODE;
+
+CREATE SEQUENCE IF NOT EXISTS customer_contracts_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS job_details_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS work_shifts_seq START WITH 1 INCREMENT BY 50;
+
+-- Hibernate's pooled optimizer hands out (value - 49 .. value) for each nextval,
+-- so the first nextval must return MAX(id) + 50
+SELECT setval('customer_contracts_seq', COALESCE(MAX(id), 0) + 50, false) FROM customer_contracts;
+SELECT setval('job_details_seq', COALESCE(MAX(id), 0) + 50, false) FROM job_details;
+SELECT setval('work_shifts_seq', COALESCE(MAX(id), 0) + 50, false) FROM work_shifts;
+
+-- Ids now come only from the application; drop the identity (or serial default) so nothing else draws from the old sequence
+ALTER TABLE customer_contracts ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE customer_contracts ALTER COLUMN id DROP DEFAULT;
+ALTER TABLE job_details ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE job_details ALTER COLUMN id DROP DEFAULT;
+ALTER TABLE work_shifts ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE work_shifts ALTER COLUMN id DROP DEFAULT;
+
+COMMIT;
+
+-- Verify sequences
+SELECT sequencename, increment_by, last_value
+FROM pg_sequences
+WHERE sequencename IN ('customer_contracts_seq', 'job_details_seq', 'work_shifts_seq')
+ORDER BY sequencename;
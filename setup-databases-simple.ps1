@@ -24,7 +24,7 @@ Write-Host "Creating databases..." -ForegroundColor Yellow
 $env:PGPASSWORD = "1234"
 
 # Create databases
-$databases = @("customerdb", "jobdb", "customercontractdb", "customerpaymentdb")
+$databases = @("customerdb", "jobdb", "customercontractdb", "customerpaymentdb", "customerstatisticsdb")
 
 foreach ($db in $databases) {
     Write-Host "Creating database: $db" -ForegroundColor Yellow
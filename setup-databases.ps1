@@ -54,7 +54,7 @@ if (-not (Test-PostgreSQLConnection)) {
 Write-Host "1. CREATING DATABASES..." -ForegroundColor Cyan
 
 # Create databases
-$databases = @("customerdb", "jobdb", "customercontractdb", "customerpaymentdb")
+$databases = @("customerdb", "jobdb", "customercontractdb", "customerpaymentdb", "customerstatisticsdb")
 
 foreach ($db in $databases) {
     Write-Host "Creating database: $db" -ForegroundColor Yellow
@@ -144,5 +144,6 @@ Write-Host "  ✓ customerdb" -ForegroundColor White
 Write-Host "  ✓ jobdb (with Vietnamese job categories)" -ForegroundColor White
 Write-Host "  ✓ customercontractdb" -ForegroundColor White
 Write-Host "  ✓ customerpaymentdb" -ForegroundColor White
+Write-Host "  ✓ customerstatisticsdb" -ForegroundColor White
 Write-Host ""
 Write-Host "Next step: Run .\build-and-deploy.ps1 to build and deploy microservices" -ForegroundColor Yellow